@@ -0,0 +1,240 @@
+package edu.pmdm.vegas_laraimdbapp.database;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
+
+import static org.junit.Assert.*;
+
+/**
+ * Actualización desde cada esquema anterior: crea la base de datos tal como quedaba en esa versión,
+ * la llena con una biblioteca grande, la abre con {@link FavoriteDatabase} (que la migra hasta la última versión)
+ * y comprueba que no se ha perdido nada. El tiempo de cada migración queda en el log de FavoriteDatabase.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FavoriteDatabaseMigrationTest {
+
+    private static final String TAG = "FavoriteDatabaseMigrationTest";
+    private static final String DB_NAME = "favorites_migration_test.db";
+
+    private static final String USER_A = "userA";
+    private static final String USER_B = "userB";
+    private static final int FAVORITES_A = 5000;
+    private static final int FAVORITES_B = 1000; // Las mismas películas que las primeras de A
+    private static final int SESSION_EVENTS = 100;
+    private static final int OUTBOX_ROWS = 50;
+    private static final long WATERMARK = 12345;
+    private static final String PLACEHOLDER_ID = "ttplaceholder";
+
+    private Context context;
+    private FavoriteDatabase database;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void upgradeFromEveryVersion_keepsData() {
+        for (int version = FavoriteDatabase.BASE_VERSION; version < FavoriteDatabase.DATABASE_VERSION; version++) {
+            context.deleteDatabase(DB_NAME);
+            createAndFill(version);
+
+            long start = SystemClock.elapsedRealtime();
+            database = new FavoriteDatabase(context, DB_NAME);
+            SQLiteDatabase db = database.getWritableDatabase();
+            Log.i(TAG, "Actualización de la versión " + version + " a la " + FavoriteDatabase.DATABASE_VERSION
+                    + " con " + FAVORITES_A + " favoritos: " + (SystemClock.elapsedRealtime() - start) + " ms");
+
+            assertEquals(FavoriteDatabase.DATABASE_VERSION, db.getVersion());
+            assertUpgraded(version);
+            database.close();
+            database = null;
+        }
+    }
+
+    @Test
+    public void freshInstall_createsLatestSchema() {
+        database = new FavoriteDatabase(context, DB_NAME);
+        assertEquals(FavoriteDatabase.DATABASE_VERSION, database.getWritableDatabase().getVersion());
+        assertEquals(0, database.countFavorites(USER_A));
+        assertEquals(0, database.countOutbox());
+    }
+
+    /**
+     * Crea el esquema de una versión y lo llena con datos sintéticos
+     * @param version Versión del esquema
+     */
+    private void createAndFill(int version) {
+        File file = context.getDatabasePath(DB_NAME);
+        file.getParentFile().mkdirs();
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(file, null);
+        try {
+            db.beginTransaction();
+            try {
+                FavoriteDatabase.createSchema(db, version);
+                fill(db, version);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } finally {
+            db.close();
+        }
+    }
+
+    /**
+     * Inserta usuarios, favoritos y, según la versión, diario de sesiones, marca de agua y cola de subida
+     * @param db Base de datos
+     * @param version Versión del esquema
+     */
+    private static void fill(SQLiteDatabase db, int version) {
+        db.execSQL("INSERT INTO users (userId, name, email, last_login, last_logout) VALUES (?, ?, ?, ?, ?)",
+                new Object[]{USER_A, "Usuario A", "a@example.com", "2024-01-01 10:00:00", null});
+        db.execSQL("INSERT INTO users (userId, name, email, last_login, last_logout) VALUES (?, ?, ?, ?, ?)",
+                new Object[]{USER_B, "Usuario B", "b@example.com", null, null});
+
+        if (version < 10) {
+            // Tabla antigua: una fila completa por película y usuario
+            SQLiteStatement insert = db.compileStatement("INSERT INTO favorites " +
+                    "(id, title, imageUrl, releaseDate, plot, rating, userId) VALUES (?, ?, ?, ?, ?, ?, ?)");
+            for (int i = 0; i < FAVORITES_A; i++) {
+                bindLegacy(insert, i, USER_A);
+                insert.executeInsert();
+            }
+            for (int i = 0; i < FAVORITES_B; i++) {
+                bindLegacy(insert, i, USER_B);
+                insert.executeInsert();
+            }
+            insert.close();
+        } else {
+            SQLiteStatement movie = db.compileStatement("INSERT INTO movies " +
+                    "(id, title, imageUrl, releaseDate, plot, rating) VALUES (?, ?, ?, ?, ?, ?)");
+            SQLiteStatement favorite = db.compileStatement("INSERT INTO user_favorites (userId, movieId, addedAt) VALUES (?, ?, ?)");
+            for (int i = 0; i < FAVORITES_A; i++) {
+                movie.bindString(1, "tt" + i);
+                movie.bindString(2, title(i));
+                movie.bindString(3, "https://example.com/" + i + ".jpg");
+                movie.bindString(4, "2024-01-01");
+                movie.bindString(5, "Argumento " + i);
+                movie.bindDouble(6, 1 + i % 9);
+                movie.executeInsert();
+                insertFavorite(favorite, USER_A, i);
+                if (i < FAVORITES_B) {
+                    insertFavorite(favorite, USER_B, i);
+                }
+            }
+            movie.close();
+            favorite.close();
+            // Película guardada desde una lista con los textos por defecto de los converters
+            db.execSQL("INSERT INTO movies (id, title, imageUrl, releaseDate, plot, rating) VALUES (?, ?, ?, ?, ?, ?)",
+                    new Object[]{PLACEHOLDER_ID, "Sin título", "", "Fecha no disponible", "No hay sinopsis disponible", 0});
+        }
+
+        if (version >= 9) {
+            for (int i = 0; i < SESSION_EVENTS; i++) {
+                db.execSQL("INSERT INTO session_journal (userId, type, time, timestamp) VALUES (?, ?, ?, ?)",
+                        new Object[]{USER_A, i % 2 == 0 ? "login" : "logout", "2024-01-01 10:00:00", 1_700_000_000_000L + i});
+            }
+        }
+        if (version >= 11) {
+            db.execSQL("INSERT INTO sync_state (userId, scope, watermark) VALUES (?, ?, ?)",
+                    new Object[]{USER_A, FavoriteDatabase.SYNC_SCOPE_FAVORITES, WATERMARK});
+        }
+        if (version >= 12) {
+            for (int i = 0; i < OUTBOX_ROWS; i++) {
+                db.execSQL("INSERT INTO favorites_outbox (userId, movieId, op, createdAt) VALUES (?, ?, ?, ?)",
+                        new Object[]{USER_A, "tt" + i, "add", 1_700_000_000_000L + i});
+            }
+        }
+    }
+
+    /**
+     * Comprueba que los datos de la versión de partida siguen ahí tras actualizar
+     * @param version Versión de partida
+     */
+    private void assertUpgraded(int version) {
+        String at = "Desde la versión " + version;
+        assertEquals(at, FAVORITES_A, database.countFavorites(USER_A));
+        assertEquals(at, FAVORITES_B, database.countFavorites(USER_B));
+
+        Movie movie = database.getMovie("tt42");
+        assertNotNull(at, movie);
+        assertEquals(at, title(42), movie.getTitle());
+        assertEquals(at, "Argumento 42", movie.getPlot());
+
+        if (version >= 10) {
+            // Los textos por defecto ya no cuentan como datos guardados
+            Movie placeholder = database.getMovie(PLACEHOLDER_ID);
+            assertNull(at, placeholder.getTitle());
+            assertNull(at, placeholder.getPlot());
+            assertNull(at, placeholder.getReleaseDate());
+            assertNull(at, placeholder.getImage());
+        }
+
+        // Se mantiene el orden en que se añadieron
+        List<Movie> first = database.getFavoritesPage(USER_A, 0, 3);
+        assertEquals(at, "tt0", first.get(0).getId());
+        assertEquals(at, "tt1", first.get(1).getId());
+        assertEquals(at, "tt2", first.get(2).getId());
+
+        // El índice de texto completo cubre las filas migradas
+        assertEquals(at, FAVORITES_A, database.countSearchResults(USER_A, "pelicula"));
+        assertEquals(at, 1, database.countSearchResults(USER_A, "Argumento 4242"));
+
+        Map<String, String> user = database.getUser(USER_A);
+        assertEquals(at, "Usuario A", user.get(FavoriteDatabase.COLUMN_NAME));
+        assertNull(at, user.get(FavoriteDatabase.COLUMN_ADDRESS));
+
+        assertEquals(at, version >= 9 ? SESSION_EVENTS : 0, database.getPendingSessionEvents(1000).size());
+        assertEquals(at, version >= 11 ? WATERMARK : -1,
+                database.getSyncWatermark(USER_A, FavoriteDatabase.SYNC_SCOPE_FAVORITES));
+        assertEquals(at, version >= 12 ? OUTBOX_ROWS : 0, database.countOutbox());
+    }
+
+    private static void bindLegacy(SQLiteStatement insert, int i, String userId) {
+        insert.bindString(1, "tt" + i);
+        insert.bindString(2, title(i));
+        insert.bindString(3, "https://example.com/" + i + ".jpg");
+        insert.bindString(4, "2024-01-01");
+        insert.bindString(5, "Argumento " + i);
+        insert.bindDouble(6, 1 + i % 9);
+        insert.bindString(7, userId);
+    }
+
+    private static void insertFavorite(SQLiteStatement favorite, String userId, int i) {
+        favorite.bindString(1, userId);
+        favorite.bindString(2, "tt" + i);
+        favorite.bindLong(3, 1_700_000_000_000L + i);
+        favorite.executeInsert();
+    }
+
+    private static String title(int i) {
+        return "Película " + i;
+    }
+}
@@ -0,0 +1,94 @@
+package edu.pmdm.vegas_laraimdbapp.database;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
+
+import static org.junit.Assert.*;
+
+/**
+ * Guardado de los datos de una película desde varias fuentes: lo que trae una lista (top, discover)
+ * no debe borrar lo que ya había guardado el detalle.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FavoriteDatabaseMovieMergeTest {
+
+    private static final String DB_NAME = "favorites_merge_test.db";
+    private static final String ID = "tt1";
+
+    private Context context;
+    private FavoriteDatabase database;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        database = new FavoriteDatabase(context, DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void listSave_afterDetail_keepsDetail() {
+        save(new Movie(ID, "https://example.com/detalle.jpg", "Título", "Sinopsis del detalle", 8.4, "2024-3-1"));
+
+        // Como llega del top: sin sinopsis, sin fecha, sin imagen y sin puntuación
+        Movie fromList = new Movie();
+        fromList.setId(ID);
+        fromList.setTitle("Título nuevo");
+        save(fromList);
+
+        Movie stored = database.getMovie(ID);
+        assertEquals("Título nuevo", stored.getTitle());
+        assertEquals("Sinopsis del detalle", stored.getPlot());
+        assertEquals("2024-3-1", stored.getReleaseDate());
+        assertEquals("https://example.com/detalle.jpg", stored.getImage());
+        assertEquals(8.4, stored.getRating(), 0.0);
+    }
+
+    @Test
+    public void emptyFields_doNotEraseDetail() {
+        save(new Movie(ID, "https://example.com/detalle.jpg", "Título", "Sinopsis del detalle", 8.4, "2024-3-1"));
+        save(new Movie(ID, "", "", "", 0, ""));
+
+        Movie stored = database.getMovie(ID);
+        assertEquals("Título", stored.getTitle());
+        assertEquals("Sinopsis del detalle", stored.getPlot());
+        assertEquals("2024-3-1", stored.getReleaseDate());
+        assertEquals("https://example.com/detalle.jpg", stored.getImage());
+    }
+
+    @Test
+    public void listSave_beforeDetail_leavesMissingFieldsNull() {
+        save(new Movie(ID, "", "Título", null, 0, null));
+
+        // Así MovieDetailsActivity sabe que aún tiene que pedir el detalle
+        Movie stored = database.getMovie(ID);
+        assertNull(stored.getPlot());
+        assertNull(stored.getReleaseDate());
+        assertNull(stored.getImage());
+
+        save(new Movie(ID, null, null, "Sinopsis del detalle", 8.4, "2024-3-1"));
+        stored = database.getMovie(ID);
+        assertEquals("Título", stored.getTitle());
+        assertEquals("Sinopsis del detalle", stored.getPlot());
+    }
+
+    private void save(Movie movie) {
+        database.upsertMovies(Collections.singletonList(movie));
+    }
+}
@@ -0,0 +1,119 @@
+package edu.pmdm.vegas_laraimdbapp.database;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tiempo de la escritura por lotes de favoritos (la que usa la sincronización) con 10 y 10.000 películas,
+ * comparado con guardarlas de una en una como se hacía antes, cada una en su propia transacción.
+ */
+@RunWith(AndroidJUnit4.class)
+public class FavoriteDatabaseUpsertTest {
+
+    private static final String TAG = "FavoriteDatabaseUpsertTest";
+    private static final String DB_NAME = "favorites_upsert_test.db";
+    private static final String USER = "user";
+
+    // Películas guardadas de una en una para medir el coste por fila del camino antiguo
+    private static final int ROW_BY_ROW = 200;
+
+    private Context context;
+    private FavoriteDatabase database;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DB_NAME);
+        database = new FavoriteDatabase(context, DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        database.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void syncBatch_10_vs_10000() {
+        double rowByRowUs = rowByRow(ROW_BY_ROW);
+        double small = bulk(10, "small");
+        double large = bulk(10_000, "large");
+
+        Log.i(TAG, String.format("Por favorito: de una en una %.0f µs | lote de 10 %.0f µs | lote de 10000 %.0f µs",
+                rowByRowUs, small, large));
+        // En un lote el coste por fila es el de la sentencia compilada, no el de un commit por fila
+        assertTrue("Lote de 10000: " + large + " µs por favorito, de una en una: " + rowByRowUs, large < rowByRowUs);
+    }
+
+    @Test
+    public void syncBatch_repeated_isIdempotent() {
+        List<Movie> movies = movies(10_000, "repeat");
+        assertTrue(database.applyFavoriteChanges(USER, new ArrayList<>(movies), new ArrayList<>(), -1));
+        long start = SystemClock.elapsedRealtime();
+        assertTrue(database.applyFavoriteChanges(USER, new ArrayList<>(movies), new ArrayList<>(), -1));
+        Log.i(TAG, "Repetir el lote de 10000 sin cambios: " + (SystemClock.elapsedRealtime() - start) + " ms");
+        assertEquals(10_000, database.countFavorites(USER));
+    }
+
+    /**
+     * Guarda un lote nuevo como lo hace la sincronización
+     * @param count Número de favoritos
+     * @param prefix Prefijo de los IDs, para no repetir películas entre lotes
+     * @return Microsegundos por favorito
+     */
+    private double bulk(int count, String prefix) {
+        List<Movie> movies = movies(count, prefix);
+        int before = database.countFavorites(USER);
+        long start = SystemClock.elapsedRealtimeNanos();
+        assertTrue(database.applyFavoriteChanges(USER, movies, new ArrayList<>(), -1));
+        long elapsedUs = (SystemClock.elapsedRealtimeNanos() - start) / 1000;
+        assertEquals(before + count, database.countFavorites(USER));
+        Log.i(TAG, "Lote de " + count + " favoritos: " + elapsedUs / 1000 + " ms");
+        return (double) elapsedUs / count;
+    }
+
+    /**
+     * Guarda favoritos como el bucle antiguo: comprobar si existe y escribir con un commit por película
+     * @param count Número de favoritos
+     * @return Microsegundos por favorito
+     */
+    private double rowByRow(int count) {
+        List<Movie> movies = movies(count, "row");
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (Movie movie : movies) {
+            if (!database.movieExists(movie.getId(), USER)) {
+                database.upsertFavorites(Collections.singletonList(movie), USER);
+            }
+        }
+        long elapsedUs = (SystemClock.elapsedRealtimeNanos() - start) / 1000;
+        assertEquals(count, database.countFavorites(USER));
+        Log.i(TAG, count + " favoritos de uno en uno: " + elapsedUs / 1000 + " ms");
+        return (double) elapsedUs / count;
+    }
+
+    private static List<Movie> movies(int count, String prefix) {
+        List<Movie> movies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            movies.add(new Movie(prefix + i, "https://example.com/" + i + ".jpg", "Película " + i,
+                    "Argumento de la película " + i, 1 + i % 9, "2024-01-01"));
+        }
+        return movies;
+    }
+}
@@ -41,7 +41,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
+import edu.pmdm.vegas_laraimdbapp.database.DatabaseExecutor;
 import edu.pmdm.vegas_laraimdbapp.database.FavoritesManager;
 import edu.pmdm.vegas_laraimdbapp.utils.KeystoreManager;
 
@@ -394,52 +396,64 @@ public class EditUserActivity extends AppCompatActivity {
         String userId = sharedPreferences.getString("userId", null);
         String email = sharedPreferences.getString("email", "Correo no disponible");
 
-        // Verificar si ya hay una imagen guardada
-        String imagePath = sharedPreferences.getString("profileImagePath", null);
-
-        if (imagePath == null || imagePath.isEmpty()) {
-            FavoritesManager favoritesManager = FavoritesManager.getInstance(this);
-            Map<String, String> userData = favoritesManager.getUserDetails(userId);
-
-            // Intenta obtener la imagen desde SQLite
-            imagePath = userData != null ? userData.get("image") : null;
-
-            // Si aún es nulo, usa la imagen predeterminada
-            if (imagePath == null || imagePath.isEmpty()) {
-                imagePath = "android.resource://" + getPackageName() + "/drawable/logoandroid";
-            }
-        }
-
         if (userId == null || userId.isEmpty()) {
             Toast.makeText(this, "Error al guardar: Usuario no válido.", Toast.LENGTH_SHORT).show();
             return;
         }
 
+        // Verificar si ya hay una imagen guardada
+        String savedImagePath = sharedPreferences.getString("profileImagePath", null);
+        String defaultImagePath = "android.resource://" + getPackageName() + "/drawable/logoandroid";
+
         KeystoreManager keystoreManager = new KeystoreManager(this);
         String encryptedPhone = keystoreManager.encrypt(phone);
         String encryptedAddress = keystoreManager.encrypt(address);
 
-
-        // Guardar en SQLite
+        // Leer y guardar en SQLite fuera del hilo principal
         FavoritesManager favoritesManager = FavoritesManager.getInstance(this);
-        favoritesManager.addOrUpdateUser(userId, name, email, null, null, encryptedAddress, encryptedPhone, imagePath);
-
-        // Guardar en SharedPreferences
-        SharedPreferences.Editor editor = sharedPreferences.edit();
-        editor.putString("name", name);
-        editor.putString("phone", encryptedPhone);
-        editor.putString("userAddress", encryptedAddress);
-        editor.putString("profileImagePath", imagePath); // Guardar correctamente la imagen actual
-        editor.apply();
-
-        // Guardar en Firestore
-        saveUserToFirestore(userId, name, email, encryptedPhone, encryptedAddress, imagePath);
-
-        Toast.makeText(this, "Datos guardados correctamente", Toast.LENGTH_SHORT).show();
-        Intent intent = new Intent(EditUserActivity.this, MainActivity.class);
-        intent.setFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_SINGLE_TOP);
-        startActivity(intent);
-        finish();
+        CompletableFuture.supplyAsync(() -> {
+            String imagePath = savedImagePath;
+            if (imagePath == null || imagePath.isEmpty()) {
+                // Intenta obtener la imagen desde SQLite
+                Map<String, String> userData = favoritesManager.getUserDetails(userId);
+                imagePath = userData != null ? userData.get("image") : null;
+
+                // Si aún es nulo, usa la imagen predeterminada
+                if (imagePath == null || imagePath.isEmpty()) {
+                    imagePath = defaultImagePath;
+                }
+            }
+            favoritesManager.addOrUpdateUser(userId, name, email, null, null, encryptedAddress, encryptedPhone, imagePath);
+            return imagePath;
+        }, DatabaseExecutor.io()).whenCompleteAsync((imagePath, error) -> {
+            if (error != null) {
+                Log.e("EditUserActivity", "Error al guardar los datos del usuario: " + error.getMessage());
+                if (!isFinishing() && !isDestroyed()) {
+                    Toast.makeText(this, "Error al guardar los datos", Toast.LENGTH_SHORT).show();
+                }
+                return;
+            }
+
+            // Guardar en SharedPreferences
+            SharedPreferences.Editor editor = sharedPreferences.edit();
+            editor.putString("name", name);
+            editor.putString("phone", encryptedPhone);
+            editor.putString("userAddress", encryptedAddress);
+            editor.putString("profileImagePath", imagePath); // Guardar correctamente la imagen actual
+            editor.apply();
+
+            // Guardar en Firestore
+            saveUserToFirestore(userId, name, email, encryptedPhone, encryptedAddress, imagePath);
+
+            if (isFinishing() || isDestroyed()) {
+                return;
+            }
+            Toast.makeText(this, "Datos guardados correctamente", Toast.LENGTH_SHORT).show();
+            Intent intent = new Intent(EditUserActivity.this, MainActivity.class);
+            intent.setFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_SINGLE_TOP);
+            startActivity(intent);
+            finish();
+        }, DatabaseExecutor.main());
     }
 
     /**
@@ -43,8 +43,11 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
+import edu.pmdm.vegas_laraimdbapp.database.DatabaseExecutor;
 import edu.pmdm.vegas_laraimdbapp.database.FavoriteDatabase;
-import edu.pmdm.vegas_laraimdbapp.database.FavoritesManager;
+import edu.pmdm.vegas_laraimdbapp.models.SessionEvent;
+import edu.pmdm.vegas_laraimdbapp.sync.FavoritesSyncEngine;
+import edu.pmdm.vegas_laraimdbapp.sync.SessionJournal;
 import edu.pmdm.vegas_laraimdbapp.sync.UserSyncManager;
 import edu.pmdm.vegas_laraimdbapp.utils.KeystoreManager;
 
@@ -59,7 +62,6 @@ public class LogInActivity extends AppCompatActivity {
     private CallbackManager callbackManager;
     private FavoriteDatabase databaseHelper;
     private UserSyncManager userSyncManager;
-    private FavoritesManager favoritesManager;
 
     private EditText editTextEmail, editTextPassword;
     private Button buttonLogin, buttonRegister;
@@ -73,10 +75,9 @@ public class LogInActivity extends AppCompatActivity {
         setContentView(R.layout.activity_log_in);
 
         // Inicializar Firebase y la BD local
-        favoritesManager = FavoritesManager.getInstance(this);
         firebaseAuth = FirebaseAuth.getInstance();
         db = FirebaseFirestore.getInstance();
-        databaseHelper = new FavoriteDatabase(this);
+        databaseHelper = FavoriteDatabase.getInstance(this);
         userSyncManager = new UserSyncManager(this);
 
         initializeUI();
@@ -239,22 +240,16 @@ public class LogInActivity extends AppCompatActivity {
     private void registerLogin(String userId) {
         String loginTime = getCurrentDateTime();
 
-        // Guardar en Firestore
-        Map<String, Object> logEntry = new HashMap<>();
-        logEntry.put("login_time", loginTime);
-        logEntry.put("logout_time", null);
-
-        db.collection("users").document(userId)
-                .collection("activity_log")
-                .add(logEntry);
+        // Añadir al diario de sesiones (se sube a Firestore por lotes)
+        SessionJournal.getInstance(this).record(userId, SessionEvent.TYPE_LOGIN, loginTime);
 
         // Guardar en SharedPreferences
         SharedPreferences.Editor editor = getSharedPreferences("UserPrefs", Context.MODE_PRIVATE).edit();
         editor.putString("last_login", loginTime);
         editor.apply();
 
-        // Guardar en SQLite
-        databaseHelper.registerLogin(userId, loginTime);
+        // Guardar en SQLite (en segundo plano)
+        DatabaseExecutor.io().execute(() -> databaseHelper.registerLogin(userId, loginTime));
     }
 
     /**
@@ -294,8 +289,8 @@ public class LogInActivity extends AppCompatActivity {
         editor.putString("phone", phone);
         editor.apply();
 
-        // Guardar en SQLite
-        databaseHelper.addUser(userId, name, email, address, phone, null, null);
+        // Guardar en SQLite (en segundo plano)
+        DatabaseExecutor.io().execute(() -> databaseHelper.addUser(userId, name, email, address, phone, null, null));
     }
 
 
@@ -319,17 +314,8 @@ public class LogInActivity extends AppCompatActivity {
 
         userSyncManager.registerLogin(user.getUid());
 
-        //Inicializar FavoritesManager si es null
-        if (favoritesManager == null) {
-            favoritesManager = FavoritesManager.getInstance(this);
-        }
-
-        // Asegurar que favoritesManager no sea null antes de llamar a listenForMovieUpdates()
-        if (favoritesManager != null) {
-            favoritesManager.listenForMovieUpdates();
-        } else {
-            Log.e("LogInActivity", "FavoritesManager es null, no se puede escuchar actualizaciones.");
-        }
+        // Escuchar en tiempo real los favoritos del usuario (sincroniza antes desde la última marca de agua)
+        FavoritesSyncEngine.getInstance(this).startListening(user.getUid());
 
         Intent intent = new Intent(this, MainActivity.class);
         intent.putExtra("name", user.getDisplayName());
@@ -1,12 +1,11 @@
 package edu.pmdm.vegas_laraimdbapp;
 
+import android.app.AlertDialog;
 import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
-import android.os.Build;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.util.Log;
 import android.view.MenuItem;
 import android.view.View;
@@ -34,13 +33,17 @@ import androidx.navigation.ui.NavigationUI;
 import androidx.drawerlayout.widget.DrawerLayout;
 import androidx.appcompat.app.AppCompatActivity;
 
+import java.io.File;
 import java.util.Map;
 
+import edu.pmdm.vegas_laraimdbapp.api.NetworkMetrics;
+import edu.pmdm.vegas_laraimdbapp.database.DatabaseExecutor;
 import edu.pmdm.vegas_laraimdbapp.database.FavoriteDatabase;
-import edu.pmdm.vegas_laraimdbapp.database.FavoritesManager;
 import edu.pmdm.vegas_laraimdbapp.databinding.ActivityMainBinding;
+import edu.pmdm.vegas_laraimdbapp.sync.FavoritesOutbox;
+import edu.pmdm.vegas_laraimdbapp.sync.FavoritesSyncEngine;
+import edu.pmdm.vegas_laraimdbapp.sync.SyncScheduler;
 import edu.pmdm.vegas_laraimdbapp.sync.UserSyncManager;
-import edu.pmdm.vegas_laraimdbapp.utils.AppLifecycleManager;
 
 /**
  * Actividad principal de la aplicación.
@@ -66,22 +69,17 @@ public class MainActivity extends AppCompatActivity {
 
         UserSyncManager userSyncManager = new UserSyncManager(this);
 
-        databaseHelper = new FavoriteDatabase(this);
-        FavoritesManager favoritesManager = FavoritesManager.getInstance(this);
+        databaseHelper = FavoriteDatabase.getInstance(this);
         db = FirebaseFirestore.getInstance();
 
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-            registerActivityLifecycleCallbacks(new AppLifecycleManager(this));
-        }
-
         // Obtener el usuario actual de Firebase
         FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
         if (user != null) {
             String userId = user.getUid();
 
-            // Sincronizar datos del usuario y favoritos
+            // Sincronizar datos del usuario y favoritos (el planificador junta este aviso con el de primer plano)
             userSyncManager.syncUserData(userId);
-            favoritesManager.syncFavoritesFromFirestore();
+            SyncScheduler.getInstance(this).requestSync(SyncScheduler.REASON_STARTUP);
         }
 
 
@@ -97,11 +95,6 @@ public class MainActivity extends AppCompatActivity {
         NavigationUI.setupActionBarWithNavController(this, navController, mAppBarConfiguration);
         NavigationUI.setupWithNavController(navigationView, navController);
 
-        // Sincronizar favoritos de Firestore a SQLite al iniciar sesión
-        new Handler(Looper.getMainLooper()).postDelayed(() -> {
-            favoritesManager.syncFavoritesFromFirestore();
-        }, 3000);
-
         // Configurar el botón de logout
         View headerView = navigationView.getHeaderView(0);
         Button logoutButton = headerView.findViewById(R.id.nav_header_logout_button);
@@ -168,8 +161,9 @@ public class MainActivity extends AppCompatActivity {
                             editor.putString("phone", phone);
                             editor.apply();
 
-                            // Guardar en SQLite
-                            databaseHelper.updateUser(userId, name, email, imagePath, lastLogin, lastLogout, address, phone);
+                            // Guardar en SQLite (en segundo plano)
+                            DatabaseExecutor.io().execute(() ->
+                                    databaseHelper.updateUser(userId, name, email, imagePath, lastLogin, lastLogout, address, phone));
                         }
                     }
                 })
@@ -194,6 +188,9 @@ public class MainActivity extends AppCompatActivity {
             userSyncManager.registerLogout(user.getUid());
         }
 
+        // Dejar de escuchar los favoritos del usuario que sale
+        FavoritesSyncEngine.getInstance(this).stopListening();
+
         // Cerrar sesión en Firebase y Google
         GoogleSignInOptions gso = new GoogleSignInOptions.Builder(GoogleSignInOptions.DEFAULT_SIGN_IN)
                 .requestEmail()
@@ -251,7 +248,7 @@ public class MainActivity extends AppCompatActivity {
         if (user != null) {
             String userId = FirebaseAuth.getInstance().getCurrentUser().getUid();
             String logoutTime = getCurrentDateTime();
-            databaseHelper.registerLogout(userId, logoutTime);
+            DatabaseExecutor.io().execute(() -> databaseHelper.registerLogout(userId, logoutTime));
         }
     }
 
@@ -271,15 +268,43 @@ public class MainActivity extends AppCompatActivity {
             return true;
         }
 
+        if (id == R.id.action_network_metrics) { // Pantalla de depuración con las métricas de red
+            showNetworkMetrics();
+            return true;
+        }
+
         return super.onOptionsItemSelected(item);
     }
 
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.main, menu);
+        // Las métricas de red solo se muestran en las compilaciones de depuración
+        boolean debuggable = (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        menu.findItem(R.id.action_network_metrics).setVisible(debuggable);
         return true;
     }
 
+    /**
+     * Muestra las métricas de red acumuladas y permite volcarlas a un fichero.
+     */
+    private void showNetworkMetrics() {
+        NetworkMetrics metrics = NetworkMetrics.getInstance();
+        new AlertDialog.Builder(this)
+                .setTitle("Métricas de red")
+                .setMessage(metrics.report() + "\n\n" + FavoritesOutbox.getInstance(this).report()
+                        + "\n\n" + SyncScheduler.getInstance(this).report())
+                .setPositiveButton("Cerrar", null)
+                .setNeutralButton("Guardar", (dialog, which) -> {
+                    File file = new File(getExternalFilesDir(null), "network_metrics.txt");
+                    if (metrics.dumpToFile(file)) {
+                        Toast.makeText(this, "Métricas guardadas en " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+                    }
+                })
+                .setNegativeButton("Reiniciar", (dialog, which) -> metrics.reset())
+                .show();
+    }
+
     @Override
     public boolean onSupportNavigateUp() {
         NavController navController = Navigation.findNavController(this, R.id.nav_host_fragment_content_main);
@@ -25,12 +25,10 @@ import com.squareup.picasso.Picasso;
 
 import android.Manifest;
 
-import edu.pmdm.vegas_laraimdbapp.api.ApiClientIMDB;
-import edu.pmdm.vegas_laraimdbapp.api.IMDBApiService;
-import edu.pmdm.vegas_laraimdbapp.models.MovieOverviewResponse;
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import edu.pmdm.vegas_laraimdbapp.database.DatabaseExecutor;
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
+import edu.pmdm.vegas_laraimdbapp.repository.MovieCatalogRepository;
+import edu.pmdm.vegas_laraimdbapp.repository.MovieDetailsRepository;
 
 /**
  * Actividad para mostrar los detalles de una película.
@@ -95,10 +93,20 @@ public class MovieDetailsActivity extends AppCompatActivity {
         plotTextView.setText(plot != null ? plot : "Descripción no disponible");
         ratingTextView.setText(String.format("Puntuación: %.1f", rating));
 
-        // Llamada a la API para obtener los detalles
-        if (!TMDB) {
-            fetchMovieDetails(movieId);
-        }
+        // Completar con la copia local y llamar a la API solo si aún faltan la sinopsis o la puntuación
+        MovieCatalogRepository.getInstance(this).getMovie(movieId)
+                .thenAcceptAsync(local -> {
+                    if (isFinishing() || isDestroyed()) {
+                        return;
+                    }
+                    boolean complete = local != null && local.getPlot() != null && local.getRating() > 0;
+                    if (local != null) {
+                        showDetails(local);
+                    }
+                    if (!TMDB && !complete) {
+                        fetchMovieDetails(movieId);
+                    }
+                }, DatabaseExecutor.main());
 
         // Configurar el botón para enviar SMS
         @SuppressLint({"MissingInflatedId", "LocalSuppress"})
@@ -113,43 +121,53 @@ public class MovieDetailsActivity extends AppCompatActivity {
      */
     private void fetchMovieDetails(String movieId) {
 
-        // Crear una instancia del servicio de la API
-        IMDBApiService apiService = ApiClientIMDB.getClient().create(IMDBApiService.class);
-
-        apiService.getMovieDetails(movieId).enqueue(new Callback<MovieOverviewResponse>() {
+        // Los detalles se piden al repositorio, que evita llamadas duplicadas a la API
+        MovieDetailsRepository.getInstance().getMovieDetails(movieId, new MovieDetailsRepository.DetailsCallback() {
             @Override
-            public void onResponse(Call<MovieOverviewResponse> call, Response<MovieOverviewResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    MovieOverviewResponse.Title movieTitle = response.body().getData().getTitle(); // Obtener el título de la película
-                    if (movieTitle != null) { // Verificar si el título no es nulo
-                        String plot = movieTitle.getPlotText(); // Obtener la descripción de la película
-                        double rating = movieTitle.getRating(); // Obtener la puntuación de la película
-
-                        // Actualizar las vistas con los detalles
-                        plotTextView.setText(plot != null ? plot : "Descripción no disponible");
-                        ratingTextView.setText(String.format("Puntuación: %.1f", rating));
-
-                        // Construir el mensaje de detalles de la película para enviar SMS
-                        movieDetails = "¡NOVEDAD!\n¡No te pierdas esta película!\n" +
-                                "Título: " + movieTitle.getTitleText() + "\n" +
-                                "Descripción: " + (plot != null ? plot : "No disponible") + "\n" +
-                                "Fecha de lanzamiento: " + movieTitle.getReleaseDateString() + "\n" +
-                                "Puntuación: " + String.format("%.1f", rating);
-                    } else {
-                        showError("Error al cargar los detalles de la película.");
-                    }
-                } else {
-                    showError("No se pudo obtener los detalles de la película. Código: " + response.code());
+            public void onDetails(Movie movieTitle) {
+                if (isFinishing() || isDestroyed()) {
+                    return;
                 }
+                if (movieTitle.getId() == null) {
+                    movieTitle.setId(movieId);
+                }
+                MovieCatalogRepository.getInstance(MovieDetailsActivity.this).save(movieTitle); // La próxima vez sin red
+                showDetails(movieTitle);
             }
 
             @Override
-            public void onFailure(Call<MovieOverviewResponse> call, Throwable t) {
-                showError("Error de conexión: " + t.getMessage());
+            public void onError(String message) {
+                if (!isFinishing() && !isDestroyed()) {
+                    showError(message);
+                }
             }
         });
     }
 
+    /**
+     * Muestra la sinopsis y la puntuación de una película y prepara el mensaje para enviar por SMS.
+     * @param movieTitle La película con los detalles.
+     */
+    private void showDetails(Movie movieTitle) {
+        String plot = movieTitle.getPlot(); // Obtener la descripción de la película
+        double rating = movieTitle.getRating(); // Obtener la puntuación de la película
+
+        // Actualizar las vistas con los detalles
+        if (plot != null) {
+            plotTextView.setText(plot);
+        }
+        if (rating > 0) {
+            ratingTextView.setText(String.format("Puntuación: %.1f", rating));
+        }
+
+        // Construir el mensaje de detalles de la película para enviar SMS
+        movieDetails = "¡NOVEDAD!\n¡No te pierdas esta película!\n" +
+                "Título: " + (movieTitle.getTitle() != null ? movieTitle.getTitle() : "No disponible") + "\n" +
+                "Descripción: " + (plot != null ? plot : "No disponible") + "\n" +
+                "Fecha de lanzamiento: " + (movieTitle.getReleaseDate() != null ? movieTitle.getReleaseDate() : "No disponible") + "\n" +
+                "Puntuación: " + String.format("%.1f", rating);
+    }
+
     /**
      * Método para verificar el permiso de lectura de contactos.
      */
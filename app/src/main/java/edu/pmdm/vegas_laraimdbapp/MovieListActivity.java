@@ -7,6 +7,7 @@ import android.os.Bundle;
 import android.util.Log;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.GridLayoutManager;
@@ -16,15 +17,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 import edu.pmdm.vegas_laraimdbapp.adapter.MovieAdapter;
-import edu.pmdm.vegas_laraimdbapp.api.ApiClientTMDB;
-import edu.pmdm.vegas_laraimdbapp.api.TMDBApiService;
+import edu.pmdm.vegas_laraimdbapp.database.DatabaseExecutor;
 import edu.pmdm.vegas_laraimdbapp.database.FavoritesManager;
 import edu.pmdm.vegas_laraimdbapp.models.Movie;
-import edu.pmdm.vegas_laraimdbapp.models.TMDBMovie;
-import edu.pmdm.vegas_laraimdbapp.models.TMDBMovieResponse;
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import edu.pmdm.vegas_laraimdbapp.repository.DiscoverPager;
+import edu.pmdm.vegas_laraimdbapp.repository.FavoritesRepository;
+import edu.pmdm.vegas_laraimdbapp.repository.MovieCatalogRepository;
 
 /**
  * Actividad para mostrar una lista de películas.
@@ -34,8 +32,17 @@ public class MovieListActivity extends AppCompatActivity {
     // Declarar las variables
     private RecyclerView recyclerView;
     private MovieAdapter movieAdapter;
-    private TMDBApiService apiService;
+    private DiscoverPager pager;
     private List<Movie> movieList = new ArrayList<>();
+    private FavoritesManager favoritesManager;
+    private MovieCatalogRepository catalog; // Copia local de los metadatos de películas
+
+    // Redibuja los distintivos cuando cambia el conjunto de favoritos
+    private final FavoritesManager.OnFavoritesChangedListener favoritesListener =
+            () -> movieAdapter.notifyItemRangeChanged(0, movieAdapter.getItemCount());
+
+    // Elementos que faltan para el borde cuando se pide la siguiente página
+    private static final int PREFETCH_DISTANCE = 10;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -48,10 +55,11 @@ public class MovieListActivity extends AppCompatActivity {
 
         movieAdapter = new MovieAdapter(this, movieList, this::onMovieClick);
         movieAdapter.setOnMovieLongClickListener(this::onMovieLongClick);
+        favoritesManager = FavoritesManager.getInstance(this);
+        catalog = MovieCatalogRepository.getInstance(this);
+        movieAdapter.setFavoritesManager(favoritesManager); // Distintivo de favorita en cada carátula
         recyclerView.setAdapter(movieAdapter);
 
-        apiService = ApiClientTMDB.getClient().create(TMDBApiService.class);
-
         // Obtener datos del intent
         String genreId = getIntent().getStringExtra("genreId");
         String year = getIntent().getStringExtra("year");
@@ -69,40 +77,84 @@ public class MovieListActivity extends AppCompatActivity {
 
     /**
      * Método para realizar la búsqueda de películas.
+     * Las páginas se cargan con antelación según se acerca el final de la lista.
      * @param genreId El ID del género de la película.
      * @param year El año de lanzamiento de la película.
      */
     private void searchMovies(String genreId, String year) {
-        apiService.discoverMovies("es-ES", false, 1, genreId, year) // Realizar la búsqueda
-                .enqueue(new Callback<TMDBMovieResponse>() {
-                    @Override
-                    public void onResponse(Call<TMDBMovieResponse> call, Response<TMDBMovieResponse> response) {
-                        if (response.isSuccessful() && response.body() != null) {
-                            movieList.clear();
-                            movieList.addAll(convertToMovieList(response.body().getResults()));
-                            movieAdapter.notifyDataSetChanged();
-                        }
-                    }
+        pager = new DiscoverPager(this, genreId, year, "es-ES", new DiscoverPager.Listener() {
+            @Override
+            public void onPageAppended(List<Movie> movies) {
+                int start = movieList.size();
+                movieList.addAll(movies);
+                movieAdapter.notifyItemRangeInserted(start, movies.size());
+                catalog.save(movies); // Copia compartida para detalle y favoritos
+            }
+
+            @Override
+            public void onPagePrepended(List<Movie> movies) {
+                movieList.addAll(0, movies);
+                movieAdapter.notifyItemRangeInserted(0, movies.size());
+                catalog.save(movies);
+            }
+
+            @Override
+            public void onItemsDroppedFromStart(int count) {
+                movieList.subList(0, count).clear();
+                movieAdapter.notifyItemRangeRemoved(0, count);
+            }
+
+            @Override
+            public void onItemsDroppedFromEnd(int count) {
+                int start = movieList.size() - count;
+                movieList.subList(start, movieList.size()).clear();
+                movieAdapter.notifyItemRangeRemoved(start, count);
+            }
+
+            @Override
+            public void onError(String message) {
+                Toast.makeText(MovieListActivity.this, "Error al obtener películas", Toast.LENGTH_SHORT).show();
+            }
+        });
+
+        // Cargar la siguiente (o anterior) página cuando quedan pocos elementos para el borde
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                GridLayoutManager layoutManager = (GridLayoutManager) rv.getLayoutManager();
+                if (layoutManager == null) {
+                    return;
+                }
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition() >= movieList.size() - PREFETCH_DISTANCE) {
+                    pager.loadNext();
+                } else if (dy < 0 && layoutManager.findFirstVisibleItemPosition() <= PREFETCH_DISTANCE) {
+                    pager.loadPrevious();
+                }
+            }
+        });
+
+        pager.loadNext(); // Primera página
+    }
 
-                    @Override
-                    public void onFailure(Call<TMDBMovieResponse> call, Throwable t) {
-                        Toast.makeText(MovieListActivity.this, "Error al obtener películas", Toast.LENGTH_SHORT).show();
-                    }
-                });
+    @Override
+    protected void onStart() {
+        super.onStart();
+        favoritesManager.addOnFavoritesChangedListener(favoritesListener);
+        favoritesManager.loadFavoriteIds(favoritesListener::onFavoritesChanged); // Carga única del índice
     }
 
-    /**
-     * Método para convertir una lista de películas de TMDB a una lista de películas de la aplicación.
-     * @param tmdbMovies La lista de películas de TMDB.
-     * @return La lista de películas de la aplicación.
-     */
-    private List<Movie> convertToMovieList(List<TMDBMovie> tmdbMovies) {
+    @Override
+    protected void onStop() {
+        super.onStop();
+        favoritesManager.removeOnFavoritesChangedListener(favoritesListener);
+    }
 
-        List<Movie> movieList = new ArrayList<>(); // Crear una lista de películas
-        for (TMDBMovie tmdbMovie : tmdbMovies) { // Recorrer la lista de películas de TMDB
-            movieList.add(tmdbMovie.toMovie()); // Agregarla a la lista
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (pager != null) {
+            pager.release();
         }
-        return movieList; // Devolver la lista de películas
     }
 
     /**
@@ -132,12 +184,18 @@ public class MovieListActivity extends AppCompatActivity {
             return;
         }
 
-        FavoritesManager favoritesManager = FavoritesManager.getInstance(this);
-        if (favoritesManager.addFavorite(movie, userId)) {
-            Toast.makeText(this, "Película ya estaba en favoritos", Toast.LENGTH_SHORT).show();
-        } else {
-            Toast.makeText(this, "Película agregada a favoritos", Toast.LENGTH_SHORT).show();
-        }
+        // La escritura en SQLite se hace en segundo plano; el aviso vuelve al hilo principal
+        FavoritesRepository.getInstance(this).addFavorite(movie, userId)
+                .thenAcceptAsync(alreadyFavorite -> {
+                    if (isFinishing() || isDestroyed()) {
+                        return;
+                    }
+                    if (alreadyFavorite) {
+                        Toast.makeText(this, "Película ya estaba en favoritos", Toast.LENGTH_SHORT).show();
+                    } else {
+                        Toast.makeText(this, "Película agregada a favoritos", Toast.LENGTH_SHORT).show();
+                    }
+                }, DatabaseExecutor.main());
     }
 
 }
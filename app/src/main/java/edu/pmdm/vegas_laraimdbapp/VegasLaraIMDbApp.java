@@ -0,0 +1,68 @@
+package edu.pmdm.vegas_laraimdbapp;
+
+import android.app.Application;
+import android.content.pm.ApplicationInfo;
+import android.os.StrictMode;
+
+import edu.pmdm.vegas_laraimdbapp.api.HttpClientProvider;
+import edu.pmdm.vegas_laraimdbapp.api.RapidApiKeyManager;
+import edu.pmdm.vegas_laraimdbapp.database.DatabaseExecutor;
+import edu.pmdm.vegas_laraimdbapp.database.FavoriteDatabase;
+import edu.pmdm.vegas_laraimdbapp.sync.FavoritesOutbox;
+import edu.pmdm.vegas_laraimdbapp.sync.SessionJournal;
+import edu.pmdm.vegas_laraimdbapp.utils.AppLifecycleManager;
+
+/**
+ * Clase Application que inicializa los recursos compartidos por toda la aplicación.
+ */
+public class VegasLaraIMDbApp extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // En depuración, avisar de cualquier acceso a disco que quede en el hilo principal
+        if ((getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0) {
+            enableStrictMode();
+        }
+
+        // Inicializar la pila de red compartida (caché HTTP en disco)
+        HttpClientProvider.init(this);
+
+        // Restaurar el estado de las API Keys de RapidAPI (cuota, salud, bloqueos)
+        RapidApiKeyManager.init(this);
+
+        // Crear la base de datos compartida (una sola conexión de escritura y un pool de lectura en WAL)
+        // y abrirla cuanto antes en segundo plano, para que las migraciones pendientes empiecen fuera del hilo principal.
+        // Mientras duran, cualquier otro acceso espera a que terminen: por eso ninguna consulta debe hacerse en el hilo principal
+        FavoriteDatabase database = FavoriteDatabase.getInstance(this);
+        DatabaseExecutor.io().execute(database::getWritableDatabase);
+
+        // Subir los eventos de sesión que quedaron pendientes en la ejecución anterior
+        SessionJournal.getInstance(this).scheduleFlush(0);
+
+        // Subir los cambios de favoritos que quedaron en la cola (también los que estaban a medias)
+        FavoritesOutbox.getInstance(this).start();
+
+        // Entradas y salidas de primer plano de toda la aplicación (todas las actividades, en cualquier versión)
+        registerActivityLifecycleCallbacks(new AppLifecycleManager(this));
+    }
+
+    /**
+     * Activa StrictMode: accesos a disco y red en el hilo principal y objetos SQLite sin cerrar.
+     * Solo registra en el log, no detiene la aplicación.
+     */
+    private void enableStrictMode() {
+        StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .detectNetwork()
+                .penaltyLog()
+                .build());
+        StrictMode.setVmPolicy(new StrictMode.VmPolicy.Builder()
+                .detectLeakedSqlLiteObjects()
+                .detectLeakedClosableObjects()
+                .penaltyLog()
+                .build());
+    }
+}
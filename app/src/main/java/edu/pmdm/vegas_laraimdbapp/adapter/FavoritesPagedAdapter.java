@@ -0,0 +1,107 @@
+package edu.pmdm.vegas_laraimdbapp.adapter;
+
+import android.content.Context;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.squareup.picasso.Picasso;
+
+import edu.pmdm.vegas_laraimdbapp.R;
+import edu.pmdm.vegas_laraimdbapp.database.FavoritesPagedSource;
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
+
+/**
+ * Adaptador de la cuadrícula de favoritos respaldado por {@link FavoritesPagedSource}.
+ * Los elementos cuya página aún no se ha cargado se pintan con un marcador.
+ */
+public class FavoritesPagedAdapter extends RecyclerView.Adapter<MovieAdapter.MovieViewHolder> implements FavoritesPagedSource.Listener {
+
+    private final Context context;
+    private final MovieAdapter.OnMovieClickListener mcl;
+    private MovieAdapter.OnMovieLongClickListener mlcl;
+    private FavoritesPagedSource source;
+
+    /**
+     * Constructor
+     * @param context Contexto de la aplicación.
+     * @param mcl Listener de clic.
+     */
+    public FavoritesPagedAdapter(Context context, MovieAdapter.OnMovieClickListener mcl) {
+        this.context = context;
+        this.mcl = mcl;
+    }
+
+    /**
+     * Asigna la fuente de datos.
+     * @param source Fuente paginada.
+     */
+    public void setSource(FavoritesPagedSource source) {
+        this.source = source;
+    }
+
+    public void setOnMovieLongClickListener(MovieAdapter.OnMovieLongClickListener listener) {
+        this.mlcl = listener;
+    }
+
+    @NonNull
+    @Override
+    public MovieAdapter.MovieViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(context).inflate(R.layout.item_movie, parent, false);
+        return new MovieAdapter.MovieViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull MovieAdapter.MovieViewHolder holder, int position) {
+        Movie movie = source.getItem(position);
+
+        if (movie == null) {
+            // Página aún no cargada: marcador sin listeners
+            Picasso.get().cancelRequest(holder.imageView);
+            holder.imageView.setImageDrawable(null);
+            holder.imageView.setContentDescription(null);
+            holder.itemView.setOnClickListener(null);
+            holder.itemView.setOnLongClickListener(null);
+            return;
+        }
+
+        holder.imageView.setContentDescription(movie.getTitle());
+
+        String imageUrl = movie.getImage();
+        if (imageUrl == null || imageUrl.isEmpty()) {
+            holder.imageView.setImageResource(R.drawable.error);
+        } else {
+            Picasso.get()
+                    .load(imageUrl)
+                    .into(holder.imageView);
+        }
+
+        if (mcl != null) {
+            holder.itemView.setOnClickListener(v -> mcl.onMovieClick(movie));
+        }
+        if (mlcl != null) {
+            holder.itemView.setOnLongClickListener(v -> {
+                mlcl.onMovieLongClick(movie);
+                return true;
+            });
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return source != null ? source.getCount() : 0;
+    }
+
+    @Override
+    public void onCountChanged(int count) {
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public void onRangeLoaded(int start, int itemCount) {
+        notifyItemRangeChanged(start, itemCount);
+    }
+}
@@ -15,6 +15,7 @@ import com.squareup.picasso.Picasso;
 import java.util.List;
 
 import edu.pmdm.vegas_laraimdbapp.R;
+import edu.pmdm.vegas_laraimdbapp.database.FavoritesManager;
 import edu.pmdm.vegas_laraimdbapp.models.Movie;
 
 /**
@@ -27,6 +28,7 @@ public class MovieAdapter extends RecyclerView.Adapter<MovieAdapter.MovieViewHol
     private final Context context;
     private OnMovieLongClickListener mlcl;
     private final OnMovieClickListener mcl;
+    private FavoritesManager favoritesManager; // Índice de favoritos para el distintivo (null si no se muestra)
 
     /**
      * Constructor con clic.
@@ -78,6 +80,10 @@ public class MovieAdapter extends RecyclerView.Adapter<MovieAdapter.MovieViewHol
                     .into(holder.imageView);
         }
 
+        // Distintivo de favorita: consulta el índice en memoria, sin acceso a disco
+        boolean favorite = favoritesManager != null && favoritesManager.isFavorite(movie.getId());
+        holder.favoriteBadge.setVisibility(favorite ? View.VISIBLE : View.GONE);
+
         // Manejar clics (solo si el listener no es nulo)
         if (mcl != null) {
             holder.itemView.setOnClickListener(v -> mcl.onMovieClick(movie));
@@ -110,6 +116,14 @@ public class MovieAdapter extends RecyclerView.Adapter<MovieAdapter.MovieViewHol
         this.mlcl = listener;
     }
 
+    /**
+     * Muestra el distintivo de favorita en las películas que estén en el índice.
+     * @param favoritesManager Gestor de favoritos con el índice cargado.
+     */
+    public void setFavoritesManager(FavoritesManager favoritesManager) {
+        this.favoritesManager = favoritesManager;
+    }
+
     @Override
     public int getItemCount() {
         return movieList.size();
@@ -130,10 +144,12 @@ public class MovieAdapter extends RecyclerView.Adapter<MovieAdapter.MovieViewHol
      */
     public static class MovieViewHolder extends RecyclerView.ViewHolder {
         ImageView imageView; // Declarar el ImageView
+        ImageView favoriteBadge; // Distintivo de favorita
 
         public MovieViewHolder(@NonNull View itemView) {
             super(itemView);
             imageView = itemView.findViewById(R.id.moviePoster); // Enlazar el ImageView con su ID
+            favoriteBadge = itemView.findViewById(R.id.favoriteBadge);
         }
     }
 }
@@ -1,5 +1,6 @@
 package edu.pmdm.vegas_laraimdbapp.api;
 
+import okhttp3.OkHttpClient;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
@@ -12,14 +13,23 @@ public class ApiClientTMDB {
     private static final String BASE_URL = "https://api.themoviedb.org/3/";
     private static Retrofit retrofit; // Instancia de Retrofit
 
+    // Circuit breaker compartido por todas las llamadas a TMDB
+    private static final CircuitBreaker breaker = new CircuitBreaker("TMDB", 5, 30_000);
+
     /**
      * Obtiene una instancia de Retrofit configurada.
      * @return Instancia de Retrofit.
      */
     public static Retrofit getClient() {
         if (retrofit == null) {
+            // Cliente compartido con caché en disco y la misma política de reintentos que IMDb
+            OkHttpClient client = HttpClientProvider.getClient().newBuilder()
+                    .addInterceptor(new RetryInterceptor(RetryPolicy.defaultPolicy(), breaker))
+                    .build();
+
             retrofit = new Retrofit.Builder()
                     .baseUrl(BASE_URL)
+                    .client(client)
                     .addConverterFactory(GsonConverterFactory.create())
                     .build();
         }
@@ -0,0 +1,99 @@
+package edu.pmdm.vegas_laraimdbapp.api;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Circuit breaker para no dejar a la interfaz esperando peticiones que no pueden salir bien.
+ * Tras varios fallos seguidos (o cuando se abre explícitamente) falla de inmediato hasta que
+ * pasa el tiempo de apertura; entonces deja pasar una petición de prueba.
+ */
+public class CircuitBreaker {
+
+    private static final String TAG = "CircuitBreaker";
+
+    private final String name;
+    private final int failureThreshold; // Fallos seguidos para abrir el circuito
+    private final long openDurationMs; // Tiempo que permanece abierto
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openUntil = new AtomicLong(); // 0 = cerrado
+    private final AtomicLong halfOpenProbe = new AtomicLong(); // Momento de la petición de prueba en curso
+
+    /**
+     * Excepción lanzada cuando el circuito está abierto.
+     */
+    public static class CircuitOpenException extends IOException {
+        public CircuitOpenException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Constructor
+     * @param name Nombre para los logs
+     * @param failureThreshold Fallos seguidos para abrir el circuito
+     * @param openDurationMs Tiempo que permanece abierto
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openDurationMs) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationMs = openDurationMs;
+    }
+
+    /**
+     * Comprueba si se puede enviar una petición.
+     * @throws CircuitOpenException Si el circuito está abierto.
+     */
+    public void checkRequest() throws CircuitOpenException {
+        long until = openUntil.get();
+        if (until == 0) {
+            return; // Cerrado
+        }
+        long now = System.currentTimeMillis();
+        if (now < until) {
+            throw new CircuitOpenException("Circuito " + name + " abierto durante " + (until - now) + " ms más");
+        }
+        // Semiabierto: solo una petición de prueba a la vez
+        long probe = halfOpenProbe.get();
+        if (probe != 0 && now - probe < openDurationMs) {
+            throw new CircuitOpenException("Circuito " + name + " semiabierto, petición de prueba en curso");
+        }
+        if (!halfOpenProbe.compareAndSet(probe, now)) {
+            throw new CircuitOpenException("Circuito " + name + " semiabierto, petición de prueba en curso");
+        }
+    }
+
+    /**
+     * Registra una petición correcta y cierra el circuito.
+     */
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        halfOpenProbe.set(0);
+        if (openUntil.getAndSet(0) != 0) {
+            Log.d(TAG, "Circuito " + name + " cerrado");
+        }
+    }
+
+    /**
+     * Registra un fallo y abre el circuito si se alcanza el umbral.
+     */
+    public void recordFailure() {
+        halfOpenProbe.set(0);
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            openFor(openDurationMs);
+        }
+    }
+
+    /**
+     * Abre el circuito durante un tiempo concreto (por ejemplo, hasta que se reinicie la cuota).
+     * @param durationMs Milisegundos
+     */
+    public void openFor(long durationMs) {
+        halfOpenProbe.set(0);
+        openUntil.set(System.currentTimeMillis() + Math.max(durationMs, 1));
+        Log.w(TAG, "Circuito " + name + " abierto durante " + durationMs + " ms");
+    }
+}
@@ -0,0 +1,116 @@
+package edu.pmdm.vegas_laraimdbapp.api;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Cache;
+import okhttp3.CacheControl;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Proveedor del cliente HTTP compartido por todos los clientes Retrofit de la aplicación.
+ * Un único pool de conexiones, un único dispatcher y una caché en disco acotada.
+ */
+public class HttpClientProvider {
+
+    private static final String TAG = "HttpClientProvider";
+
+    // Cabecera interna para forzar el modo de caché de una llamada concreta
+    public static final String HEADER_CACHE_MODE = "X-Cache-Mode";
+    public static final String CACHE_ONLY = "cache-only";
+    public static final String NETWORK_ONLY = "network-only";
+
+    // Configuración de la caché y del pool de conexiones
+    private static final String CACHE_DIR = "http_cache";
+    private static final long CACHE_SIZE = 20L * 1024 * 1024; // 20 MB
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    private static volatile OkHttpClient client; // Instancia compartida
+    private static File cacheDir; // Directorio de la caché (null si no se ha inicializado)
+
+    /**
+     * Inicializa el proveedor con el directorio de caché de la aplicación.
+     * Debe llamarse una vez desde la clase Application antes de crear los clientes.
+     * @param context Contexto de la aplicación
+     */
+    public static synchronized void init(Context context) {
+        if (cacheDir == null) {
+            cacheDir = new File(context.getApplicationContext().getCacheDir(), CACHE_DIR);
+        }
+    }
+
+    /**
+     * Obtiene el cliente HTTP compartido.
+     * Los clientes que necesiten interceptores propios deben usar {@code getClient().newBuilder()},
+     * que reutiliza el mismo pool, dispatcher y caché.
+     * @return Cliente OkHttp compartido.
+     */
+    public static OkHttpClient getClient() {
+        if (client == null) {
+            synchronized (HttpClientProvider.class) {
+                if (client == null) {
+                    client = buildClient();
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * Construye el cliente base.
+     * @return Cliente OkHttp configurado.
+     */
+    private static OkHttpClient buildClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(4); // Evitamos saturar un mismo host en redes lentas
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .connectTimeout(15, TimeUnit.SECONDS)
+                .readTimeout(20, TimeUnit.SECONDS)
+                .eventListenerFactory(NetworkEventListener.FACTORY) // Métricas por fase y endpoint
+                .addInterceptor(new CacheModeInterceptor());
+
+        if (cacheDir != null) {
+            builder.cache(new Cache(cacheDir, CACHE_SIZE));
+        } else {
+            Log.w(TAG, "HttpClientProvider no inicializado. Se usará el cliente sin caché en disco.");
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Interceptor que traduce la cabecera {@link #HEADER_CACHE_MODE} a la política de caché de OkHttp
+     * y la elimina antes de enviar la petición.
+     */
+    private static class CacheModeInterceptor implements Interceptor {
+        @Override
+        public Response intercept(Chain chain) throws IOException {
+            Request request = chain.request();
+            String mode = request.header(HEADER_CACHE_MODE);
+            if (mode == null) {
+                return chain.proceed(request);
+            }
+
+            Request.Builder builder = request.newBuilder().removeHeader(HEADER_CACHE_MODE);
+            if (CACHE_ONLY.equals(mode)) {
+                builder.cacheControl(CacheControl.FORCE_CACHE); // Responde 504 si no hay copia en caché
+            } else if (NETWORK_ONLY.equals(mode)) {
+                builder.cacheControl(CacheControl.FORCE_NETWORK);
+            }
+            return chain.proceed(builder.build());
+        }
+    }
+}
@@ -1,21 +1,35 @@
 package edu.pmdm.vegas_laraimdbapp.api;
 
-import edu.pmdm.vegas_laraimdbapp.models.MovieOverviewResponse;
-import edu.pmdm.vegas_laraimdbapp.models.MovieResponse;
+import java.util.List;
+
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
 import retrofit2.Call;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 import retrofit2.http.Query;
 
 /**
  * Interfaz para definir los endpoints de la API de IMDb.
+ * Las respuestas se convierten en streaming con {@link ImdbStreamingConverterFactory}.
  */
 public interface IMDBApiService {
 
+    // Número de películas del top que se convierten; el resto de la respuesta se salta
+    int TOP_N = 10;
+
     // Llamada para obtener el top 10 películas de la API
+    @TopN(TOP_N)
     @GET("title/get-top-meter")
-    Call<MovieResponse> getTopMovies(@Query("topMeterTitlesType") String type);
+    Call<List<Movie>> getTopMovies(@Query("topMeterTitlesType") String type);
+
+    // Igual que la anterior, pero forzando el modo de caché (HttpClientProvider.CACHE_ONLY / NETWORK_ONLY)
+    @TopN(TOP_N)
+    @GET("title/get-top-meter")
+    Call<List<Movie>> getTopMovies(@Query("topMeterTitlesType") String type,
+                                   @Header(HttpClientProvider.HEADER_CACHE_MODE) String cacheMode);
 
     // Llamada para obtener los datos de las películas del top 10
     @GET("title/get-overview")
-    Call<MovieOverviewResponse> getMovieDetails(@Query("tconst") String movieId);
+    Call<Movie> getMovieDetails(@Query("tconst") String movieId);
+
 }
@@ -0,0 +1,309 @@
+package edu.pmdm.vegas_laraimdbapp.api;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+
+/**
+ * Converter de Retrofit que lee las respuestas de get-top-meter y get-overview con un
+ * {@link JsonReader} en streaming, extrayendo solo los campos que necesita {@link Movie}.
+ * Evita construir por reflexión todo el árbol de la respuesta.
+ *
+ * Se aplica a métodos que devuelven {@code Movie} (overview) o {@code List<Movie>} anotados con
+ * {@link TopN} (top-meter). Para el resto de tipos devuelve null y Retrofit usa el siguiente converter.
+ */
+public class ImdbStreamingConverterFactory extends Converter.Factory {
+
+    private static final String TAG = "ImdbStreamingConverter";
+
+    /**
+     * Crea la factoría.
+     * @return Nueva factoría
+     */
+    public static ImdbStreamingConverterFactory create() {
+        return new ImdbStreamingConverterFactory();
+    }
+
+    @Override
+    public Converter<ResponseBody, ?> responseBodyConverter(Type type, Annotation[] annotations, Retrofit retrofit) {
+        if (type == Movie.class) {
+            return new OverviewConverter();
+        }
+        TopN topN = findTopN(annotations);
+        if (topN != null && isMovieList(type)) {
+            return new TopMeterConverter(topN.value());
+        }
+        return null;
+    }
+
+    private static TopN findTopN(Annotation[] annotations) {
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof TopN) {
+                return (TopN) annotation;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isMovieList(Type type) {
+        if (!(type instanceof ParameterizedType)) {
+            return false;
+        }
+        ParameterizedType parameterized = (ParameterizedType) type;
+        return parameterized.getRawType() == List.class
+                && parameterized.getActualTypeArguments()[0] == Movie.class;
+    }
+
+    /**
+     * Converter de title/get-top-meter: data.topMeterTitles.edges[].node
+     */
+    private static class TopMeterConverter implements Converter<ResponseBody, List<Movie>> {
+        private final int limit;
+
+        TopMeterConverter(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public List<Movie> convert(ResponseBody value) throws IOException {
+            long start = SystemClock.elapsedRealtimeNanos();
+            List<Movie> movies = new ArrayList<>(limit);
+            try (JsonReader reader = new JsonReader(value.charStream())) {
+                if (enterObject(reader, "data") && enterObject(reader, "topMeterTitles") && enterArray(reader, "edges")) {
+                    while (reader.hasNext()) {
+                        if (movies.size() >= limit) {
+                            // Se recorre el resto sin crear objetos para no cortar la conexión ni la escritura en caché
+                            reader.skipValue();
+                            continue;
+                        }
+                        Movie movie = enterObject(reader, "node") ? readTitle(reader) : null;
+                        finishObject(reader); // Cierra el edge
+                        if (movie != null) {
+                            movies.add(movie);
+                        }
+                    }
+                }
+            } finally {
+                value.close();
+            }
+            long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+            NetworkMetrics.getInstance().record("title/get-top-meter", NetworkMetrics.PHASE_PARSE, elapsed);
+            Log.d(TAG, "get-top-meter: " + movies.size() + " títulos en " + elapsed / 1000 + " µs");
+            return movies;
+        }
+    }
+
+    /**
+     * Converter de title/get-overview: data.title
+     */
+    private static class OverviewConverter implements Converter<ResponseBody, Movie> {
+        @Override
+        public Movie convert(ResponseBody value) throws IOException {
+            long start = SystemClock.elapsedRealtimeNanos();
+            Movie movie = null;
+            try (JsonReader reader = new JsonReader(value.charStream())) {
+                if (enterObject(reader, "data") && enterObject(reader, "title")) {
+                    movie = readTitle(reader);
+                }
+            } finally {
+                value.close();
+            }
+            long elapsed = SystemClock.elapsedRealtimeNanos() - start;
+            NetworkMetrics.getInstance().record("title/get-overview", NetworkMetrics.PHASE_PARSE, elapsed);
+            Log.d(TAG, "get-overview en " + elapsed / 1000 + " µs");
+            return movie;
+        }
+    }
+
+    /**
+     * Lee un objeto título (node del top o title del overview) ya abierto y lo cierra.
+     * Los campos que no llegan se dejan a null: los textos por defecto se ponen al mostrarlos,
+     * para que no se guarden en la copia local como si fueran datos.
+     * @param reader Lector posicionado dentro del objeto
+     * @return Película con los campos que usa la aplicación
+     */
+    private static Movie readTitle(JsonReader reader) throws IOException {
+        String id = null;
+        String title = null;
+        String plot = null;
+        String image = null;
+        double rating = 0.0;
+        String releaseDate = null;
+
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "id":
+                    id = reader.nextString();
+                    break;
+                case "titleText":
+                    title = readStringField(reader, "text");
+                    break;
+                case "plot":
+                    plot = readPlot(reader);
+                    break;
+                case "releaseDate":
+                    releaseDate = readReleaseDate(reader);
+                    break;
+                case "ratingsSummary":
+                    rating = readRating(reader);
+                    break;
+                case "primaryImage":
+                    image = readStringField(reader, "url");
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        Movie movie = new Movie();
+        movie.setId(id);
+        movie.setTitle(title);
+        movie.setPlot(plot);
+        movie.setImage(image);
+        movie.setRating(rating);
+        movie.setReleaseDate(releaseDate);
+        return movie;
+    }
+
+    /**
+     * Lee un objeto y devuelve el valor de uno de sus campos de texto.
+     */
+    private static String readStringField(JsonReader reader, String field) throws IOException {
+        String result = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals(field) && reader.peek() == JsonToken.STRING) {
+                result = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return result;
+    }
+
+    /**
+     * La sinopsis llega como plot.plainText (top) o plot.plotText.plainText (overview).
+     */
+    private static String readPlot(JsonReader reader) throws IOException {
+        String result = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals("plainText") && reader.peek() == JsonToken.STRING) {
+                result = reader.nextString();
+            } else if (name.equals("plotText") && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                result = readStringField(reader, "plainText");
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return result;
+    }
+
+    /**
+     * Fecha de estreno en formato "año-mes-día".
+     */
+    private static String readReleaseDate(JsonReader reader) throws IOException {
+        int year = 0, month = 0, day = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() != JsonToken.NUMBER) {
+                reader.skipValue();
+            } else if (name.equals("year")) {
+                year = reader.nextInt();
+            } else if (name.equals("month")) {
+                month = reader.nextInt();
+            } else if (name.equals("day")) {
+                day = reader.nextInt();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return year + "-" + month + "-" + day;
+    }
+
+    private static double readRating(JsonReader reader) throws IOException {
+        double rating = 0.0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("aggregateRating") && reader.peek() == JsonToken.NUMBER) {
+                rating = reader.nextDouble();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return rating;
+    }
+
+    /**
+     * Avanza dentro del objeto actual (abriéndolo si hace falta) hasta el campo indicado y entra en él.
+     * Los campos anteriores se saltan.
+     * @return True si el campo existe y es un objeto.
+     */
+    private static boolean enterObject(JsonReader reader, String field) throws IOException {
+        return seek(reader, field, JsonToken.BEGIN_OBJECT) && beginObject(reader);
+    }
+
+    private static boolean enterArray(JsonReader reader, String field) throws IOException {
+        if (seek(reader, field, JsonToken.BEGIN_ARRAY)) {
+            reader.beginArray();
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean beginObject(JsonReader reader) throws IOException {
+        reader.beginObject();
+        return true;
+    }
+
+    private static boolean seek(JsonReader reader, String field, JsonToken expected) throws IOException {
+        if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+            reader.beginObject();
+        }
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (name.equals(field) && reader.peek() == expected) {
+                return true;
+            }
+            reader.skipValue();
+        }
+        return false;
+    }
+
+    /**
+     * Salta lo que quede del objeto actual y lo cierra.
+     */
+    private static void finishObject(JsonReader reader) throws IOException {
+        while (reader.hasNext()) {
+            reader.nextName();
+            reader.skipValue();
+        }
+        reader.endObject();
+    }
+}
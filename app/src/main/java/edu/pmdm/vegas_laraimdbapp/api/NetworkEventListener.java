@@ -0,0 +1,155 @@
+package edu.pmdm.vegas_laraimdbapp.api;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * EventListener de OkHttp que mide las fases de cada llamada y las registra en {@link NetworkMetrics}.
+ * Se crea una instancia por llamada, por lo que no necesita sincronización. Los reintentos y el cambio de key
+ * ocurren dentro de la misma llamada y de uno en uno: cada intento que llega a la red se registra por separado
+ * con su key y su código, y la llamada una sola vez al terminar.
+ */
+public class NetworkEventListener extends EventListener {
+
+    /**
+     * Factoría para registrar en el cliente compartido.
+     */
+    public static final Factory FACTORY = call -> new NetworkEventListener(
+            NetworkMetrics.endpointFor(call.request().url().encodedPath()));
+
+    private final String endpoint;
+
+    // Intento en curso: desde que se envían sus cabeceras hasta que llegan las de la respuesta
+    private boolean attemptOpen;
+    private String attemptKey; // Key de RapidAPI usada en el intento (si la hay)
+
+    private long callStart;
+    private long dnsStart;
+    private long connectStart;
+    private long secureConnectStart;
+    private long requestEnd;
+    private long responseHeadersStart;
+    private long bodyStart;
+
+    private NetworkEventListener(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public void callStart(Call call) {
+        callStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        dnsStart = System.nanoTime();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        record(NetworkMetrics.PHASE_DNS, dnsStart);
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        secureConnectStart = System.nanoTime();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        record(NetworkMetrics.PHASE_TLS, secureConnectStart);
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        record(NetworkMetrics.PHASE_CONNECT, connectStart);
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        if (attemptOpen) {
+            endAttempt(-1); // El intento anterior se quedó sin respuesta (error de red y reintento)
+        }
+        // La petición de red ya lleva las cabeceras añadidas por los interceptores
+        attemptOpen = true;
+        attemptKey = request.header("X-RapidAPI-Key");
+        requestEnd = System.nanoTime();
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        requestEnd = System.nanoTime();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        responseHeadersStart = System.nanoTime();
+        if (requestEnd != 0) {
+            NetworkMetrics.getInstance().record(endpoint, NetworkMetrics.PHASE_TTFB, responseHeadersStart - requestEnd);
+            requestEnd = 0; // Cada intento mide su propio TTFB
+        }
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        if (attemptOpen) {
+            endAttempt(response.code());
+        }
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        bodyStart = System.nanoTime();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        record(NetworkMetrics.PHASE_BODY, bodyStart);
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        record(NetworkMetrics.PHASE_TOTAL, callStart);
+        NetworkMetrics.getInstance().recordCall(endpoint, false);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        if (attemptOpen) {
+            endAttempt(-1);
+        }
+        record(NetworkMetrics.PHASE_TOTAL, callStart);
+        NetworkMetrics.getInstance().recordCall(endpoint, true);
+    }
+
+    /**
+     * Registra el intento en curso y lo cierra.
+     * @param code Código HTTP o -1 si no hubo respuesta
+     */
+    private void endAttempt(int code) {
+        NetworkMetrics.getInstance().recordAttempt(endpoint, attemptKey, code);
+        attemptOpen = false;
+        attemptKey = null;
+    }
+
+    private void record(String phase, long start) {
+        if (start != 0) {
+            NetworkMetrics.getInstance().record(endpoint, phase, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package edu.pmdm.vegas_laraimdbapp.api;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Métricas de red en proceso: histogramas por endpoint y por fase (DNS, conexión, TLS,
+ * tiempo hasta el primer byte, lectura del cuerpo, conversión y total) y uso de cada API Key.
+ * Se rellena desde {@link NetworkEventListener} y desde los converters.
+ */
+public class NetworkMetrics {
+
+    private static final String TAG = "NetworkMetrics";
+
+    // Fases medidas
+    public static final String PHASE_DNS = "dns";
+    public static final String PHASE_CONNECT = "connect";
+    public static final String PHASE_TLS = "tls";
+    public static final String PHASE_TTFB = "ttfb";
+    public static final String PHASE_BODY = "body";
+    public static final String PHASE_PARSE = "parse";
+    public static final String PHASE_TOTAL = "total";
+
+    private static final String[] PHASES = {PHASE_DNS, PHASE_CONNECT, PHASE_TLS, PHASE_TTFB, PHASE_BODY, PHASE_PARSE, PHASE_TOTAL};
+
+    // Endpoints conocidos (el resto se agrupa por su ruta)
+    private static final String[] KNOWN_ENDPOINTS = {"title/get-top-meter", "title/get-overview", "discover/movie", "genre/movie/list"};
+
+    private static final NetworkMetrics instance = new NetworkMetrics();
+
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Obtener la instancia única
+     * @return Métricas de la aplicación
+     */
+    public static NetworkMetrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * Normaliza la ruta de una petición a un nombre de endpoint.
+     * @param encodedPath Ruta de la URL
+     * @return Nombre del endpoint
+     */
+    public static String endpointFor(String encodedPath) {
+        for (String known : KNOWN_ENDPOINTS) {
+            if (encodedPath.endsWith(known)) {
+                return known;
+            }
+        }
+        return encodedPath.startsWith("/") ? encodedPath.substring(1) : encodedPath;
+    }
+
+    /**
+     * Registra la duración de una fase.
+     * @param endpoint Endpoint
+     * @param phase Fase
+     * @param nanos Duración en nanosegundos
+     */
+    public void record(String endpoint, String phase, long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        stats(endpoint).histogram(phase).record(nanos / 1_000_000.0);
+    }
+
+    /**
+     * Registra el resultado de una llamada completa (con todos sus reintentos).
+     * @param endpoint Endpoint
+     * @param failed True si la llamada falló
+     */
+    public void recordCall(String endpoint, boolean failed) {
+        EndpointStats stats = stats(endpoint);
+        stats.calls.incrementAndGet();
+        if (failed) {
+            stats.failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * Registra un intento enviado a la red. Una llamada puede tener varios (reintentos o cambio de key tras un 429).
+     * @param endpoint Endpoint
+     * @param apiKey API Key usada en el intento (null si no aplica)
+     * @param code Código HTTP o -1 si no hubo respuesta
+     */
+    public void recordAttempt(String endpoint, String apiKey, int code) {
+        EndpointStats stats = stats(endpoint);
+        stats.attempts.incrementAndGet();
+        increment(stats.statusCodes, code < 0 ? "sin respuesta" : String.valueOf(code));
+        if (apiKey != null) {
+            increment(stats.keyUsage, RapidApiKeyManager.mask(apiKey));
+        }
+    }
+
+    private static void increment(Map<String, AtomicLong> counters, String name) {
+        AtomicLong counter = counters.get(name);
+        if (counter == null) {
+            counters.putIfAbsent(name, new AtomicLong());
+            counter = counters.get(name);
+        }
+        counter.incrementAndGet();
+    }
+
+    private EndpointStats stats(String endpoint) {
+        EndpointStats stats = endpoints.get(endpoint);
+        if (stats == null) {
+            endpoints.putIfAbsent(endpoint, new EndpointStats());
+            stats = endpoints.get(endpoint);
+        }
+        return stats;
+    }
+
+    /**
+     * Genera un informe de texto con todas las métricas.
+     * @return Informe legible
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, EndpointStats> entry : endpoints.entrySet()) {
+            EndpointStats stats = entry.getValue();
+            sb.append(entry.getKey())
+                    .append("  llamadas=").append(stats.calls.get())
+                    .append(" fallos=").append(stats.failures.get())
+                    .append(" intentos=").append(stats.attempts.get()).append('\n');
+            for (String phase : PHASES) {
+                Histogram histogram = stats.histograms.get(phase);
+                if (histogram != null && histogram.count() > 0) {
+                    sb.append("  ").append(histogram.summary(phase)).append('\n');
+                }
+            }
+            for (Map.Entry<String, AtomicLong> code : stats.statusCodes.entrySet()) {
+                sb.append("  estado ").append(code.getKey()).append(": ").append(code.getValue().get()).append('\n');
+            }
+            for (Map.Entry<String, AtomicLong> key : stats.keyUsage.entrySet()) {
+                sb.append("  key ").append(key.getKey()).append(": ").append(key.getValue().get()).append('\n');
+            }
+        }
+        return sb.length() == 0 ? "Sin métricas todavía" : sb.toString();
+    }
+
+    /**
+     * Vuelca el informe a un fichero.
+     * @param file Fichero de destino
+     * @return True si se pudo escribir
+     */
+    public boolean dumpToFile(File file) {
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(report());
+            return true;
+        } catch (IOException e) {
+            Log.e(TAG, "Error al volcar las métricas", e);
+            return false;
+        }
+    }
+
+    /**
+     * Borra todas las métricas.
+     */
+    public void reset() {
+        endpoints.clear();
+    }
+
+    /**
+     * Métricas de un endpoint.
+     */
+    private static class EndpointStats {
+        final AtomicLong calls = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicLong attempts = new AtomicLong();
+        final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+        final Map<String, AtomicLong> statusCodes = new ConcurrentHashMap<>(); // Intentos por código HTTP
+        final Map<String, AtomicLong> keyUsage = new ConcurrentHashMap<>(); // Intentos por key
+
+        Histogram histogram(String phase) {
+            Histogram histogram = histograms.get(phase);
+            if (histogram == null) {
+                histograms.putIfAbsent(phase, new Histogram());
+                histogram = histograms.get(phase);
+            }
+            return histogram;
+        }
+    }
+
+    /**
+     * Histograma de latencias con cubetas fijas en milisegundos.
+     */
+    private static class Histogram {
+        private static final double[] BOUNDS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS.length + 1);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sumMicros = new AtomicLong();
+        private final AtomicLong maxMicros = new AtomicLong();
+
+        void record(double millis) {
+            int index = 0;
+            while (index < BOUNDS.length && millis > BOUNDS[index]) {
+                index++;
+            }
+            buckets.incrementAndGet(index);
+            count.incrementAndGet();
+            long micros = (long) (millis * 1000);
+            sumMicros.addAndGet(micros);
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+
+        long count() {
+            return count.get();
+        }
+
+        /**
+         * Percentil aproximado (límite superior de la cubeta).
+         */
+        double percentile(double p) {
+            long total = count.get();
+            long threshold = (long) Math.ceil(total * p);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= threshold) {
+                    return i < BOUNDS.length ? BOUNDS[i] : maxMicros.get() / 1000.0;
+                }
+            }
+            return maxMicros.get() / 1000.0;
+        }
+
+        String summary(String phase) {
+            long n = count.get();
+            return String.format(Locale.US, "%-8s n=%d media=%.1fms p50<=%.0fms p95<=%.0fms max=%.1fms",
+                    phase, n, n == 0 ? 0 : sumMicros.get() / 1000.0 / n,
+                    percentile(0.5), percentile(0.95), maxMicros.get() / 1000.0);
+        }
+    }
+}
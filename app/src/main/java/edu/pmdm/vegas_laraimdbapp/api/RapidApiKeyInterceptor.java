@@ -0,0 +1,84 @@
+package edu.pmdm.vegas_laraimdbapp.api;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Interceptor que añade a cada petición la API Key de RapidAPI elegida por {@link RapidApiKeyManager}
+ * e informa al pool del resultado. Si una key devuelve 429 se pasa a otra con capacidad;
+ * si no queda ninguna se lanza {@link RetryInterceptor.KeysExhaustedException}.
+ */
+public class RapidApiKeyInterceptor implements Interceptor {
+
+    private final String host; // Host de RapidAPI
+
+    /**
+     * Constructor
+     * @param host Valor de la cabecera X-RapidAPI-Host
+     */
+    public RapidApiKeyInterceptor(String host) {
+        this.host = host;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request original = chain.request();
+        if (original.cacheControl().onlyIfCached()) {
+            return chain.proceed(original); // Solo caché: no gasta cuota ni necesita key
+        }
+
+        while (true) {
+            String apiKey = acquireKey(); // Key más sana con capacidad
+            Request request = original.newBuilder()
+                    .header("X-RapidAPI-Key", apiKey)
+                    .header("X-RapidAPI-Host", host)
+                    .build();
+
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                RapidApiKeyManager.reportFailure(apiKey);
+                throw e;
+            }
+            if (response.networkResponse() == null) {
+                // Servida desde la caché HTTP: no ha gastado cuota y sus cabeceras no son actuales
+                RapidApiKeyManager.releaseKey(apiKey);
+                return response;
+            }
+            RapidApiKeyManager.reportResponse(apiKey, response); // Actualiza cuota y salud
+
+            if (response.code() != 429 || RapidApiKeyManager.allKeysExhausted()) {
+                return response;
+            }
+            response.close(); // La key queda bloqueada en el pool; probamos con otra
+        }
+    }
+
+    /**
+     * Reserva una API Key del pool. Si todas están limitadas solo por ráfaga, espera al siguiente token.
+     * @return API Key a usar.
+     * @throws IOException Si todas las keys tienen la cuota agotada.
+     */
+    private String acquireKey() throws IOException {
+        while (true) {
+            String apiKey = RapidApiKeyManager.acquireKey();
+            if (apiKey != null) {
+                return apiKey;
+            }
+            if (RapidApiKeyManager.allKeysExhausted()) {
+                throw new RetryInterceptor.KeysExhaustedException(
+                        "Todas las API Keys de RapidAPI están agotadas", RapidApiKeyManager.millisUntilAvailable());
+            }
+            try {
+                Thread.sleep(Math.max(10, RapidApiKeyManager.millisUntilToken()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Petición interrumpida esperando API Key", e);
+            }
+        }
+    }
+}
@@ -1,17 +1,53 @@
 package edu.pmdm.vegas_laraimdbapp.api;
 
+import android.content.Context;
+import android.content.SharedPreferences;
 import android.util.Log;
+
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.Response;
 
 /**
- * Manager para gestionar las API Keys de RapidAPI.
+ * Pool de API Keys de RapidAPI sin bloqueos.
+ * Cada key tiene su propio limitador (token bucket), la cuota restante que informa RapidAPI
+ * y una puntuación de salud. Cada petición se asigna a la key más sana con capacidad antes
+ * de enviarse, en lugar de esperar a un 429 para rotar.
  */
 public class RapidApiKeyManager {
 
+    private static final String TAG = "RapidApiKeyManager";
+
+    // Cabeceras de cuota que devuelve RapidAPI
+    private static final String HEADER_REMAINING = "x-ratelimit-requests-remaining";
+    private static final String HEADER_RESET = "x-ratelimit-requests-reset";
+
+    // Limitador por key: ráfaga máxima y peticiones por segundo
+    private static final double BUCKET_CAPACITY = 5;
+    private static final double REFILL_PER_SECOND = 5;
+
+    // Puntuación de salud (0-100)
+    private static final int MAX_HEALTH = 100;
+    private static final int SUCCESS_BONUS = 5;
+    private static final int SERVER_ERROR_PENALTY = 10;
+    private static final int RATE_LIMIT_PENALTY = 50;
+
+    // Bloqueo por defecto tras un 429 sin información de reinicio
+    private static final long DEFAULT_BLOCK_MS = 60 * 1000L;
+
+    // Persistencia del estado entre arranques
+    private static final String PREFS_NAME = "RapidApiKeys";
+    private static final long PERSIST_INTERVAL_MS = 5000;
+
     // Lista de API Keys
-    private static final List<String> apiKeys = new ArrayList<>();
-    private static int currentKeyIndex = 0;
+    private static final List<KeyState> keys = new ArrayList<>();
+    private static volatile SharedPreferences prefs;
+    private static final AtomicLong lastPersist = new AtomicLong();
 
     // Bloque estático para inicializar API Keys automáticamente
     static {
@@ -22,36 +58,380 @@ public class RapidApiKeyManager {
      * Inicializa las API Keys.
      */
     private static void initializeKeys() {
-        if (apiKeys.isEmpty()) {
-            apiKeys.add("9c04b1a854msh2056acaabc5ce24p142c9djsnbdd53d066b65");
-            apiKeys.add("e5ee42f022msh9ad047aadbacaf3p1149a6jsne6411b65c0ea");
+        if (keys.isEmpty()) {
+            keys.add(new KeyState("9c04b1a854msh2056acaabc5ce24p142c9djsnbdd53d066b65"));
+            keys.add(new KeyState("e5ee42f022msh9ad047aadbacaf3p1149a6jsne6411b65c0ea"));
+
+            Log.d(TAG, "API Keys inicializadas: " + keys.size());
+        }
+    }
+
+    /**
+     * Carga el estado guardado de las keys para no empezar en frío con una key agotada.
+     * @param context Contexto de la aplicación
+     */
+    public static void init(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        for (int i = 0; i < keys.size(); i++) {
+            KeyState state = keys.get(i);
+            state.remaining.set(prefs.getInt(prefKey(i, "remaining"), -1));
+            state.resetAt.set(prefs.getLong(prefKey(i, "resetAt"), 0));
+            state.blockedUntil.set(prefs.getLong(prefKey(i, "blockedUntil"), 0));
+            state.health.set(prefs.getInt(prefKey(i, "health"), MAX_HEALTH));
+        }
+        Log.d(TAG, "Estado de las API Keys restaurado");
+    }
+
+    /**
+     * Reserva la key más sana que tenga capacidad en este momento.
+     * @return API Key reservada o null si ninguna tiene capacidad ahora mismo.
+     */
+    public static String acquireKey() {
+        long now = System.currentTimeMillis();
+        List<KeyState> candidates = new ArrayList<>();
+        for (KeyState state : keys) {
+            if (state.isAvailable(now)) {
+                candidates.add(state);
+            }
+        }
+        // Las más sanas primero; a igual salud, la que más cuota conserva
+        Collections.sort(candidates, (a, b) -> {
+            int byHealth = Integer.compare(b.health.get(), a.health.get());
+            return byHealth != 0 ? byHealth : Integer.compare(b.effectiveRemaining(now), a.effectiveRemaining(now));
+        });
+        for (KeyState state : candidates) {
+            if (state.tryConsumeToken()) {
+                return state.key;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Indica si hay margen para peticiones en segundo plano (precargas) sin comerse
+     * la cuota ni la ráfaga que necesitan las peticiones del usuario.
+     * @param reserve Peticiones de cuota que se reservan para el usuario en cada key.
+     * @return True si alguna key disponible tiene token libre y cuota por encima de la reserva.
+     */
+    public static boolean hasBackgroundBudget(int reserve) {
+        long now = System.currentTimeMillis();
+        for (KeyState state : keys) {
+            if (state.isAvailable(now) && state.health.get() >= MAX_HEALTH / 2
+                    && state.effectiveRemaining(now) > reserve && state.millisUntilToken() == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Indica si todas las keys están agotadas o bloqueadas (no solo limitadas por ráfaga).
+     * @return True si ninguna key puede atender peticiones hasta que se reinicie su cuota.
+     */
+    public static boolean allKeysExhausted() {
+        long now = System.currentTimeMillis();
+        for (KeyState state : keys) {
+            if (state.isAvailable(now)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tiempo que falta hasta que alguna key vuelva a estar disponible.
+     * @return Milisegundos hasta la primera key disponible (0 si ya hay alguna).
+     */
+    public static long millisUntilAvailable() {
+        long now = System.currentTimeMillis();
+        long min = Long.MAX_VALUE;
+        for (KeyState state : keys) {
+            min = Math.min(min, state.availableAt(now) - now);
+        }
+        return Math.max(0, min);
+    }
+
+    /**
+     * Milisegundos hasta que la key más rápida recupere un token del limitador.
+     * @return Espera estimada en milisegundos.
+     */
+    public static long millisUntilToken() {
+        long min = Long.MAX_VALUE;
+        for (KeyState state : keys) {
+            min = Math.min(min, state.millisUntilToken());
+        }
+        return min;
+    }
+
+    /**
+     * Actualiza el estado de una key con la respuesta recibida.
+     * @param apiKey Key usada en la petición.
+     * @param response Respuesta de la API.
+     */
+    public static void reportResponse(String apiKey, Response response) {
+        KeyState state = find(apiKey);
+        if (state == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+
+        // Cuota restante informada por RapidAPI
+        String remaining = response.header(HEADER_REMAINING);
+        String reset = response.header(HEADER_RESET);
+        try {
+            if (remaining != null) {
+                state.setRemaining(Integer.parseInt(remaining.trim()));
+            } else {
+                state.confirmQuota(); // La petición llegó a la red: su descuento ya no se devuelve
+            }
+            if (reset != null) state.resetAt.set(now + Long.parseLong(reset.trim()) * 1000L);
+        } catch (NumberFormatException e) {
+            Log.w(TAG, "Cabeceras de cuota no válidas: " + remaining + " / " + reset);
+        }
+
+        int code = response.code();
+        if (code == 429) {
+            long resetAt = state.resetAt.get();
+            state.blockedUntil.set(resetAt > now ? resetAt : now + DEFAULT_BLOCK_MS);
+            state.adjustHealth(-RATE_LIMIT_PENALTY);
+            Log.d(TAG, "API Key limitada: " + mask(apiKey));
+        } else if (code >= 500) {
+            state.adjustHealth(-SERVER_ERROR_PENALTY);
+        } else if (response.isSuccessful()) {
+            state.adjustHealth(SUCCESS_BONUS);
+        }
+        // Una key bloqueada o sin cuota se guarda ya: el próximo arranque no debe empezar por ella
+        persist(code == 429 || state.remaining.get() == 0);
+    }
+
+    /**
+     * Devuelve el token y la unidad de cuota de una key reservada que no llegó a la red
+     * (la respuesta salió de la caché HTTP).
+     * @param apiKey Key reservada con {@link #acquireKey()}.
+     */
+    public static void releaseKey(String apiKey) {
+        KeyState state = find(apiKey);
+        if (state != null) {
+            state.refundToken();
+        }
+    }
 
-            Log.d("RapidApiKeyManager", "API Keys inicializadas: " + apiKeys.size());
+    /**
+     * Registra un fallo de red (sin respuesta) para una key.
+     * @param apiKey Key usada en la petición.
+     */
+    public static void reportFailure(String apiKey) {
+        KeyState state = find(apiKey);
+        if (state != null) {
+            state.confirmQuota(); // Puede haber llegado al servidor: se da por gastada
+            state.adjustHealth(-SERVER_ERROR_PENALTY);
         }
     }
 
     /**
-     * Obtiene la API Key actual.
-     * @return La API Key actual.
+     * Obtiene una API Key disponible.
+     * @return La key más sana con capacidad o, si no hay, la primera de la lista.
      */
     public static String getApiKey() {
-        if (apiKeys.isEmpty()) {
-            Log.e("RapidApiKeyManager", "No hay API Keys disponibles.");
+        if (keys.isEmpty()) {
+            Log.e(TAG, "No hay API Keys disponibles.");
             throw new IllegalStateException("No hay API Keys disponibles. Verifica RapidApiKeyManager.");
         }
-        Log.d("RapidApiKeyManager", "Usando API Key: " + apiKeys.get(currentKeyIndex));
-        return apiKeys.get(currentKeyIndex);
+        String key = acquireKey();
+        return key != null ? key : keys.get(0).key;
+    }
+
+    /**
+     * Guarda ya el estado de las keys, sin esperar al intervalo mínimo entre guardados
+     * (por ejemplo, al pasar la aplicación a segundo plano, cuando el proceso puede morir).
+     */
+    public static void flush() {
+        persist(true);
     }
 
     /**
-     * Cambia a la siguiente API Key en caso de que la actual haya alcanzado su límite.
+     * Guarda el estado de las keys. Se limita la frecuencia salvo que se fuerce.
+     * @param force True para guardar aunque se haya guardado hace poco.
      */
-    public static void switchToNextApiKey() {
-        if (apiKeys.isEmpty()) {
-            Log.e("RapidApiKeyManager", "No hay API Keys disponibles para cambiar.");
-            throw new IllegalStateException("No hay API Keys disponibles para cambiar.");
+    private static void persist(boolean force) {
+        SharedPreferences p = prefs;
+        if (p == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long last = lastPersist.get();
+        if (!force && now - last < PERSIST_INTERVAL_MS) {
+            return;
+        }
+        if (force) {
+            lastPersist.set(now);
+        } else if (!lastPersist.compareAndSet(last, now)) {
+            return; // Otro hilo ya está guardando
+        }
+        SharedPreferences.Editor editor = p.edit();
+        for (int i = 0; i < keys.size(); i++) {
+            KeyState state = keys.get(i);
+            editor.putInt(prefKey(i, "remaining"), state.remaining.get());
+            editor.putLong(prefKey(i, "resetAt"), state.resetAt.get());
+            editor.putLong(prefKey(i, "blockedUntil"), state.blockedUntil.get());
+            editor.putInt(prefKey(i, "health"), state.health.get());
+        }
+        editor.apply();
+    }
+
+    private static KeyState find(String apiKey) {
+        for (KeyState state : keys) {
+            if (state.key.equals(apiKey)) {
+                return state;
+            }
+        }
+        return null;
+    }
+
+    private static String prefKey(int index, String field) {
+        return "key_" + index + "_" + field;
+    }
+
+    /**
+     * Oculta la key en los logs.
+     * @param apiKey API Key
+     * @return Key enmascarada
+     */
+    static String mask(String apiKey) {
+        return apiKey == null || apiKey.length() < 6 ? "****" : apiKey.substring(0, 6) + "****";
+    }
+
+    /**
+     * Estado de una API Key. Todos los campos son atómicos para poder usarse desde
+     * los hilos de OkHttp sin sincronización.
+     */
+    private static class KeyState {
+        final String key;
+        final AtomicInteger remaining = new AtomicInteger(-1); // -1 = desconocida
+        final AtomicInteger quotaTaken = new AtomicInteger(); // Unidades descontadas de remaining aún sin respuesta
+        final AtomicLong resetAt = new AtomicLong(); // Momento en el que se reinicia la cuota
+        final AtomicLong blockedUntil = new AtomicLong(); // Bloqueada tras un 429
+        final AtomicInteger health = new AtomicInteger(MAX_HEALTH);
+        final AtomicReference<Bucket> bucket = new AtomicReference<>(new Bucket(BUCKET_CAPACITY, System.nanoTime()));
+
+        KeyState(String key) {
+            this.key = key;
+        }
+
+        /**
+         * La key no está bloqueada ni tiene la cuota agotada.
+         */
+        boolean isAvailable(long now) {
+            return availableAt(now) <= now;
+        }
+
+        /**
+         * Momento a partir del cual la key vuelve a poder usarse.
+         */
+        long availableAt(long now) {
+            long available = blockedUntil.get();
+            if (remaining.get() == 0 && resetAt.get() > now) {
+                available = Math.max(available, resetAt.get());
+            }
+            return available;
+        }
+
+        /**
+         * Cuota restante, tratando como llena una cuota ya reiniciada o desconocida.
+         */
+        int effectiveRemaining(long now) {
+            int value = remaining.get();
+            return value < 0 || resetAt.get() <= now ? Integer.MAX_VALUE : value;
+        }
+
+        /**
+         * Intenta consumir un token del limitador con CAS.
+         * @return True si había token disponible.
+         */
+        boolean tryConsumeToken() {
+            while (true) {
+                Bucket current = bucket.get();
+                Bucket refilled = current.refill(System.nanoTime());
+                if (refilled.tokens < 1) {
+                    return false;
+                }
+                if (bucket.compareAndSet(current, new Bucket(refilled.tokens - 1, refilled.timestamp))) {
+                    if (remaining.getAndUpdate(value -> value > 0 ? value - 1 : value) > 0) {
+                        quotaTaken.incrementAndGet();
+                    }
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Devuelve un token consumido por {@link #tryConsumeToken()} y la cuota que descontó.
+         * Si no descontó cuota (era 0 o desconocida) o RapidAPI ya informó de la cuota real después, no se suma nada.
+         */
+        void refundToken() {
+            while (true) {
+                Bucket current = bucket.get();
+                Bucket refilled = current.refill(System.nanoTime());
+                Bucket refunded = new Bucket(Math.min(BUCKET_CAPACITY, refilled.tokens + 1), refilled.timestamp);
+                if (bucket.compareAndSet(current, refunded)) {
+                    break;
+                }
+            }
+            if (quotaTaken.getAndUpdate(value -> value > 0 ? value - 1 : value) > 0) {
+                remaining.getAndUpdate(value -> value >= 0 ? value + 1 : value);
+            }
+        }
+
+        /**
+         * Guarda la cuota que informa RapidAPI. Sustituye a los descuentos locales pendientes, que ya no se devuelven.
+         * @param value Peticiones restantes
+         */
+        void setRemaining(int value) {
+            quotaTaken.set(0);
+            remaining.set(value);
+        }
+
+        /**
+         * Da por gastada la unidad de cuota descontada para una petición que llegó a la red.
+         */
+        void confirmQuota() {
+            quotaTaken.getAndUpdate(value -> value > 0 ? value - 1 : value);
+        }
+
+        /**
+         * Tiempo hasta que el limitador tenga un token.
+         */
+        long millisUntilToken() {
+            Bucket refilled = bucket.get().refill(System.nanoTime());
+            if (refilled.tokens >= 1) {
+                return 0;
+            }
+            return (long) Math.ceil((1 - refilled.tokens) * 1000 / REFILL_PER_SECOND);
+        }
+
+        void adjustHealth(int delta) {
+            health.getAndUpdate(value -> Math.max(0, Math.min(MAX_HEALTH, value + delta)));
+        }
+    }
+
+    /**
+     * Estado inmutable del token bucket, sustituido atómicamente.
+     */
+    private static class Bucket {
+        final double tokens;
+        final long timestamp;
+
+        Bucket(double tokens, long timestamp) {
+            this.tokens = tokens;
+            this.timestamp = timestamp;
+        }
+
+        Bucket refill(long now) {
+            double elapsedSeconds = (now - timestamp) / 1_000_000_000.0;
+            if (elapsedSeconds <= 0) {
+                return this;
+            }
+            return new Bucket(Math.min(BUCKET_CAPACITY, tokens + elapsedSeconds * REFILL_PER_SECOND), now);
         }
-        currentKeyIndex = (currentKeyIndex + 1) % apiKeys.size();
-        Log.d("RapidApiKeyManager", "Cambiando a nueva API Key: " + apiKeys.get(currentKeyIndex));
     }
 }
@@ -0,0 +1,118 @@
+package edu.pmdm.vegas_laraimdbapp.api;
+
+import android.util.Log;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Interceptor de reintentos reutilizable por cualquier cliente Retrofit.
+ * Aplica la {@link RetryPolicy} a respuestas 408/429/5xx y a errores de red, y consulta
+ * el {@link CircuitBreaker} antes de cada intento. Las respuestas servidas desde la caché HTTP
+ * (incluido el 504 de una petición de solo caché sin copia) se devuelven tal cual.
+ */
+public class RetryInterceptor implements Interceptor {
+
+    private static final String TAG = "RetryInterceptor";
+
+    private final RetryPolicy policy;
+    private final CircuitBreaker breaker;
+
+    /**
+     * Constructor
+     * @param policy Política de reintentos
+     * @param breaker Circuit breaker del cliente
+     */
+    public RetryInterceptor(RetryPolicy policy, CircuitBreaker breaker) {
+        this.policy = policy;
+        this.breaker = breaker;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (request.cacheControl().onlyIfCached()) {
+            // Solo caché: no toca la red, así que ni se reintenta ni cuenta para el circuit breaker
+            return chain.proceed(request);
+        }
+        boolean idempotent = "GET".equals(request.method()) || "HEAD".equals(request.method());
+
+        int attempt = 0;
+        while (true) {
+            breaker.checkRequest();
+
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (KeysExhaustedException e) {
+                // Ninguna key puede atender peticiones: fallamos rápido hasta que se reinicie la cuota
+                breaker.openFor(e.getRetryInMs());
+                throw e;
+            } catch (IOException e) {
+                breaker.recordFailure();
+                if (!idempotent || chain.call().isCanceled() || attempt + 1 >= policy.getMaxAttempts()) {
+                    throw e;
+                }
+                sleep(policy.delayFor(attempt, null));
+                attempt++;
+                continue;
+            }
+
+            if (response.networkResponse() == null) {
+                return response; // Servida desde la caché HTTP: no dice nada del estado del servidor
+            }
+            if (!policy.isRetryable(response.code())) {
+                breaker.recordSuccess();
+                return response;
+            }
+
+            breaker.recordFailure();
+            long delay = policy.delayFor(attempt, response);
+            if (!idempotent || delay < 0 || attempt + 1 >= policy.getMaxAttempts()) {
+                return response; // Devolvemos el último fallo al llamador
+            }
+
+            Log.d(TAG, "Reintentando " + request.url().encodedPath() + " (código " + response.code()
+                    + ") en " + delay + " ms");
+            response.close(); // Liberamos el cuerpo antes de reintentar
+            sleep(delay);
+            attempt++;
+        }
+    }
+
+    /**
+     * Espera entre intentos.
+     * @param delayMs Milisegundos
+     * @throws IOException Si el hilo se interrumpe.
+     */
+    private void sleep(long delayMs) throws IOException {
+        if (delayMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Reintento interrumpido", e);
+        }
+    }
+
+    /**
+     * Excepción que indica que no queda ninguna API Key con cuota.
+     */
+    public static class KeysExhaustedException extends IOException {
+        private final long retryInMs;
+
+        public KeysExhaustedException(String message, long retryInMs) {
+            super(message);
+            this.retryInMs = retryInMs;
+        }
+
+        public long getRetryInMs() {
+            return retryInMs;
+        }
+    }
+}
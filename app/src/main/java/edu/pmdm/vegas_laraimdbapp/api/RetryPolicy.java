@@ -0,0 +1,98 @@
+package edu.pmdm.vegas_laraimdbapp.api;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+
+import okhttp3.Response;
+
+/**
+ * Política de reintentos: backoff exponencial con jitter y respeto de la cabecera Retry-After.
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts; // Intentos totales (incluido el primero)
+    private final long baseDelayMs; // Espera base del backoff
+    private final long maxDelayMs; // Espera máxima del backoff
+    private final long maxRetryAfterMs; // Retry-After por encima de este valor no se espera
+    private final Random random = new Random();
+
+    /**
+     * Constructor
+     * @param maxAttempts Intentos totales (incluido el primero)
+     * @param baseDelayMs Espera base del backoff
+     * @param maxDelayMs Espera máxima del backoff
+     * @param maxRetryAfterMs Espera máxima aceptada desde Retry-After
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs, long maxRetryAfterMs) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.maxRetryAfterMs = maxRetryAfterMs;
+    }
+
+    /**
+     * Política por defecto para las APIs de la aplicación.
+     * @return 3 intentos, backoff de 500 ms a 8 s, Retry-After de hasta 10 s.
+     */
+    public static RetryPolicy defaultPolicy() {
+        return new RetryPolicy(3, 500, 8000, 10_000);
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Indica si un código de respuesta merece reintento.
+     * @param code Código HTTP
+     * @return True para 408, 429 y errores 5xx.
+     */
+    public boolean isRetryable(int code) {
+        return code == 408 || code == 429 || (code >= 500 && code <= 599);
+    }
+
+    /**
+     * Calcula la espera antes del siguiente intento.
+     * @param attempt Número de intento que acaba de fallar (empezando en 0)
+     * @param response Respuesta fallida (puede ser null si hubo error de red)
+     * @return Espera en milisegundos o -1 si el servidor pide esperar más de lo aceptable.
+     */
+    public long delayFor(int attempt, Response response) {
+        long retryAfter = response != null ? parseRetryAfter(response.header("Retry-After")) : -1;
+        if (retryAfter >= 0) {
+            return retryAfter <= maxRetryAfterMs ? retryAfter : -1;
+        }
+        // Full jitter: espera aleatoria entre 0 y el backoff exponencial
+        long cap = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt, 16));
+        synchronized (random) {
+            return (long) (random.nextDouble() * cap);
+        }
+    }
+
+    /**
+     * Interpreta la cabecera Retry-After (segundos o fecha HTTP).
+     * @param value Valor de la cabecera
+     * @return Milisegundos a esperar o -1 si no hay cabecera válida.
+     */
+    static long parseRetryAfter(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return -1;
+        }
+        String trimmed = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(trimmed) * 1000L);
+        } catch (NumberFormatException ignored) {
+            // No son segundos, probamos como fecha HTTP
+        }
+        try {
+            SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+            Date date = format.parse(trimmed);
+            return date != null ? Math.max(0, date.getTime() - System.currentTimeMillis()) : -1;
+        } catch (ParseException e) {
+            return -1;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import edu.pmdm.vegas_laraimdbapp.models.TMDBGenreResponse;
 import edu.pmdm.vegas_laraimdbapp.models.TMDBMovieResponse;
 import retrofit2.Call;
 import retrofit2.http.GET;
+import retrofit2.http.Header;
 import retrofit2.http.Headers;
 import retrofit2.http.Query;
 
@@ -21,6 +22,13 @@ public interface TMDBApiService {
     @GET("genre/movie/list")
     Call<TMDBGenreResponse> getGenres(@Query("language") String language);
 
+    // Revalidación condicional de la lista de géneros (devuelve 304 si no ha cambiado)
+    @Headers({"Authorization: " + API_KEY, "accept: application/json"})
+    @GET("genre/movie/list")
+    Call<TMDBGenreResponse> getGenresIfChanged(@Query("language") String language,
+                                               @Header("If-None-Match") String etag,
+                                               @Header("If-Modified-Since") String lastModified);
+
     // Buscar películas con filtros de género y año
     @Headers({"Authorization: " + API_KEY, "accept: application/json"})
     @GET("discover/movie")
@@ -0,0 +1,16 @@
+package edu.pmdm.vegas_laraimdbapp.api;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indica a {@link ImdbStreamingConverterFactory} cuántos elementos del top hay que convertir.
+ * El resto de la respuesta se salta sin crear objetos.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface TopN {
+    int value();
+}
@@ -51,11 +51,11 @@ public class BluetoothSimulator {
         int count = 1;
         for (Movie movie : favoriteMovies) {
             formattedMovies.append(count)
-                    .append(". ").append(movie.getTitle()).append("\n")
+                    .append(". ").append(orDefault(movie.getTitle(), "Sin título")).append("\n")
                     .append("   - ID: ").append(movie.getId()).append("\n\n")
-                    .append("   - Fecha de lanzamiento: ").append(movie.getReleaseDate()).append("\n")
-                    .append("   - Poster URL: ").append(movie.getImage()).append("\n\n")
-                    .append("   - Descripcion: ").append(movie.getPlot()).append("\n\n")
+                    .append("   - Fecha de lanzamiento: ").append(orDefault(movie.getReleaseDate(), "No disponible")).append("\n")
+                    .append("   - Poster URL: ").append(orDefault(movie.getImage(), "No disponible")).append("\n\n")
+                    .append("   - Descripcion: ").append(orDefault(movie.getPlot(), "No hay sinopsis disponible")).append("\n\n")
                     .append("   - Puntuación: ").append(movie.getRating()).append("\n\n");
             count++;
         }
@@ -113,5 +113,15 @@ public class BluetoothSimulator {
         }
     }
 
+    /**
+     * Texto a mostrar para un dato que puede no haberse recibido.
+     * @param value Dato guardado
+     * @param fallback Texto por defecto
+     * @return El dato, o el texto por defecto si falta
+     */
+    private static String orDefault(String value, String fallback) {
+        return value != null && !value.isEmpty() ? value : fallback;
+    }
+
 
 }
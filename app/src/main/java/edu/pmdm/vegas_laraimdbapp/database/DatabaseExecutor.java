@@ -0,0 +1,64 @@
+package edu.pmdm.vegas_laraimdbapp.database;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecutores compartidos para el acceso a SQLite y el procesado de resultados de Firestore.
+ * Ninguna consulta ni escritura local debe hacerse en el hilo principal.
+ */
+public final class DatabaseExecutor {
+
+    // Con WAL las lecturas pueden ir en paralelo; las escrituras las serializa la propia base de datos
+    private static final int THREADS = 3;
+
+    private static final ExecutorService io = Executors.newFixedThreadPool(THREADS, new DbThreadFactory());
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static final Executor main = mainHandler::post;
+
+    /**
+     * Constructor privado
+     */
+    private DatabaseExecutor() {
+    }
+
+    /**
+     * Ejecutor para el acceso a la base de datos y la continuación de tareas de Firestore.
+     * @return Ejecutor en segundo plano
+     */
+    public static ExecutorService io() {
+        return io;
+    }
+
+    /**
+     * Ejecutor del hilo principal, para entregar resultados a la interfaz.
+     * @return Ejecutor del hilo principal
+     */
+    public static Executor main() {
+        return main;
+    }
+
+    /**
+     * Factoría de hilos con nombre reconocible y prioridad de segundo plano.
+     */
+    private static class DbThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, "db-io-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
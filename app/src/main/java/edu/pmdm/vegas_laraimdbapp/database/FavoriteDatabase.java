@@ -3,16 +3,26 @@ package edu.pmdm.vegas_laraimdbapp.database;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
 import android.util.Log;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 import edu.pmdm.vegas_laraimdbapp.models.Movie;
+import edu.pmdm.vegas_laraimdbapp.models.OutboxOperation;
+import edu.pmdm.vegas_laraimdbapp.models.SessionEvent;
 
 /**
  * Clase para manejar la base de datos de películas favoritas.
@@ -23,19 +33,45 @@ public class FavoriteDatabase extends SQLiteOpenHelper {
 
     //Constantes para la base de datos
     private static final String DATABASE_NAME = "favoritesmovies.db";
-    private static final int DATABASE_VERSION = 6;
+    static final int DATABASE_VERSION = 14;
 
-    //Constantes para la tabla de películas favoritas
-    private static final String TABLE_FAVORITES = "favorites";
+    // Metadatos de las películas, guardados una sola vez y compartidos por todos los usuarios y pantallas
+    public static final String TABLE_MOVIES = "movies";
 
-    //Constantes para las columnas de la tabla de películas favoritas
+    //Constantes para las columnas de la tabla de películas
     private static final String COLUMN_ID = "id";
     private static final String COLUMN_TITLE = "title";
     private static final String COLUMN_IMAGEURL = "imageUrl";
     private static final String COLUMN_RELEASEDATE = "releaseDate";
     private static final String COLUMN_PLOT = "plot";
     private static final String COLUMN_RATING = "rating";
+
+    // Relación de favoritos: solo qué usuario marcó qué película y cuándo
+    public static final String TABLE_FAVORITES = "user_favorites";
     private static final String COLUMN_USERID = "userId";
+    private static final String COLUMN_MOVIE_ID = "movieId";
+    private static final String COLUMN_ADDED_AT = "addedAt";
+
+    // Índice de texto completo sobre título y sinopsis (contenido externo: lee el texto de la tabla de películas)
+    private static final String TABLE_MOVIES_FTS = "movies_fts";
+
+    // Tabla de favoritos anterior a la versión 10 (todos los datos repetidos por película y usuario) y su índice FTS.
+    // Solo la usan el esquema base y las migraciones antiguas
+    private static final String LEGACY_TABLE_FAVORITES = "favorites";
+    private static final String LEGACY_TABLE_FAVORITES_FTS = "favorites_fts";
+
+    // Diario local de inicios y cierres de sesión pendientes de subir, y su resumen diario una vez compactados
+    public static final String TABLE_SESSION_JOURNAL = "session_journal";
+    public static final String TABLE_SESSION_SUMMARY = "session_daily_summary";
+
+    // Marca de agua de cada sincronización incremental (hasta qué updatedAt del servidor se ha aplicado), por usuario
+    public static final String TABLE_SYNC_STATE = "sync_state";
+    public static final String SYNC_SCOPE_FAVORITES = "favorites";
+
+    // Cola local (outbox) de altas y bajas de favoritos pendientes de subir a Firestore
+    public static final String TABLE_OUTBOX = "favorites_outbox";
+    private static final int OUTBOX_PENDING = 0; // Esperando a la siguiente subida
+    private static final int OUTBOX_IN_FLIGHT = 1; // Incluida en un lote que aún no ha confirmado Firestore
 
     // Nueva tabla para usuarios
     public static final String TABLE_USERS = "users";
@@ -49,22 +85,210 @@ public class FavoriteDatabase extends SQLiteOpenHelper {
     public static final String COLUMN_IMAGE = "image";
 
 
+    private static FavoriteDatabase instance; // Instancia única compartida por toda la aplicación
+
+    private final InvalidationTracker invalidationTracker = new InvalidationTracker(); // Avisos de tablas modificadas
+
     /**
-     * Constructor de la clase
+     * Constructor privado
      * @param context Contexto de la aplicación
      */
-    public FavoriteDatabase(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    private FavoriteDatabase(Context context) {
+        this(context, DATABASE_NAME);
+    }
+
+    /**
+     * Constructor sobre otro fichero, para las pruebas instrumentadas (no tocan la base de datos de la aplicación)
+     * @param context Contexto de la aplicación
+     * @param name Nombre del fichero
+     */
+    FavoriteDatabase(Context context, String name) {
+        super(context, name, null, DATABASE_VERSION);
         this.context = context;
+        // WAL: las lecturas de la interfaz usan su propia conexión del pool y no esperan a las escrituras de la sincronización
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    /**
+     * Obtener la instancia única de la base de datos.
+     * La conexión se mantiene abierta durante toda la vida del proceso; no debe cerrarse tras cada uso.
+     * @param context Contexto
+     * @return Instancia compartida
+     */
+    public static synchronized FavoriteDatabase getInstance(Context context) {
+        if (instance == null) {
+            instance = new FavoriteDatabase(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    // Versión del esquema base que crea onCreate; a partir de ella se aplican las migraciones
+    static final int BASE_VERSION = 5;
+
+    // Cadena ordenada de migraciones. Para cambiar el esquema se añade una nueva al final y se sube DATABASE_VERSION
+    private static final List<Migration> MIGRATIONS = Arrays.asList(
+            new Migration(6, "Dirección, teléfono e imagen del usuario") {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    addColumnIfMissing(db, TABLE_USERS, COLUMN_ADDRESS, "TEXT");
+                    addColumnIfMissing(db, TABLE_USERS, COLUMN_PHONE, "TEXT");
+                    addColumnIfMissing(db, TABLE_USERS, COLUMN_IMAGE, "TEXT");
+                }
+            },
+            new Migration(7, "Índice de texto completo de favoritos") {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    createLegacyFavoritesFts(db);
+                }
+            },
+            new Migration(8, "Índice de favoritos por usuario") {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    // Las filas de cada usuario quedan agrupadas y en orden de inserción (rowid)
+                    db.execSQL("CREATE INDEX IF NOT EXISTS favorites_user_idx ON " + LEGACY_TABLE_FAVORITES + "(" + COLUMN_USERID + ")");
+                }
+            },
+            new Migration(9, "Diario de sesiones y resumen diario") {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_SESSION_JOURNAL + " (" +
+                            "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                            "userId TEXT NOT NULL, " +
+                            "type TEXT NOT NULL, " +
+                            "time TEXT NOT NULL, " +
+                            "timestamp INTEGER NOT NULL, " +
+                            "synced INTEGER NOT NULL DEFAULT 0)");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS session_journal_pending_idx ON " + TABLE_SESSION_JOURNAL + "(synced, id)");
+                    db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_SESSION_SUMMARY + " (" +
+                            "userId TEXT NOT NULL, " +
+                            "day TEXT NOT NULL, " +
+                            "logins INTEGER NOT NULL DEFAULT 0, " +
+                            "logouts INTEGER NOT NULL DEFAULT 0, " +
+                            "firstEvent TEXT, " +
+                            "lastEvent TEXT, " +
+                            "PRIMARY KEY (userId, day))");
+                }
+            },
+            new Migration(10, "Tabla de películas compartida y relación de favoritos por usuario") {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_MOVIES + " (" +
+                            COLUMN_ID + " TEXT PRIMARY KEY, " +
+                            COLUMN_TITLE + " TEXT, " +
+                            COLUMN_IMAGEURL + " TEXT, " +
+                            COLUMN_RELEASEDATE + " TEXT, " +
+                            COLUMN_PLOT + " TEXT, " +
+                            COLUMN_RATING + " REAL)");
+                    db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_FAVORITES + " (" +
+                            COLUMN_USERID + " TEXT NOT NULL, " +
+                            COLUMN_MOVIE_ID + " TEXT NOT NULL, " +
+                            COLUMN_ADDED_AT + " INTEGER NOT NULL, " +
+                            "PRIMARY KEY (" + COLUMN_USERID + ", " + COLUMN_MOVIE_ID + "))");
+                    // La clave primaria resuelve "¿es favorita?"; este índice da la cuadrícula de cada usuario ya ordenada
+                    db.execSQL("CREATE INDEX IF NOT EXISTS user_favorites_added_idx ON " + TABLE_FAVORITES +
+                            "(" + COLUMN_USERID + ", " + COLUMN_ADDED_AT + ")");
+                    // Y este, qué usuarios tienen una película (para no borrar metadatos en uso)
+                    db.execSQL("CREATE INDEX IF NOT EXISTS user_favorites_movie_idx ON " + TABLE_FAVORITES + "(" + COLUMN_MOVIE_ID + ")");
+
+                    // Copiar los datos: de cada película se queda la copia más reciente, y como fecha de alta
+                    // se usa el rowid antiguo, que mantiene el orden y queda por delante de cualquier fecha real
+                    db.execSQL("INSERT OR IGNORE INTO " + TABLE_MOVIES + " SELECT " + COLUMN_ID + ", " + COLUMN_TITLE + ", " +
+                            COLUMN_IMAGEURL + ", " + COLUMN_RELEASEDATE + ", " + COLUMN_PLOT + ", NULLIF(" + COLUMN_RATING + ", 0)" +
+                            " FROM " + LEGACY_TABLE_FAVORITES + " ORDER BY rowid DESC");
+                    db.execSQL("INSERT OR IGNORE INTO " + TABLE_FAVORITES + " SELECT " + COLUMN_USERID + ", " + COLUMN_ID + ", rowid" +
+                            " FROM " + LEGACY_TABLE_FAVORITES + " WHERE " + COLUMN_USERID + " IS NOT NULL ORDER BY rowid");
+
+                    db.execSQL("DROP TRIGGER IF EXISTS favorites_fts_bd");
+                    db.execSQL("DROP TRIGGER IF EXISTS favorites_fts_bu");
+                    db.execSQL("DROP TRIGGER IF EXISTS favorites_fts_ai");
+                    db.execSQL("DROP TRIGGER IF EXISTS favorites_fts_au");
+                    db.execSQL("DROP TABLE IF EXISTS " + LEGACY_TABLE_FAVORITES_FTS);
+                    db.execSQL("DROP TABLE IF EXISTS " + LEGACY_TABLE_FAVORITES);
+
+                    createMoviesFts(db);
+                }
+            },
+            new Migration(11, "Marcas de agua de la sincronización incremental") {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_SYNC_STATE + " (" +
+                            "userId TEXT NOT NULL, " +
+                            "scope TEXT NOT NULL, " +
+                            "watermark INTEGER NOT NULL, " +
+                            "PRIMARY KEY (userId, scope))");
+                }
+            },
+            new Migration(12, "Cola de cambios de favoritos pendientes de subir") {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_OUTBOX + " (" +
+                            "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                            "userId TEXT NOT NULL, " +
+                            "movieId TEXT NOT NULL, " +
+                            "op TEXT NOT NULL, " +
+                            "createdAt INTEGER NOT NULL, " +
+                            "state INTEGER NOT NULL DEFAULT " + OUTBOX_PENDING + ")");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS favorites_outbox_pending_idx ON " + TABLE_OUTBOX + "(state, id)");
+                    db.execSQL("CREATE INDEX IF NOT EXISTS favorites_outbox_movie_idx ON " + TABLE_OUTBOX + "(userId, movieId)");
+                }
+            },
+            new Migration(13, "Operación original de cada entrada de la cola") {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    // Ya no se usa: una entrada pendiente nunca se anula, siempre se sube su última operación
+                    addColumnIfMissing(db, TABLE_OUTBOX, "initialOp", "TEXT");
+                }
+            },
+            new Migration(14, "Textos por defecto guardados como datos de las películas") {
+                @Override
+                public void migrate(SQLiteDatabase db) {
+                    // Los converters guardaban estos textos cuando faltaba el dato; a NULL para que el detalle los complete
+                    db.execSQL("UPDATE " + TABLE_MOVIES + " SET " + COLUMN_TITLE + " = NULL WHERE " + COLUMN_TITLE + " = 'Sin título'");
+                    db.execSQL("UPDATE " + TABLE_MOVIES + " SET " + COLUMN_PLOT + " = NULL WHERE " + COLUMN_PLOT +
+                            " IN ('No hay sinopsis disponible', 'Descripción no disponible', '')");
+                    db.execSQL("UPDATE " + TABLE_MOVIES + " SET " + COLUMN_RELEASEDATE + " = NULL WHERE " + COLUMN_RELEASEDATE +
+                            " IN ('Fecha no disponible', '')");
+                    db.execSQL("UPDATE " + TABLE_MOVIES + " SET " + COLUMN_IMAGEURL + " = NULL WHERE " + COLUMN_IMAGEURL +
+                            " IN ('', 'https://image.tmdb.org/t/p/w500null')");
+                }
+            }
+    );
+
+    /**
+     * Obtener el tracker que avisa de las tablas modificadas por cada escritura
+     * @return Tracker de invalidación
+     */
+    public InvalidationTracker getInvalidationTracker() {
+        return invalidationTracker;
     }
 
     /**
-     * Crear la tabla de películas favoritas
+     * Crear el esquema base y aplicar todas las migraciones, igual que en una actualización
      * @param db Base de datos
      */
     @Override
     public void onCreate(SQLiteDatabase db) {
-        String createTable = "CREATE TABLE " + TABLE_FAVORITES + " (" +
+        createBaseSchema(db);
+        runMigrations(db, BASE_VERSION, DATABASE_VERSION);
+    }
+
+    /**
+     * Crear el esquema tal como quedaba en una versión anterior, para las pruebas de migración
+     * @param db Base de datos vacía
+     * @param version Versión entre {@link #BASE_VERSION} y {@link #DATABASE_VERSION}
+     */
+    static void createSchema(SQLiteDatabase db, int version) {
+        createBaseSchema(db);
+        runMigrations(db, BASE_VERSION, version);
+        db.setVersion(version);
+    }
+
+    /**
+     * Crear las tablas de la versión base del esquema
+     * @param db Base de datos
+     */
+    private static void createBaseSchema(SQLiteDatabase db) {
+        String createTable = "CREATE TABLE IF NOT EXISTS " + LEGACY_TABLE_FAVORITES + " (" +
                 COLUMN_ID + " TEXT, " +
                 COLUMN_TITLE + " TEXT, " +
                 COLUMN_IMAGEURL + " TEXT, " +
@@ -75,36 +299,153 @@ public class FavoriteDatabase extends SQLiteOpenHelper {
                 "PRIMARY KEY (" + COLUMN_ID + ", " + COLUMN_USERID + "))";
         db.execSQL(createTable);
 
-        String createUsersTable = "CREATE TABLE " + TABLE_USERS + " (" +
+        String createUsersTable = "CREATE TABLE IF NOT EXISTS " + TABLE_USERS + " (" +
                 COLUMN_USER_ID + " TEXT PRIMARY KEY, " +
                 COLUMN_NAME + " TEXT, " +
                 COLUMN_EMAIL + " TEXT, " +
                 COLUMN_LAST_LOGIN + " TEXT, " +
-                COLUMN_LAST_LOGOUT + " TEXT, " +
-                COLUMN_ADDRESS + " TEXT, " +
-                COLUMN_PHONE + " TEXT, " +
-                COLUMN_IMAGE + " TEXT " +
+                COLUMN_LAST_LOGOUT + " TEXT " +
                 ");";
         db.execSQL(createUsersTable);
+    }
 
+    /**
+     * Configurar cada conexión al abrirla
+     * @param db Base de datos
+     */
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        // INSERT OR REPLACE borra la fila anterior; sin esto no se dispararía el trigger de borrado del índice
+        db.execSQL("PRAGMA recursive_triggers = ON");
     }
 
     /**
-     * Actualizar la estructura de la tabla de películas favoritas
+     * Crear el índice FTS de la tabla de favoritos antigua (migración 7; la 10 lo sustituye)
+     * @param db Base de datos
+     */
+    private static void createLegacyFavoritesFts(SQLiteDatabase db) {
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + LEGACY_TABLE_FAVORITES_FTS + " USING fts4(" +
+                "content=\"" + LEGACY_TABLE_FAVORITES + "\", " +
+                COLUMN_TITLE + ", " + COLUMN_PLOT + ", " +
+                "tokenize=unicode61 \"remove_diacritics=1\")");
+
+        // Con contenido externo hay que borrar del índice antes de que cambie la fila y reinsertar después
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS favorites_fts_bd BEFORE DELETE ON " + LEGACY_TABLE_FAVORITES + " BEGIN " +
+                "DELETE FROM " + LEGACY_TABLE_FAVORITES_FTS + " WHERE docid = old.rowid; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS favorites_fts_bu BEFORE UPDATE ON " + LEGACY_TABLE_FAVORITES + " BEGIN " +
+                "DELETE FROM " + LEGACY_TABLE_FAVORITES_FTS + " WHERE docid = old.rowid; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS favorites_fts_ai AFTER INSERT ON " + LEGACY_TABLE_FAVORITES + " BEGIN " +
+                "INSERT INTO " + LEGACY_TABLE_FAVORITES_FTS + "(docid, " + COLUMN_TITLE + ", " + COLUMN_PLOT + ") " +
+                "VALUES (new.rowid, new." + COLUMN_TITLE + ", new." + COLUMN_PLOT + "); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS favorites_fts_au AFTER UPDATE ON " + LEGACY_TABLE_FAVORITES + " BEGIN " +
+                "INSERT INTO " + LEGACY_TABLE_FAVORITES_FTS + "(docid, " + COLUMN_TITLE + ", " + COLUMN_PLOT + ") " +
+                "VALUES (new.rowid, new." + COLUMN_TITLE + ", new." + COLUMN_PLOT + "); END");
+
+        // Indexar las filas que ya existían
+        db.execSQL("INSERT INTO " + LEGACY_TABLE_FAVORITES_FTS + "(" + LEGACY_TABLE_FAVORITES_FTS + ") VALUES ('rebuild')");
+    }
+
+    /**
+     * Crear el índice FTS de la tabla de películas y los triggers que lo mantienen sincronizado.
+     * Los de actualización solo saltan si cambian el título o la sinopsis.
+     * @param db Base de datos
+     */
+    private static void createMoviesFts(SQLiteDatabase db) {
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS " + TABLE_MOVIES_FTS + " USING fts4(" +
+                "content=\"" + TABLE_MOVIES + "\", " +
+                COLUMN_TITLE + ", " + COLUMN_PLOT + ", " +
+                "tokenize=unicode61 \"remove_diacritics=1\")");
+
+        // Con contenido externo hay que borrar del índice antes de que cambie la fila y reinsertar después
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS movies_fts_bd BEFORE DELETE ON " + TABLE_MOVIES + " BEGIN " +
+                "DELETE FROM " + TABLE_MOVIES_FTS + " WHERE docid = old.rowid; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS movies_fts_bu BEFORE UPDATE OF " + COLUMN_TITLE + ", " + COLUMN_PLOT +
+                " ON " + TABLE_MOVIES + " BEGIN " +
+                "DELETE FROM " + TABLE_MOVIES_FTS + " WHERE docid = old.rowid; END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS movies_fts_ai AFTER INSERT ON " + TABLE_MOVIES + " BEGIN " +
+                "INSERT INTO " + TABLE_MOVIES_FTS + "(docid, " + COLUMN_TITLE + ", " + COLUMN_PLOT + ") " +
+                "VALUES (new.rowid, new." + COLUMN_TITLE + ", new." + COLUMN_PLOT + "); END");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS movies_fts_au AFTER UPDATE OF " + COLUMN_TITLE + ", " + COLUMN_PLOT +
+                " ON " + TABLE_MOVIES + " BEGIN " +
+                "INSERT INTO " + TABLE_MOVIES_FTS + "(docid, " + COLUMN_TITLE + ", " + COLUMN_PLOT + ") " +
+                "VALUES (new.rowid, new." + COLUMN_TITLE + ", new." + COLUMN_PLOT + "); END");
+
+        // Indexar las filas que ya existían
+        db.execSQL("INSERT INTO " + TABLE_MOVIES_FTS + "(" + TABLE_MOVIES_FTS + ") VALUES ('rebuild')");
+    }
+
+    /**
+     * Actualizar la estructura de la base de datos aplicando en orden las migraciones pendientes
      * @param db Base de datos
      * @param oldVersion Versión anterior de la base de datos
      * @param newVersion Versión actual de la base de datos
      */
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        if (oldVersion < 6) {
-            db.execSQL("ALTER TABLE " + TABLE_USERS + " ADD COLUMN " + COLUMN_ADDRESS + " TEXT;");
-            db.execSQL("ALTER TABLE " + TABLE_USERS + " ADD COLUMN " + COLUMN_PHONE + " TEXT;");
-            db.execSQL("ALTER TABLE " + TABLE_USERS + " ADD COLUMN " + COLUMN_IMAGE + " TEXT;");
+        if (oldVersion < BASE_VERSION) {
+            createBaseSchema(db); // Instalaciones muy antiguas: asegurar que existen las tablas base
+        }
+        runMigrations(db, oldVersion, newVersion);
+    }
 
+    /**
+     * Aplica en orden las migraciones con versión en (fromVersion, toVersion].
+     * Todas van en la transacción con la que SQLiteOpenHelper envuelve onCreate y onUpgrade:
+     * si una falla no se guarda ninguna, la versión no cambia y el siguiente arranque vuelve a empezar desde fromVersion.
+     * @param db Base de datos
+     * @param fromVersion Versión actual del esquema
+     * @param toVersion Versión de destino
+     */
+    private static void runMigrations(SQLiteDatabase db, int fromVersion, int toVersion) {
+        long total = SystemClock.elapsedRealtime();
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version <= fromVersion || migration.version > toVersion) {
+                continue;
+            }
+            long start = SystemClock.elapsedRealtime();
+            try {
+                migration.migrate(db);
+            } catch (RuntimeException e) {
+                Log.e("FavoriteDatabase", "Error en la migración a la versión " + migration.version + ": " + migration.description, e);
+                throw e;
+            }
+            Log.i("FavoriteDatabase", "Migración a la versión " + migration.version + " (" + migration.description + ") en "
+                    + (SystemClock.elapsedRealtime() - start) + " ms");
         }
+        Log.i("FavoriteDatabase", "Esquema actualizado de la versión " + fromVersion + " a la " + toVersion + " en "
+                + (SystemClock.elapsedRealtime() - total) + " ms");
     }
 
+    /**
+     * Añade una columna solo si la tabla aún no la tiene, para que la migración sea segura
+     * sobre esquemas que ya la incluyen.
+     * @param db Base de datos
+     * @param table Tabla
+     * @param column Columna
+     * @param type Tipo SQL
+     */
+    private static void addColumnIfMissing(SQLiteDatabase db, String table, String column, String type) {
+        try (Cursor cursor = db.rawQuery("PRAGMA table_info(" + table + ")", null)) {
+            int nameIndex = cursor.getColumnIndexOrThrow("name");
+            while (cursor.moveToNext()) {
+                if (column.equalsIgnoreCase(cursor.getString(nameIndex))) {
+                    return;
+                }
+            }
+        }
+        db.execSQL("ALTER TABLE " + table + " ADD COLUMN " + column + " " + type);
+    }
+
+    // Columnas de una película completa en las consultas que cruzan favoritos con la tabla de películas
+    private static final String MOVIE_COLUMNS = "m." + COLUMN_ID + ", m." + COLUMN_TITLE + ", m." + COLUMN_IMAGEURL + ", m." +
+            COLUMN_RELEASEDATE + ", m." + COLUMN_PLOT + ", m." + COLUMN_RATING;
+
+    // Favoritos de un usuario unidos a sus metadatos, en orden de alta
+    private static final String FAVORITES_JOIN = " FROM " + TABLE_FAVORITES + " uf JOIN " + TABLE_MOVIES + " m ON m." +
+            COLUMN_ID + " = uf." + COLUMN_MOVIE_ID + " WHERE uf." + COLUMN_USERID + " = ?";
+    private static final String FAVORITES_ORDER = " ORDER BY uf." + COLUMN_ADDED_AT + ", uf.rowid";
+
     /**
      * Obtener todas las películas favoritas de un usuario
      * @param userId ID del usuario
@@ -114,39 +455,227 @@ public class FavoriteDatabase extends SQLiteOpenHelper {
 
         List<Movie> favoriteMovies = new ArrayList<>(); // Lista para almacenar las películas favoritas
         SQLiteDatabase db = this.getReadableDatabase(); // Obtener la base de datos de lectura
-        Cursor cursor = null; // Cursor para recorrer los resultados de la consulta
 
-        // Consulta para obtener todas las películas favoritas del usuario
-        try {
-            String selection = COLUMN_USERID + " = ?"; // Condición de selección para un usuario específico
-            String[] selectionArgs = {userId}; // Argumentos de la condición de selección
-
-            //Ejecutar la consulta
-            cursor = db.query(TABLE_FAVORITES, null, selection, selectionArgs, null, null, null);
-            if (cursor != null && cursor.moveToFirst()) { // Recorrer los resultados
-                do {
-                    //Crear el objeto pelicula
-                    Movie movie = new Movie();
-                    movie.setId(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ID)));
-                    movie.setTitle(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_TITLE)));
-                    movie.setImage(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_IMAGEURL)));
-                    movie.setReleaseDate(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_RELEASEDATE)));
-                    movie.setPlot(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_PLOT)));
-                    movie.setRating(cursor.getDouble(cursor.getColumnIndexOrThrow(COLUMN_RATING)));
-
-                    favoriteMovies.add(movie); // Agregar la película a la lista
-
-                } while (cursor.moveToNext()); // Avanzar al siguiente resultado
+        // Consulta para obtener todas las películas favoritas del usuario con sus datos
+        try (Cursor cursor = db.rawQuery("SELECT " + MOVIE_COLUMNS + FAVORITES_JOIN + FAVORITES_ORDER, new String[]{userId})) {
+            while (cursor.moveToNext()) { // Recorrer los resultados
+                favoriteMovies.add(readMovie(cursor)); // Agregar la película a la lista
             }
         } catch (Exception e) {
             Log.e("FavoriteDatabase", "Error al obtener favoritos: " + e.getMessage());
-        } finally {
-            if (cursor != null) cursor.close(); // Cerrar el cursor si no es nulo
         }
 
         return favoriteMovies; // Devolver la lista de películas favoritas
     }
 
+    /**
+     * Crear una película a partir de una fila con las columnas de {@link #MOVIE_COLUMNS}
+     * @param cursor Cursor situado en la fila
+     * @return Película
+     */
+    private static Movie readMovie(Cursor cursor) {
+        Movie movie = new Movie();
+        movie.setId(cursor.getString(0));
+        movie.setTitle(cursor.getString(1));
+        movie.setImage(cursor.getString(2));
+        movie.setReleaseDate(cursor.getString(3));
+        movie.setPlot(cursor.getString(4));
+        movie.setRating(cursor.getDouble(5)); // Sin puntuación conocida queda en 0
+        return movie;
+    }
+
+    /**
+     * Contar las películas favoritas de un usuario
+     * @param userId ID del usuario
+     * @return Número de favoritos
+     */
+    public int countFavorites(String userId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        return (int) DatabaseUtils.queryNumEntries(db, TABLE_FAVORITES, COLUMN_USERID + " = ?", new String[]{userId});
+    }
+
+    /**
+     * Obtener una página de favoritos con solo las columnas que pinta la cuadrícula (ID, título y carátula).
+     * El orden es el de alta, estable entre páginas.
+     * @param userId ID del usuario
+     * @param offset Posición de la primera fila
+     * @param limit Número máximo de filas
+     * @return Películas de la página (sin fecha, sinopsis ni puntuación)
+     */
+    public List<Movie> getFavoritesPage(String userId, int offset, int limit) {
+        List<Movie> page = new ArrayList<>(limit);
+        SQLiteDatabase db = this.getReadableDatabase();
+        String sql = "SELECT m." + COLUMN_ID + ", m." + COLUMN_TITLE + ", m." + COLUMN_IMAGEURL +
+                FAVORITES_JOIN + FAVORITES_ORDER + " LIMIT ? OFFSET ?";
+
+        try (Cursor cursor = db.rawQuery(sql, new String[]{userId, String.valueOf(limit), String.valueOf(offset)})) {
+            while (cursor.moveToNext()) {
+                Movie movie = new Movie();
+                movie.setId(cursor.getString(0));
+                movie.setTitle(cursor.getString(1));
+                movie.setImage(cursor.getString(2));
+                page.add(movie);
+            }
+        } catch (Exception e) {
+            Log.e("FavoriteDatabase", "Error al obtener página de favoritos: " + e.getMessage());
+        }
+        return page;
+    }
+
+    /**
+     * Buscar en los favoritos de un usuario por título y sinopsis.
+     * Cada palabra se busca como prefijo; primero aparecen las coincidencias en el título y después las
+     * que solo coinciden en la sinopsis, ordenadas alfabéticamente.
+     * @param userId ID del usuario
+     * @param query Texto introducido por el usuario
+     * @param offset Posición de la primera fila
+     * @param limit Número máximo de filas
+     * @return Películas encontradas (solo ID, título y carátula)
+     */
+    public List<Movie> searchFavorites(String userId, String query, int offset, int limit) {
+        List<Movie> results = new ArrayList<>();
+        String match = toFtsQuery(query, null);
+        if (match == null) {
+            return results;
+        }
+
+        long start = SystemClock.elapsedRealtime();
+        SQLiteDatabase db = this.getReadableDatabase();
+        String sql = "SELECT m." + COLUMN_ID + ", m." + COLUMN_TITLE + ", m." + COLUMN_IMAGEURL +
+                " FROM " + TABLE_MOVIES_FTS + " JOIN " + TABLE_MOVIES + " m ON m.rowid = " + TABLE_MOVIES_FTS + ".docid" +
+                " JOIN " + TABLE_FAVORITES + " uf ON uf." + COLUMN_MOVIE_ID + " = m." + COLUMN_ID + " AND uf." + COLUMN_USERID + " = ?" +
+                " WHERE " + TABLE_MOVIES_FTS + " MATCH ?" +
+                " ORDER BY CASE WHEN " + TABLE_MOVIES_FTS + ".docid IN (SELECT docid FROM " + TABLE_MOVIES_FTS +
+                " WHERE " + TABLE_MOVIES_FTS + " MATCH ?) THEN 0 ELSE 1 END, m." + COLUMN_TITLE + " COLLATE NOCASE" +
+                " LIMIT ? OFFSET ?";
+        String[] args = {userId, match, toFtsQuery(query, COLUMN_TITLE), String.valueOf(limit), String.valueOf(offset)};
+
+        try (Cursor cursor = db.rawQuery(sql, args)) {
+            while (cursor.moveToNext()) {
+                Movie movie = new Movie();
+                movie.setId(cursor.getString(0));
+                movie.setTitle(cursor.getString(1));
+                movie.setImage(cursor.getString(2));
+                results.add(movie);
+            }
+        } catch (Exception e) {
+            Log.e("FavoriteDatabase", "Error al buscar favoritos: " + e.getMessage());
+        }
+
+        Log.d("FavoriteDatabase", "Búsqueda \"" + query + "\": " + results.size() + " resultados en "
+                + (SystemClock.elapsedRealtime() - start) + " ms");
+        return results;
+    }
+
+    /**
+     * Contar los resultados de una búsqueda en los favoritos de un usuario
+     * @param userId ID del usuario
+     * @param query Texto introducido por el usuario
+     * @return Número de coincidencias
+     */
+    public int countSearchResults(String userId, String query) {
+        String match = toFtsQuery(query, null);
+        if (match == null) {
+            return 0;
+        }
+
+        SQLiteDatabase db = this.getReadableDatabase();
+        String sql = "SELECT COUNT(*) FROM " + TABLE_MOVIES_FTS +
+                " JOIN " + TABLE_MOVIES + " m ON m.rowid = " + TABLE_MOVIES_FTS + ".docid" +
+                " JOIN " + TABLE_FAVORITES + " uf ON uf." + COLUMN_MOVIE_ID + " = m." + COLUMN_ID + " AND uf." + COLUMN_USERID + " = ?" +
+                " WHERE " + TABLE_MOVIES_FTS + " MATCH ?";
+        try {
+            return (int) DatabaseUtils.longForQuery(db, sql, new String[]{userId, match});
+        } catch (Exception e) {
+            Log.e("FavoriteDatabase", "Error al contar resultados: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Convierte el texto del usuario en una consulta FTS de prefijos, descartando la sintaxis especial.
+     * @param query Texto introducido
+     * @param column Columna a la que restringir la búsqueda (null para todas)
+     * @return Consulta FTS o null si no queda ninguna palabra
+     */
+    private static String toFtsQuery(String query, String column) {
+        if (query == null) {
+            return null;
+        }
+        StringBuilder match = new StringBuilder();
+        for (String token : query.split("[^\\p{L}\\p{N}]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            if (column != null) {
+                match.append(column).append(':');
+            }
+            match.append(token.toLowerCase(Locale.ROOT)).append('*'); // En minúsculas para no formar operadores (OR, NOT...)
+        }
+        return match.length() == 0 ? null : match.toString();
+    }
+
+    /**
+     * Obtener todos los datos de una película favorita
+     * @param movieId ID de la película
+     * @param userId ID del usuario
+     * @return Película o null si no está en favoritos
+     */
+    public Movie getFavorite(String movieId, String userId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        String sql = "SELECT " + MOVIE_COLUMNS + FAVORITES_JOIN + " AND uf." + COLUMN_MOVIE_ID + " = ?";
+
+        try (Cursor cursor = db.rawQuery(sql, new String[]{userId, movieId})) {
+            if (cursor.moveToFirst()) {
+                return readMovie(cursor);
+            }
+        } catch (Exception e) {
+            Log.e("FavoriteDatabase", "Error al obtener favorito: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Obtener los datos guardados de una película, sea o no favorita de alguien
+     * @param movieId ID de la película
+     * @return Película o null si nunca se ha guardado
+     */
+    public Movie getMovie(String movieId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        String sql = "SELECT " + MOVIE_COLUMNS + " FROM " + TABLE_MOVIES + " m WHERE m." + COLUMN_ID + " = ?";
+
+        try (Cursor cursor = db.rawQuery(sql, new String[]{movieId})) {
+            if (cursor.moveToFirst()) {
+                return readMovie(cursor);
+            }
+        } catch (Exception e) {
+            Log.e("FavoriteDatabase", "Error al obtener película: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Obtener solo los IDs de las películas favoritas de un usuario
+     * @param userId ID del usuario
+     * @return Conjunto de IDs
+     */
+    public Set<String> getFavoriteIds(String userId) {
+        Set<String> ids = new HashSet<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        try (Cursor cursor = db.query(TABLE_FAVORITES, new String[]{COLUMN_MOVIE_ID}, COLUMN_USERID + " = ?",
+                new String[]{userId}, null, null, null)) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getString(0));
+            }
+        } catch (Exception e) {
+            Log.e("FavoriteDatabase", "Error al obtener IDs de favoritos: " + e.getMessage());
+        }
+        return ids;
+    }
+
     /**
      * Verificar si una película ya está en la lista de favoritos
      * @param movieId ID de la película
@@ -156,67 +685,506 @@ public class FavoriteDatabase extends SQLiteOpenHelper {
     public boolean movieExists(String movieId, String userId) {
 
         SQLiteDatabase db = this.getReadableDatabase(); // Obtener la base de datos de lectura
-        String selection = COLUMN_ID + " = ? AND " + COLUMN_USERID + " = ?"; // Condición de selección para un usuario específico
-        String[] selectionArgs = {movieId, userId}; // Argumentos de la condición de selección
+        String selection = COLUMN_USERID + " = ? AND " + COLUMN_MOVIE_ID + " = ?"; // Condición de selección (clave primaria)
+        String[] selectionArgs = {userId, movieId}; // Argumentos de la condición de selección
 
         //Ejecutar la consulta
-        Cursor cursor = db.query(TABLE_FAVORITES, null, selection, selectionArgs, null, null, null);
-        boolean exists = (cursor != null && cursor.getCount() > 0); // Verificar si se encontraron resultados
-
-        if (cursor != null) cursor.close(); // Cerrar el cursor si no es nulo
-        return exists; // Devolver el resultado de la verificación
+        return DatabaseUtils.queryNumEntries(db, TABLE_FAVORITES, selection, selectionArgs) > 0;
     }
 
     /**
-     * Agregar una película a la lista de favoritos
+     * Agregar una película a la lista de favoritos: guarda sus datos en la tabla compartida,
+     * la relación con el usuario y el alta en la cola de subida, en una sola transacción.
      * @param movie Objeto de la película
      * @param userId ID del usuario
+     * @return True si se guardó; false si falló y se deshizo todo
      */
-    public void addFavorite(Movie movie, String userId) {
+    public boolean addFavorite(Movie movie, String userId) {
+        SQLiteDatabase db = this.getWritableDatabase(); // Obtener la base de datos de escritura
+        boolean committed = false;
 
-        // Verificar si la película ya está en favoritos
-        if (movieExists(movie.getId(), userId)) {
-            return;
+        db.beginTransaction();
+        try {
+            // Transacción anidada: si falla, se deshace también esta
+            if (upsertFavorites(Collections.singletonList(movie), userId) == 0) {
+                throw new IllegalStateException("No se pudo guardar el favorito");
+            }
+            enqueueOutbox(db, userId, movie.getId(), OutboxOperation.OP_ADD);
+            db.setTransactionSuccessful();
+            committed = true;
+            Log.d("FavoriteDatabase", "Película agregada con éxito: " + movie.getId());
+        } catch (Exception e) {
+            Log.e("FavoriteDatabase", "Error al agregar película: " + e.getMessage());
+        } finally {
+            db.endTransaction();
+            transactionEnded(db, committed);
+        }
+        return committed;
+    }
+
+    /**
+     * Guardar los datos de un lote de películas en la tabla compartida, en una única transacción.
+     * Los campos que llegan vacíos no borran lo que ya se sabía (una lista no trae la sinopsis que sí trae el detalle).
+     * @param movies Películas obtenidas de la API o de Firestore
+     * @return Número de películas nuevas o modificadas
+     */
+    public int upsertMovies(List<Movie> movies) {
+        if (movies == null || movies.isEmpty()) {
+            return 0;
         }
 
+        SQLiteDatabase db = this.getWritableDatabase();
+        int changed = 0;
+        boolean committed = false;
+
+        db.beginTransaction();
+        try {
+            changed = writeMovies(db, movies);
+            if (changed > 0) {
+                invalidationTracker.markTouched(TABLE_MOVIES);
+            }
+            db.setTransactionSuccessful();
+            committed = true;
+        } catch (Exception e) {
+            Log.e("FavoriteDatabase", "Error al guardar el lote de películas: " + e.getMessage());
+            changed = 0;
+        } finally {
+            db.endTransaction();
+            transactionEnded(db, committed);
+        }
+        return changed;
+    }
+
+    /**
+     * Escribe las películas con dos sentencias compiladas: INSERT OR IGNORE para las nuevas y un UPDATE
+     * que solo toca la fila si algún campo cambia, para no reescribir el índice FTS en cada refresco.
+     * Debe llamarse dentro de una transacción.
+     * @param db Base de datos
+     * @param movies Películas
+     * @return Número de películas nuevas o modificadas
+     */
+    private static int writeMovies(SQLiteDatabase db, List<Movie> movies) {
+        SQLiteStatement insert = db.compileStatement("INSERT OR IGNORE INTO " + TABLE_MOVIES + " (" +
+                COLUMN_ID + ", " + COLUMN_TITLE + ", " + COLUMN_IMAGEURL + ", " + COLUMN_RELEASEDATE + ", " +
+                COLUMN_PLOT + ", " + COLUMN_RATING + ") VALUES (?6, ?1, ?2, ?3, ?4, ?5)");
+        SQLiteStatement update = db.compileStatement("UPDATE " + TABLE_MOVIES + " SET " +
+                COLUMN_TITLE + " = IFNULL(?1, " + COLUMN_TITLE + "), " +
+                COLUMN_IMAGEURL + " = IFNULL(?2, " + COLUMN_IMAGEURL + "), " +
+                COLUMN_RELEASEDATE + " = IFNULL(?3, " + COLUMN_RELEASEDATE + "), " +
+                COLUMN_PLOT + " = IFNULL(?4, " + COLUMN_PLOT + "), " +
+                COLUMN_RATING + " = IFNULL(?5, " + COLUMN_RATING + ") " +
+                "WHERE " + COLUMN_ID + " = ?6 AND (" +
+                "IFNULL(?1, " + COLUMN_TITLE + ") IS NOT " + COLUMN_TITLE + " OR " +
+                "IFNULL(?2, " + COLUMN_IMAGEURL + ") IS NOT " + COLUMN_IMAGEURL + " OR " +
+                "IFNULL(?3, " + COLUMN_RELEASEDATE + ") IS NOT " + COLUMN_RELEASEDATE + " OR " +
+                "IFNULL(?4, " + COLUMN_PLOT + ") IS NOT " + COLUMN_PLOT + " OR " +
+                "IFNULL(?5, " + COLUMN_RATING + ") IS NOT " + COLUMN_RATING + ")");
+        int changed = 0;
+        try {
+            for (Movie movie : movies) {
+                if (movie == null || movie.getId() == null || movie.getId().isEmpty()) {
+                    continue; // Sin ID no se puede guardar
+                }
+                bindMovie(insert, movie);
+                if (insert.executeInsert() != -1) {
+                    changed++;
+                    continue;
+                }
+                bindMovie(update, movie);
+                changed += update.executeUpdateDelete();
+            }
+        } finally {
+            insert.close();
+            update.close();
+        }
+        return changed;
+    }
+
+    /**
+     * Enlaza los datos de una película en los parámetros ?1..?6 de las sentencias de {@link #writeMovies}.
+     * Los campos null o vacíos quedan a NULL para que el IFNULL del UPDATE conserve el valor guardado.
+     * @param statement Sentencia compilada
+     * @param movie Película
+     */
+    private static void bindMovie(SQLiteStatement statement, Movie movie) {
+        statement.clearBindings();
+        bindNullable(statement, 1, movie.getTitle());
+        bindNullable(statement, 2, movie.getImage());
+        bindNullable(statement, 3, movie.getReleaseDate());
+        bindNullable(statement, 4, movie.getPlot());
+        if (movie.getRating() > 0) {
+            statement.bindDouble(5, movie.getRating());
+        } else {
+            statement.bindNull(5); // Las listas no traen puntuación; no pisar la del detalle
+        }
+        statement.bindString(6, movie.getId());
+    }
+
+    /**
+     * Guardar un lote de películas favoritas en una única transacción: sus datos en la tabla compartida
+     * y la relación con el usuario. Las que ya eran favoritas conservan su fecha de alta.
+     * @param movies Películas a guardar
+     * @param userId ID del usuario
+     * @return Número de películas escritas
+     */
+    public int upsertFavorites(List<Movie> movies, String userId) {
+        if (movies == null || movies.isEmpty() || userId == null) {
+            return 0;
+        }
+
+        long start = SystemClock.elapsedRealtime();
         SQLiteDatabase db = this.getWritableDatabase(); // Obtener la base de datos de escritura
-        ContentValues values = new ContentValues(); // Crear un objeto ContentValues para los valores a insertar
+        SQLiteStatement statement = db.compileStatement("INSERT OR IGNORE INTO " + TABLE_FAVORITES + " (" +
+                COLUMN_USERID + ", " + COLUMN_MOVIE_ID + ", " + COLUMN_ADDED_AT + ") VALUES (?, ?, ?)");
+        long addedAt = System.currentTimeMillis();
+        int written = 0;
+        boolean committed = false;
+
+        db.beginTransaction();
+        try {
+            if (writeMovies(db, movies) > 0) {
+                invalidationTracker.markTouched(TABLE_MOVIES);
+            }
+            int added = 0;
+            for (Movie movie : movies) {
+                if (movie == null || movie.getId() == null || movie.getId().isEmpty()) {
+                    continue; // Sin ID no se puede guardar
+                }
+                statement.bindString(1, userId);
+                statement.bindString(2, movie.getId());
+                statement.bindLong(3, addedAt);
+                if (statement.executeInsert() != -1) {
+                    added++;
+                }
+                written++;
+            }
+            if (added > 0) {
+                invalidationTracker.markTouched(TABLE_FAVORITES);
+            }
+            db.setTransactionSuccessful();
+            committed = true;
+        } catch (Exception e) {
+            Log.e("FavoriteDatabase", "Error al guardar el lote de favoritos: " + e.getMessage());
+            written = 0;
+        } finally {
+            db.endTransaction();
+            statement.close();
+            transactionEnded(db, committed);
+        }
 
-        // Insertar los valores en los campos de la tabla
-        values.put(COLUMN_ID, movie.getId());
-        values.put(COLUMN_TITLE, movie.getTitle());
-        values.put(COLUMN_IMAGEURL, movie.getImage());
-        values.put(COLUMN_RELEASEDATE, movie.getReleaseDate());
-        values.put(COLUMN_PLOT, movie.getPlot());
-        values.put(COLUMN_RATING, movie.getRating());
-        values.put(COLUMN_USERID, userId);
+        Log.d("FavoriteDatabase", "Lote de " + written + " favoritos guardado en "
+                + (SystemClock.elapsedRealtime() - start) + " ms");
+        return written;
+    }
+
+    /**
+     * Aplicar un lote de cambios remotos de favoritos y avanzar la marca de agua, todo en una transacción:
+     * si algo falla no se aplica nada y la siguiente sincronización vuelve a pedir los mismos cambios.
+     * Las películas con un cambio local aún en la cola de subida se saltan (y se quitan de las listas):
+     * manda el cambio local, y cuando se suba llegará de vuelta con un updatedAt posterior. La marca de agua
+     * puede pasar por encima del cambio saltado porque la cola siempre sube el estado local final de la película.
+     * @param userId ID del usuario
+     * @param upserts Películas añadidas o modificadas (lista modificable)
+     * @param deletedIds IDs de las películas borradas (marcadas como eliminadas en el servidor; lista modificable)
+     * @param watermark Mayor updatedAt aplicado (ms), o -1 para no moverla
+     * @return True si se guardó
+     */
+    public boolean applyFavoriteChanges(String userId, List<Movie> upserts, List<String> deletedIds, long watermark) {
+        long start = SystemClock.elapsedRealtime();
+        SQLiteDatabase db = this.getWritableDatabase();
+        boolean committed = false;
+        int removed = 0;
 
+        db.beginTransaction();
         try {
-            db.insert(TABLE_FAVORITES, null, values);
-            Log.d("FavoriteDatabase", "Película agregada con éxito: " + movie.getId());
+            Set<String> pendingLocal = new HashSet<>();
+            try (Cursor cursor = db.query(true, TABLE_OUTBOX, new String[]{"movieId"}, "userId = ?", new String[]{userId},
+                    null, null, null, null)) {
+                while (cursor.moveToNext()) {
+                    pendingLocal.add(cursor.getString(0));
+                }
+            }
+            if (!pendingLocal.isEmpty()) {
+                upserts.removeIf(movie -> movie == null || pendingLocal.contains(movie.getId()));
+                deletedIds.removeIf(pendingLocal::contains);
+            }
+
+            // Transacción anidada: si falla, se deshace también esta
+            if (!upserts.isEmpty() && upsertFavorites(upserts, userId) == 0) {
+                throw new IllegalStateException("No se pudo guardar el lote de favoritos");
+            }
+            if (!deletedIds.isEmpty()) {
+                SQLiteStatement delete = db.compileStatement("DELETE FROM " + TABLE_FAVORITES +
+                        " WHERE " + COLUMN_USERID + " = ? AND " + COLUMN_MOVIE_ID + " = ?");
+                try {
+                    for (String movieId : deletedIds) {
+                        delete.bindString(1, userId);
+                        delete.bindString(2, movieId);
+                        removed += delete.executeUpdateDelete();
+                    }
+                } finally {
+                    delete.close();
+                }
+                if (removed > 0) {
+                    invalidationTracker.markTouched(TABLE_FAVORITES);
+                }
+            }
+            if (watermark >= 0) {
+                ContentValues values = new ContentValues();
+                values.put("userId", userId);
+                values.put("scope", SYNC_SCOPE_FAVORITES);
+                values.put("watermark", watermark);
+                db.insertWithOnConflict(TABLE_SYNC_STATE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            db.setTransactionSuccessful();
+            committed = true;
         } catch (Exception e) {
-            Log.e("FavoriteDatabase", "Error al agregar película: " + e.getMessage());
+            Log.e("FavoriteDatabase", "Error al aplicar los cambios de favoritos: " + e.getMessage());
+        } finally {
+            db.endTransaction();
+            transactionEnded(db, committed);
         }
+
+        Log.d("FavoriteDatabase", "Cambios de favoritos aplicados: " + upserts.size() + " altas/cambios, " + removed
+                + " bajas en " + (SystemClock.elapsedRealtime() - start) + " ms");
+        return committed;
     }
 
     /**
-     * Eliminar una película de la lista de favoritos
+     * Obtener la marca de agua de una sincronización incremental
+     * @param userId ID del usuario
+     * @param scope Qué se sincroniza (por ejemplo {@link #SYNC_SCOPE_FAVORITES})
+     * @return updatedAt (ms) del último cambio aplicado, o -1 si nunca se ha sincronizado
+     */
+    public long getSyncWatermark(String userId, String scope) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        try {
+            return DatabaseUtils.longForQuery(db, "SELECT IFNULL(MAX(watermark), -1) FROM " + TABLE_SYNC_STATE +
+                    " WHERE userId = ? AND scope = ?", new String[]{userId, scope});
+        } catch (Exception e) {
+            Log.e("FavoriteDatabase", "Error al leer la marca de agua: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Anota las tablas modificadas por una escritura. Si no hay una transacción abierta
+     * (sentencia con autocommit) el cambio ya está confirmado y se avisa a los observadores.
+     * @param db Base de datos
+     * @param tables Tablas modificadas
+     */
+    private void tablesWritten(SQLiteDatabase db, String... tables) {
+        for (String table : tables) {
+            invalidationTracker.markTouched(table);
+        }
+        if (!db.inTransaction()) {
+            invalidationTracker.onCommitted();
+        }
+    }
+
+    /**
+     * Cierra el seguimiento de una transacción propia: avisa si se confirmó y descarta si se deshizo.
+     * Si estaba anidada en otra, el aviso espera a que termine la exterior.
+     * @param db Base de datos
+     * @param committed True si la transacción se marcó como correcta
+     */
+    private void transactionEnded(SQLiteDatabase db, boolean committed) {
+        if (db.inTransaction()) {
+            return;
+        }
+        if (committed) {
+            invalidationTracker.onCommitted();
+        } else {
+            invalidationTracker.onRolledBack();
+        }
+    }
+
+    /**
+     * Enlaza un texto que puede ser null en una sentencia compilada. Un texto vacío se enlaza como null:
+     * es un dato que no ha llegado, y en {@link #writeMovies} no debe borrar el que ya estaba guardado.
+     */
+    private static void bindNullable(SQLiteStatement statement, int index, String value) {
+        if (value == null || value.isEmpty()) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    /**
+     * Eliminar una película de la lista de favoritos. Sus datos se quedan en la tabla de películas,
+     * que otras pantallas y usuarios siguen usando.
      * @param movieId ID de la película
      * @param userId ID del usuario
+     * @return True si se guardó (también si no era favorita); false si falló y se deshizo todo
      */
-    public void removeFavorite(String movieId, String userId) {
+    public boolean removeFavorite(String movieId, String userId) {
         SQLiteDatabase db = this.getWritableDatabase(); // Obtener la base de datos de escritura
-        try {
-            String whereClause = COLUMN_ID + " = ? AND " + COLUMN_USERID + " = ?"; // Condición de eliminación
-            String[] whereArgs = {movieId, userId}; // Argumentos de la condición de eliminación
+        boolean committed = false;
 
-            db.delete(TABLE_FAVORITES, whereClause, whereArgs);// Ejecutar la eliminación
+        // La baja local y su entrada en la cola de subida van en la misma transacción
+        db.beginTransaction();
+        try {
+            String whereClause = COLUMN_USERID + " = ? AND " + COLUMN_MOVIE_ID + " = ?"; // Condición de eliminación
+            String[] whereArgs = {userId, movieId}; // Argumentos de la condición de eliminación
 
+            if (db.delete(TABLE_FAVORITES, whereClause, whereArgs) > 0) { // Ejecutar la eliminación
+                invalidationTracker.markTouched(TABLE_FAVORITES);
+                enqueueOutbox(db, userId, movieId, OutboxOperation.OP_REMOVE);
+            }
+            db.setTransactionSuccessful();
+            committed = true;
         } catch (Exception e) {
             Log.e("FavoriteDatabase", "Error al eliminar película: " + e.getMessage());
+        } finally {
+            db.endTransaction();
+            transactionEnded(db, committed);
         }
+        return committed;
     }
 
+    /**
+     * Encolar un cambio de favoritos. Si ya hay una entrada pendiente para la misma película, pasa a llevar
+     * la operación nueva: nunca se borra, porque aunque el alta no llegara a subir, Firestore puede tener
+     * el documento por otro dispositivo (su cambio se saltó en la sincronización por estar esta entrada pendiente)
+     * y solo la baja lo deja igual que la base local. Una entrada que ya está subiéndose no se toca.
+     * Debe llamarse dentro de una transacción.
+     * @param db Base de datos
+     * @param userId ID del usuario
+     * @param movieId ID de la película
+     * @param op {@link OutboxOperation#OP_ADD} o {@link OutboxOperation#OP_REMOVE}
+     */
+    private void enqueueOutbox(SQLiteDatabase db, String userId, String movieId, String op) {
+        ContentValues values = new ContentValues();
+        values.put("op", op); // Se conserva createdAt para medir cuánto lleva esperando el cambio
+        int updated = db.update(TABLE_OUTBOX, values, "userId = ? AND movieId = ? AND state = " + OUTBOX_PENDING,
+                new String[]{userId, movieId});
+        if (updated == 0) {
+            values.put("userId", userId);
+            values.put("movieId", movieId);
+            values.put("createdAt", System.currentTimeMillis());
+            db.insertOrThrow(TABLE_OUTBOX, null, values);
+        }
+        invalidationTracker.markTouched(TABLE_OUTBOX);
+    }
+
+    /**
+     * Reservar las siguientes operaciones pendientes de la cola para subirlas en un lote.
+     * Las altas llevan los datos actuales de la película.
+     * @param limit Número máximo de operaciones
+     * @return Operaciones reservadas, en orden de llegada
+     */
+    public List<OutboxOperation> claimOutbox(int limit) {
+        List<OutboxOperation> operations = new ArrayList<>();
+        SQLiteDatabase db = this.getWritableDatabase();
+        String sql = "SELECT o.id, o.userId, o.movieId, o.op, o.createdAt, " + MOVIE_COLUMNS +
+                " FROM " + TABLE_OUTBOX + " o LEFT JOIN " + TABLE_MOVIES + " m ON m." + COLUMN_ID + " = o.movieId" +
+                " WHERE o.state = " + OUTBOX_PENDING + " ORDER BY o.id LIMIT ?";
+
+        db.beginTransaction();
+        try {
+            try (Cursor cursor = db.rawQuery(sql, new String[]{String.valueOf(limit)})) {
+                while (cursor.moveToNext()) {
+                    String op = cursor.getString(3);
+                    Movie movie = null;
+                    if (OutboxOperation.OP_ADD.equals(op)) {
+                        movie = new Movie();
+                        movie.setId(cursor.getString(2));
+                        movie.setTitle(cursor.getString(6));
+                        movie.setImage(cursor.getString(7));
+                        movie.setReleaseDate(cursor.getString(8));
+                        movie.setPlot(cursor.getString(9));
+                        movie.setRating(cursor.getDouble(10));
+                    }
+                    operations.add(new OutboxOperation(cursor.getLong(0), cursor.getString(1), cursor.getString(2),
+                            op, cursor.getLong(4), movie));
+                }
+            }
+            setOutboxState(db, operations, OUTBOX_IN_FLIGHT);
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e("FavoriteDatabase", "Error al leer la cola de favoritos: " + e.getMessage());
+            operations.clear();
+        } finally {
+            db.endTransaction();
+        }
+        return operations;
+    }
+
+    /**
+     * Quitar de la cola las operaciones que Firestore ya ha confirmado
+     * @param operations Operaciones subidas
+     */
+    public void completeOutbox(List<OutboxOperation> operations) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement statement = db.compileStatement("DELETE FROM " + TABLE_OUTBOX + " WHERE id = ?");
+        boolean committed = false;
+        db.beginTransaction();
+        try {
+            for (OutboxOperation operation : operations) {
+                statement.bindLong(1, operation.getId());
+                statement.executeUpdateDelete();
+            }
+            invalidationTracker.markTouched(TABLE_OUTBOX);
+            db.setTransactionSuccessful();
+            committed = true;
+        } finally {
+            db.endTransaction();
+            statement.close();
+            transactionEnded(db, committed);
+        }
+    }
+
+    /**
+     * Devolver a pendientes unas operaciones cuyo lote ha fallado
+     * @param operations Operaciones reservadas
+     */
+    public void releaseOutbox(List<OutboxOperation> operations) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            setOutboxState(db, operations, OUTBOX_PENDING);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Devolver a pendientes las operaciones que quedaron reservadas cuando murió el proceso.
+     * Se llama al arrancar, antes de la primera subida.
+     * @return Número de operaciones recuperadas
+     */
+    public int resetOutboxClaims() {
+        SQLiteDatabase db = this.getWritableDatabase();
+        ContentValues values = new ContentValues();
+        values.put("state", OUTBOX_PENDING);
+        return db.update(TABLE_OUTBOX, values, "state = " + OUTBOX_IN_FLIGHT, null);
+    }
+
+    /**
+     * Número de operaciones en la cola (pendientes y en curso)
+     * @return Profundidad de la cola
+     */
+    public int countOutbox() {
+        return (int) DatabaseUtils.queryNumEntries(this.getReadableDatabase(), TABLE_OUTBOX);
+    }
+
+    /**
+     * Cambia el estado de un grupo de entradas de la cola. Debe llamarse dentro de una transacción.
+     */
+    private static void setOutboxState(SQLiteDatabase db, List<OutboxOperation> operations, int state) {
+        SQLiteStatement statement = db.compileStatement("UPDATE " + TABLE_OUTBOX + " SET state = ? WHERE id = ?");
+        try {
+            for (OutboxOperation operation : operations) {
+                statement.bindLong(1, state);
+                statement.bindLong(2, operation.getId());
+                statement.executeUpdateDelete();
+            }
+        } finally {
+            statement.close();
+        }
+    }
 
     /**
      * Agregar un usuario a la base de datos
@@ -241,11 +1209,10 @@ public class FavoriteDatabase extends SQLiteOpenHelper {
             values.put("phone", phone != null ? phone : "Sin Teléfono");
 
             db.insertWithOnConflict("users", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            tablesWritten(db, TABLE_USERS);
             Log.d("FavoriteDatabase", "Usuario agregado o actualizado: " + userId);
         } catch (Exception e) {
             Log.e("FavoriteDatabase", "Error al agregar el usuario: " + userId, e);
-        } finally {
-            db.close();
         }
     }
 
@@ -270,7 +1237,10 @@ public class FavoriteDatabase extends SQLiteOpenHelper {
         if (phone != null) values.put(COLUMN_PHONE, phone);
         if (image != null) values.put(COLUMN_IMAGE, image);
 
-        db.update(TABLE_USERS, values, COLUMN_USER_ID + "=?", new String[]{userId});    }
+        if (db.update(TABLE_USERS, values, COLUMN_USER_ID + "=?", new String[]{userId}) > 0) {
+            tablesWritten(db, TABLE_USERS);
+        }
+    }
 
     /**
      * Verificar si un usuario existe en la base de datos
@@ -317,6 +1287,139 @@ public class FavoriteDatabase extends SQLiteOpenHelper {
         return userData;
     }
 
+    /**
+     * Añadir un evento de sesión al diario local (solo se añade, nunca se reescribe)
+     * @param userId ID del usuario
+     * @param type Tipo de evento ({@link SessionEvent#TYPE_LOGIN} o {@link SessionEvent#TYPE_LOGOUT})
+     * @param time Fecha legible del evento
+     * @param timestamp Milisegundos desde epoch
+     * @return ID local del evento o -1 si falla
+     */
+    public long appendSessionEvent(String userId, String type, String time, long timestamp) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        ContentValues values = new ContentValues();
+        values.put("userId", userId);
+        values.put("type", type);
+        values.put("time", time);
+        values.put("timestamp", timestamp);
+        try {
+            long id = db.insertOrThrow(TABLE_SESSION_JOURNAL, null, values);
+            tablesWritten(db, TABLE_SESSION_JOURNAL);
+            return id;
+        } catch (Exception e) {
+            Log.e("FavoriteDatabase", "Error al guardar el evento de sesión: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Obtener el último evento de sesión de un usuario
+     * @param userId ID del usuario
+     * @return Último evento o null si no hay ninguno en el diario
+     */
+    public SessionEvent getLastSessionEvent(String userId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        try (Cursor cursor = db.query(TABLE_SESSION_JOURNAL, new String[]{"id", "userId", "type", "time", "timestamp"},
+                "userId = ?", new String[]{userId}, null, null, "id DESC", "1")) {
+            if (cursor.moveToFirst()) {
+                return new SessionEvent(cursor.getLong(0), cursor.getString(1), cursor.getString(2),
+                        cursor.getString(3), cursor.getLong(4));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Obtener los eventos de sesión pendientes de subir, en orden de llegada
+     * @param limit Número máximo de eventos
+     * @return Eventos pendientes
+     */
+    public List<SessionEvent> getPendingSessionEvents(int limit) {
+        List<SessionEvent> events = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        try (Cursor cursor = db.query(TABLE_SESSION_JOURNAL, new String[]{"id", "userId", "type", "time", "timestamp"},
+                "synced = 0", null, null, null, "id", String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                events.add(new SessionEvent(cursor.getLong(0), cursor.getString(1), cursor.getString(2),
+                        cursor.getString(3), cursor.getLong(4)));
+            }
+        } catch (Exception e) {
+            Log.e("FavoriteDatabase", "Error al leer el diario de sesiones: " + e.getMessage());
+        }
+        return events;
+    }
+
+    /**
+     * Marcar como subidos un lote de eventos de sesión
+     * @param events Eventos confirmados en Firestore
+     */
+    public void markSessionEventsSynced(List<SessionEvent> events) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        SQLiteStatement statement = db.compileStatement("UPDATE " + TABLE_SESSION_JOURNAL + " SET synced = 1 WHERE id = ?");
+        boolean committed = false;
+        db.beginTransaction();
+        try {
+            for (SessionEvent event : events) {
+                statement.bindLong(1, event.getId());
+                statement.executeUpdateDelete();
+            }
+            invalidationTracker.markTouched(TABLE_SESSION_JOURNAL);
+            db.setTransactionSuccessful();
+            committed = true;
+        } finally {
+            db.endTransaction();
+            statement.close();
+            transactionEnded(db, committed);
+        }
+    }
+
+    /**
+     * Compactar los eventos ya subidos anteriores a una fecha en un resumen por usuario y día,
+     * y borrarlos del diario. Todo en una transacción.
+     * @param beforeTimestamp Se compactan los eventos anteriores a este instante (ms)
+     * @return Número de eventos compactados
+     */
+    public int compactSessionJournal(long beforeTimestamp) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        String[] args = {String.valueOf(beforeTimestamp)};
+        String where = "synced = 1 AND timestamp < ?";
+        int compacted = 0;
+        boolean committed = false;
+
+        db.beginTransaction();
+        try {
+            // Asegurar la fila de cada día y sumar los contadores (la fecha empieza por "yyyy-MM-dd")
+            db.execSQL("INSERT OR IGNORE INTO " + TABLE_SESSION_SUMMARY + " (userId, day) " +
+                    "SELECT DISTINCT userId, substr(time, 1, 10) FROM " + TABLE_SESSION_JOURNAL + " WHERE " + where, args);
+            db.execSQL("UPDATE " + TABLE_SESSION_SUMMARY + " SET " +
+                    "logins = logins + (SELECT COUNT(*) FROM " + TABLE_SESSION_JOURNAL + " j WHERE j.userId = " + TABLE_SESSION_SUMMARY + ".userId" +
+                    " AND substr(j.time, 1, 10) = " + TABLE_SESSION_SUMMARY + ".day AND j.type = '" + SessionEvent.TYPE_LOGIN + "' AND j." + where + "), " +
+                    "logouts = logouts + (SELECT COUNT(*) FROM " + TABLE_SESSION_JOURNAL + " j WHERE j.userId = " + TABLE_SESSION_SUMMARY + ".userId" +
+                    " AND substr(j.time, 1, 10) = " + TABLE_SESSION_SUMMARY + ".day AND j.type = '" + SessionEvent.TYPE_LOGOUT + "' AND j." + where + "), " +
+                    "firstEvent = MIN(IFNULL(firstEvent, '9999'), (SELECT MIN(j.time) FROM " + TABLE_SESSION_JOURNAL + " j WHERE j.userId = " + TABLE_SESSION_SUMMARY + ".userId" +
+                    " AND substr(j.time, 1, 10) = " + TABLE_SESSION_SUMMARY + ".day AND j." + where + ")), " +
+                    "lastEvent = MAX(IFNULL(lastEvent, ''), (SELECT MAX(j.time) FROM " + TABLE_SESSION_JOURNAL + " j WHERE j.userId = " + TABLE_SESSION_SUMMARY + ".userId" +
+                    " AND substr(j.time, 1, 10) = " + TABLE_SESSION_SUMMARY + ".day AND j." + where + ")) " +
+                    "WHERE EXISTS (SELECT 1 FROM " + TABLE_SESSION_JOURNAL + " j WHERE j.userId = " + TABLE_SESSION_SUMMARY + ".userId" +
+                    " AND substr(j.time, 1, 10) = " + TABLE_SESSION_SUMMARY + ".day AND j." + where + ")",
+                    new Object[]{beforeTimestamp, beforeTimestamp, beforeTimestamp, beforeTimestamp, beforeTimestamp});
+            compacted = db.delete(TABLE_SESSION_JOURNAL, where, args);
+            if (compacted > 0) {
+                invalidationTracker.markTouched(TABLE_SESSION_JOURNAL);
+                invalidationTracker.markTouched(TABLE_SESSION_SUMMARY);
+            }
+            db.setTransactionSuccessful();
+            committed = true;
+        } catch (Exception e) {
+            Log.e("FavoriteDatabase", "Error al compactar el diario de sesiones: " + e.getMessage());
+            compacted = 0;
+        } finally {
+            db.endTransaction();
+            transactionEnded(db, committed);
+        }
+        return compacted;
+    }
+
     /**
      * Registrar un inicio de sesión
      * @param userId ID del usuario
@@ -1,23 +1,23 @@
 package edu.pmdm.vegas_laraimdbapp.database;
 
-import static android.content.ContentValues.TAG;
-
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.CollectionReference;
-import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import edu.pmdm.vegas_laraimdbapp.models.Movie;
+import edu.pmdm.vegas_laraimdbapp.sync.FavoritesOutbox;
 
 /**
  * Clase para gestionar las películas favoritas.
@@ -25,22 +25,35 @@ import edu.pmdm.vegas_laraimdbapp.models.Movie;
 public class FavoritesManager {
 
     private static final String DEFAULT_IMAGE = "android.resource://edu.pmdm.vegas_laraimdbapp/drawable/ic_android";
+
     private Context context;
 
     // Instancia única de la clase
     private static FavoritesManager instance;
     private FavoriteDatabase fBD; // Base de datos de películas favoritas
 
-    private FirebaseFirestore db; // Firestore
+    private final FavoritesOutbox outbox; // Cola de cambios pendientes de subir
     private String userId; // Usuario autenticado
 
+    // Índice en memoria de los IDs favoritos de cada usuario, para consultarlo al pintar sin tocar disco
+    private final Map<String, Set<String>> favoriteIds = new ConcurrentHashMap<>();
+    private final List<OnFavoritesChangedListener> listeners = new CopyOnWriteArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Listener para enterarse de cambios en el conjunto de favoritos (se llama en el hilo principal).
+     */
+    public interface OnFavoritesChangedListener {
+        void onFavoritesChanged();
+    }
+
     /**
      * Constructor privado para evitar instanciación externa
      * @param context Contexto de la aplicación
      */
     private FavoritesManager(Context context) {
-        fBD = new FavoriteDatabase(context);
-        db = FirebaseFirestore.getInstance();
+        fBD = FavoriteDatabase.getInstance(context);
+        outbox = FavoritesOutbox.getInstance(context);
         FirebaseAuth auth = FirebaseAuth.getInstance();
         if (auth.getCurrentUser() != null) {
             userId = auth.getCurrentUser().getUid();
@@ -59,6 +72,111 @@ public class FavoritesManager {
         return instance;
     }
 
+    /**
+     * Comprueba si una película es favorita del usuario autenticado.
+     * Solo consulta el índice en memoria: es seguro llamarlo al pintar cada elemento de una lista.
+     * Devuelve false mientras el índice no se haya cargado con {@link #loadFavoriteIds(Runnable)}.
+     * @param movieId ID de la película
+     * @return True si es favorita
+     */
+    public boolean isFavorite(String movieId) {
+        String currentUser = currentUserId();
+        if (currentUser == null || movieId == null) {
+            return false;
+        }
+        Set<String> ids = favoriteIds.get(currentUser);
+        return ids != null && ids.contains(movieId);
+    }
+
+    /**
+     * Carga una vez el índice de favoritos del usuario autenticado en segundo plano.
+     * @param onLoaded Acción a ejecutar en el hilo principal cuando el índice esté listo (puede ser null)
+     */
+    public void loadFavoriteIds(Runnable onLoaded) {
+        String currentUser = currentUserId();
+        if (currentUser == null || favoriteIds.containsKey(currentUser)) {
+            if (onLoaded != null) {
+                mainHandler.post(onLoaded);
+            }
+            return;
+        }
+        DatabaseExecutor.io().execute(() -> {
+            if (!favoriteIds.containsKey(currentUser)) {
+                Set<String> ids = ConcurrentHashMap.newKeySet();
+                ids.addAll(fBD.getFavoriteIds(currentUser));
+                favoriteIds.putIfAbsent(currentUser, ids);
+                Log.d("FavoritesManager", "Índice de favoritos cargado: " + ids.size() + " películas");
+            }
+            if (onLoaded != null) {
+                mainHandler.post(onLoaded);
+            }
+        });
+    }
+
+    public void addOnFavoritesChangedListener(OnFavoritesChangedListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeOnFavoritesChangedListener(OnFavoritesChangedListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Actualiza el índice en memoria y avisa a los listeners.
+     * Si el índice del usuario aún no se ha cargado no se toca: se leerá completo al cargarlo.
+     * @param userId ID del usuario
+     * @param added IDs añadidos (puede ser null)
+     * @param removedIds IDs eliminados (puede ser null)
+     */
+    private void updateIndex(String userId, List<Movie> added, List<String> removedIds) {
+        Set<String> ids = favoriteIds.get(userId);
+        if (ids != null) {
+            if (added != null) {
+                for (Movie movie : added) {
+                    if (movie != null && movie.getId() != null) {
+                        ids.add(movie.getId());
+                    }
+                }
+            }
+            if (removedIds != null) {
+                ids.removeAll(removedIds);
+            }
+        }
+        mainHandler.post(() -> {
+            for (OnFavoritesChangedListener listener : listeners) {
+                listener.onFavoritesChanged();
+            }
+        });
+    }
+
+    /**
+     * Guarda en SQLite, en una transacción, un lote de cambios recibido del almacén remoto
+     * y actualiza el índice en memoria. Las películas con cambios locales pendientes de subir se omiten.
+     * @param userId ID del usuario
+     * @param upserts Favoritos nuevos o modificados
+     * @param deletedIds IDs borrados
+     * @param watermark Nueva marca de agua o -1 para no tocarla
+     * @return true si se guardó
+     */
+    public boolean applySyncedChanges(String userId, List<Movie> upserts, List<String> deletedIds, long watermark) {
+        if (!fBD.applyFavoriteChanges(userId, upserts, deletedIds, watermark)) {
+            return false;
+        }
+        if (!upserts.isEmpty() || !deletedIds.isEmpty()) {
+            updateIndex(userId, upserts, deletedIds);
+        }
+        return true;
+    }
+
+    /**
+     * Obtener el ID del usuario autenticado
+     * @return ID o null si no hay sesión
+     */
+    private String currentUserId() {
+        FirebaseAuth auth = FirebaseAuth.getInstance();
+        return auth.getCurrentUser() != null ? auth.getCurrentUser().getUid() : null;
+    }
+
     /**
      * Agregar una película a la lista de favoritos
      * @param movie Película a agregar
@@ -74,26 +192,20 @@ public class FavoritesManager {
             return false;
         }
 
-        // Verifica el usuario antes de agregar
-        if (fBD.movieExists(movie.getId(), userId)) {
+        // Verifica el usuario antes de agregar (con el índice en memoria si ya está cargado)
+        Set<String> ids = favoriteIds.get(userId);
+        boolean exists = ids != null ? ids.contains(movie.getId()) : fBD.movieExists(movie.getId(), userId);
+        if (exists) {
             return true;
         } else {
-            fBD.addFavorite(movie, userId);
-
-            // Guardar en Firestore
-            CollectionReference favoritesRef = db.collection("favorites").document(userId).collection("movies");
-            Map<String, Object> movieData = new HashMap<>();
-            movieData.put("movieId", movie.getId());
-            movieData.put("title", movie.getTitle());
-            movieData.put("imageUrl", movie.getImage());
-            movieData.put("releaseDate", movie.getReleaseDate());
-            movieData.put("plot", movie.getPlot());
-            movieData.put("rating", movie.getRating());
-
-            favoritesRef.document(movie.getId()).set(movieData)
-                    .addOnSuccessListener(aVoid -> Log.d(TAG, "Película añadida a Firestore: " + movie.getTitle()))
-                    .addOnFailureListener(e -> Log.e(TAG, "Error al añadir a Firestore", e));
-
+            // Guardar en SQLite junto con el alta en la cola de subida a Firestore
+            if (!fBD.addFavorite(movie, userId)) {
+                return false; // Se deshizo: ni el índice ni la cola cambian
+            }
+            List<Movie> added = new ArrayList<>();
+            added.add(movie);
+            updateIndex(userId, added, null);
+            outbox.schedule();
 
             return false;
         }
@@ -109,15 +221,12 @@ public class FavoritesManager {
             return;
         }
 
-        fBD.removeFavorite(movie.getId(), userId);
-
-        // Eliminar de Firestore
-        db.collection("favorites").document(userId).collection("movies").document(movie.getId())
-                .delete()
-                .addOnSuccessListener(aVoid -> Log.d(TAG, "Película eliminada de Firestore"))
-                .addOnFailureListener(e -> Log.e(TAG, "Error al eliminar de Firestore", e));
-
-
+        // Borrar de SQLite junto con la baja en la cola de subida a Firestore
+        if (!fBD.removeFavorite(movie.getId(), userId)) {
+            return; // Se deshizo: sigue siendo favorita
+        }
+        updateIndex(userId, null, Collections.singletonList(movie.getId()));
+        outbox.schedule();
     }
 
     /**
@@ -162,69 +271,4 @@ public class FavoritesManager {
     public Map<String, String> getUserDetails(String userId) {
         return fBD.getUser(userId);
     }
-
-    /**
-     * Sincronizar las películas favoritas de Firestore con la base de datos local.
-     */
-    public void syncFavoritesFromFirestore() {
-        if (userId == null) {
-            Log.e("FavoritesManager", "No hay usuario autenticado.");
-            return;
-        }
-
-        CollectionReference favoritesRef = db.collection("favorites").document(userId).collection("movies");
-
-        favoritesRef.get().addOnCompleteListener(task -> {
-            if (task.isSuccessful() && task.getResult() != null) {
-                List<Movie> moviesFromFirestore = new ArrayList<>();
-                for (QueryDocumentSnapshot document : task.getResult()) {
-                    Movie movie = new Movie();
-                    movie.setId(document.getString("movieId"));
-                    movie.setTitle(document.getString("title"));
-                    movie.setImage(document.getString("imageUrl"));
-                    movie.setReleaseDate(document.getString("releaseDate"));
-                    movie.setPlot(document.getString("plot"));
-                    movie.setRating(document.getDouble("rating"));
-
-                    moviesFromFirestore.add(movie);
-                }
-
-                // Guardar en SQLite
-                for (Movie movie : moviesFromFirestore) {
-                    if (!fBD.movieExists(movie.getId(), userId)) {
-                        fBD.addFavorite(movie, userId);
-                    }
-                }
-
-                Log.d(TAG, "Sincronización de favoritos completada con éxito.");
-            } else {
-                Log.e(TAG, "Error al recuperar favoritos de Firestore", task.getException());
-            }
-        });
-    }
-
-    /**
-     * Escuchar cambios en las películas en tiempo real desde Firestore.
-     */
-    public void listenForMovieUpdates() {
-        db.collection("movies").addSnapshotListener((snapshots, e) -> {
-            if (e != null) {
-                Log.e("FavoritesManager", "Error al escuchar cambios en películas", e);
-                return;
-            }
-
-            if (snapshots != null) {
-                FavoriteDatabase database = new FavoriteDatabase(context);
-
-                for (DocumentSnapshot document : snapshots.getDocuments()) {
-                    Movie movie = document.toObject(Movie.class);
-                    database.addFavorite(movie, userId); // Guardar en SQLite
-                }
-
-                Log.d("FavoritesManager", "Películas actualizadas en tiempo real desde Firestore.");
-            }
-        });
-    }
-
-
 }
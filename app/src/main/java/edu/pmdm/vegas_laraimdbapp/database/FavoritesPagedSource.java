@@ -0,0 +1,193 @@
+package edu.pmdm.vegas_laraimdbapp.database;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.SparseArray;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
+
+/**
+ * Fuente paginada sobre la tabla de favoritos.
+ * Carga páginas de tamaño fijo alrededor de la posición visible y descarta las que quedan lejos,
+ * de modo que la memoria no crece con el tamaño de la biblioteca.
+ * Si hay una búsqueda activa, las páginas salen del índice de texto completo en lugar de la tabla.
+ * Todos los métodos públicos y el listener se ejecutan en el hilo principal.
+ */
+public class FavoritesPagedSource {
+
+    // Tamaño de página y número de páginas que se conservan a cada lado de la visible
+    private static final int PAGE_SIZE = 30;
+    private static final int KEEP_PAGES_AROUND = 2;
+
+    private final FavoriteDatabase database;
+    private final String userId;
+    private final Listener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private final SparseArray<List<Movie>> pages = new SparseArray<>(); // Páginas cargadas por número
+    private final Set<Integer> loading = new HashSet<>(); // Páginas pidiéndose a la base de datos
+    private String query; // Búsqueda activa (null para mostrar todos los favoritos)
+    private int count = 0; // Número total de favoritos (o de resultados de la búsqueda)
+    private int generation = 0; // Se incrementa al invalidar para descartar resultados antiguos
+
+    /**
+     * Listener de cambios en la fuente, para aplicarlos al adaptador.
+     */
+    public interface Listener {
+        /**
+         * Se ha recalculado el total de elementos; hay que redibujar la lista completa.
+         * @param count Número total de favoritos.
+         */
+        void onCountChanged(int count);
+
+        /**
+         * Se ha cargado un rango de elementos que antes se pintaban como marcador.
+         * @param start Primera posición.
+         * @param itemCount Número de elementos.
+         */
+        void onRangeLoaded(int start, int itemCount);
+    }
+
+    /**
+     * Constructor
+     * @param context Contexto
+     * @param userId ID del usuario
+     * @param listener Listener de cambios
+     */
+    public FavoritesPagedSource(Context context, String userId, Listener listener) {
+        this.database = FavoriteDatabase.getInstance(context);
+        this.userId = userId;
+        this.listener = listener;
+    }
+
+    /**
+     * Número total de elementos conocido.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Devuelve el elemento de una posición. Si su página no está cargada se pide en segundo plano
+     * y se devuelve null para que se pinte un marcador.
+     * @param position Posición en la lista
+     * @return Película (solo ID, título y carátula) o null si aún no está cargada
+     */
+    public Movie getItem(int position) {
+        int pageIndex = position / PAGE_SIZE;
+        loadAround(pageIndex);
+
+        List<Movie> page = pages.get(pageIndex);
+        int offset = position % PAGE_SIZE;
+        if (page == null || offset >= page.size()) {
+            return null;
+        }
+        return page.get(offset);
+    }
+
+    /**
+     * Cambia la búsqueda activa y recarga los datos.
+     * @param query Texto a buscar (null o vacío para mostrar todos los favoritos)
+     */
+    public void setQuery(String query) {
+        String normalized = query == null || query.trim().isEmpty() ? null : query.trim();
+        if (normalized == null ? this.query == null : normalized.equals(this.query)) {
+            return;
+        }
+        this.query = normalized;
+        invalidate();
+    }
+
+    /**
+     * Aplica un cambio en la tabla de favoritos ya contado por el observador.
+     * Sin búsqueda activa se reutiliza el total recibido; con búsqueda hay que volver a contar los resultados.
+     * @param totalCount Número total de favoritos
+     */
+    public void onFavoritesChanged(int totalCount) {
+        if (query != null) {
+            invalidate();
+            return;
+        }
+        generation++;
+        pages.clear();
+        loading.clear();
+        count = totalCount;
+        listener.onCountChanged(totalCount);
+    }
+
+    /**
+     * Descarta todas las páginas y vuelve a contar los elementos (tras añadir o eliminar favoritos).
+     */
+    public void invalidate() {
+        int requestGeneration = ++generation;
+        String currentQuery = query;
+        pages.clear();
+        loading.clear();
+        DatabaseExecutor.io().execute(() -> {
+            int newCount = currentQuery == null
+                    ? database.countFavorites(userId)
+                    : database.countSearchResults(userId, currentQuery);
+            mainHandler.post(() -> {
+                if (requestGeneration != generation) {
+                    return; // Hubo otra invalidación mientras tanto
+                }
+                count = newCount;
+                listener.onCountChanged(newCount);
+            });
+        });
+    }
+
+    /**
+     * Asegura que la página pedida y sus vecinas estén cargadas y descarta las lejanas.
+     * @param pageIndex Página visible
+     */
+    private void loadAround(int pageIndex) {
+        int lastPage = count == 0 ? 0 : (count - 1) / PAGE_SIZE;
+        for (int i = Math.max(0, pageIndex - 1); i <= Math.min(lastPage, pageIndex + 1); i++) {
+            loadPage(i);
+        }
+        evictFarFrom(pageIndex);
+    }
+
+    private void loadPage(int pageIndex) {
+        if (pages.get(pageIndex) != null || loading.contains(pageIndex)) {
+            return;
+        }
+        loading.add(pageIndex);
+        int requestGeneration = generation;
+        String currentQuery = query;
+        DatabaseExecutor.io().execute(() -> {
+            List<Movie> page = currentQuery == null
+                    ? database.getFavoritesPage(userId, pageIndex * PAGE_SIZE, PAGE_SIZE)
+                    : database.searchFavorites(userId, currentQuery, pageIndex * PAGE_SIZE, PAGE_SIZE);
+            mainHandler.post(() -> {
+                if (requestGeneration != generation) {
+                    return; // Resultado de antes de una invalidación
+                }
+                loading.remove(pageIndex);
+                pages.put(pageIndex, page);
+                int start = pageIndex * PAGE_SIZE;
+                int itemCount = Math.min(page.size(), Math.max(0, count - start));
+                if (itemCount > 0) {
+                    listener.onRangeLoaded(start, itemCount);
+                }
+            });
+        });
+    }
+
+    /**
+     * Libera las páginas que quedan a más de {@link #KEEP_PAGES_AROUND} de la visible.
+     */
+    private void evictFarFrom(int pageIndex) {
+        for (int i = pages.size() - 1; i >= 0; i--) {
+            if (Math.abs(pages.keyAt(i) - pageIndex) > KEEP_PAGES_AROUND) {
+                pages.removeAt(i);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package edu.pmdm.vegas_laraimdbapp.database;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registra qué tablas toca cada transacción de escritura de {@link FavoriteDatabase}
+ * y avisa a los observadores interesados en ellas cuando se confirma.
+ * Los avisos se agrupan: varias escrituras seguidas generan una sola notificación en el hilo principal.
+ */
+public class InvalidationTracker {
+
+    /**
+     * Observador de cambios en un conjunto de tablas.
+     */
+    public abstract static class Observer {
+        final Set<String> tables;
+
+        /**
+         * Constructor
+         * @param tables Tablas que interesan al observador
+         */
+        protected Observer(String... tables) {
+            Set<String> set = new HashSet<>();
+            Collections.addAll(set, tables);
+            this.tables = Collections.unmodifiableSet(set);
+        }
+
+        /**
+         * Se llama en el hilo principal cuando alguna de las tablas ha cambiado.
+         * @param tables Tablas modificadas que interesan al observador
+         */
+        public abstract void onInvalidated(Set<String> tables);
+    }
+
+    private final List<Observer> observers = new CopyOnWriteArrayList<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Tablas tocadas por la transacción en curso de cada hilo
+    private final ThreadLocal<Set<String>> pendingTables = new ThreadLocal<Set<String>>() {
+        @Override
+        protected Set<String> initialValue() {
+            return new HashSet<>();
+        }
+    };
+
+    // Tablas confirmadas a la espera de notificarse
+    private final Set<String> invalidated = new HashSet<>();
+    private boolean dispatchScheduled = false;
+
+    public void addObserver(Observer observer) {
+        observers.add(observer);
+    }
+
+    public void removeObserver(Observer observer) {
+        observers.remove(observer);
+    }
+
+    /**
+     * Anota que la transacción en curso del hilo ha escrito en una tabla.
+     * @param table Nombre de la tabla
+     */
+    void markTouched(String table) {
+        pendingTables.get().add(table);
+    }
+
+    /**
+     * La transacción del hilo se ha confirmado: programa el aviso de las tablas tocadas.
+     */
+    void onCommitted() {
+        Set<String> tables = pendingTables.get();
+        if (tables.isEmpty()) {
+            return;
+        }
+        synchronized (invalidated) {
+            invalidated.addAll(tables);
+            if (!dispatchScheduled) {
+                dispatchScheduled = true;
+                mainHandler.post(this::dispatch);
+            }
+        }
+        tables.clear();
+    }
+
+    /**
+     * La transacción del hilo se ha deshecho: se descartan las tablas anotadas.
+     */
+    void onRolledBack() {
+        pendingTables.get().clear();
+    }
+
+    /**
+     * Notifica a cada observador solo las tablas que le interesan.
+     */
+    private void dispatch() {
+        Set<String> tables;
+        synchronized (invalidated) {
+            tables = new HashSet<>(invalidated);
+            invalidated.clear();
+            dispatchScheduled = false;
+        }
+        for (Observer observer : observers) {
+            Set<String> matching = new HashSet<>(observer.tables);
+            matching.retainAll(tables);
+            if (!matching.isEmpty()) {
+                observer.onInvalidated(matching);
+            }
+        }
+    }
+}
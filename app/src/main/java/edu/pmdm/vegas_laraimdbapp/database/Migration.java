@@ -0,0 +1,30 @@
+package edu.pmdm.vegas_laraimdbapp.database;
+
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * Paso de migración del esquema de {@link FavoriteDatabase}.
+ * Cada migración lleva la base de datos desde la versión anterior hasta {@link #version}.
+ * Se ejecuta junto con las demás pendientes dentro de la transacción de onUpgrade: no se confirma por separado.
+ */
+public abstract class Migration {
+
+    public final int version; // Versión del esquema tras aplicar la migración
+    public final String description; // Descripción para los logs
+
+    /**
+     * Constructor
+     * @param version Versión resultante
+     * @param description Descripción del cambio
+     */
+    protected Migration(int version, String description) {
+        this.version = version;
+        this.description = description;
+    }
+
+    /**
+     * Aplica el cambio de esquema. No debe abrir ni cerrar transacciones.
+     * @param db Base de datos
+     */
+    public abstract void migrate(SQLiteDatabase db);
+}
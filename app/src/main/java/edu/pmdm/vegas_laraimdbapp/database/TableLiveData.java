@@ -0,0 +1,85 @@
+package edu.pmdm.vegas_laraimdbapp.database;
+
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * LiveData que ejecuta una consulta en segundo plano y la repite cuando cambian las tablas de las que depende.
+ * Solo observa el {@link InvalidationTracker} mientras está activa; si hubo cambios estando inactiva,
+ * vuelve a consultar una sola vez al reactivarse.
+ * @param <T> Tipo del resultado
+ */
+public class TableLiveData<T> extends LiveData<T> {
+
+    private static final String TAG = "TableLiveData";
+
+    private final InvalidationTracker tracker;
+    private final Callable<T> query;
+    private final InvalidationTracker.Observer observer;
+    private final AtomicBoolean stale = new AtomicBoolean(true); // Hay que consultar al activarse
+    private final AtomicBoolean running = new AtomicBoolean(false); // Consulta en curso
+
+    /**
+     * Constructor
+     * @param tracker Tracker de la base de datos
+     * @param query Consulta a ejecutar (en segundo plano)
+     * @param tables Tablas de las que depende la consulta
+     */
+    public TableLiveData(InvalidationTracker tracker, Callable<T> query, String... tables) {
+        this.tracker = tracker;
+        this.query = query;
+        this.observer = new InvalidationTracker.Observer(tables) {
+            @Override
+            public void onInvalidated(Set<String> changed) {
+                stale.set(true);
+                if (hasActiveObservers()) {
+                    refresh();
+                }
+            }
+        };
+    }
+
+    @Override
+    protected void onActive() {
+        tracker.addObserver(observer);
+        if (stale.get()) {
+            refresh();
+        }
+    }
+
+    @Override
+    protected void onInactive() {
+        tracker.removeObserver(observer);
+    }
+
+    /**
+     * Repite la consulta si hace falta. Si ya hay una en curso, al terminar comprobará si volvió a invalidarse.
+     */
+    private void refresh() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        DatabaseExecutor.io().execute(() -> {
+            try {
+                while (stale.compareAndSet(true, false)) {
+                    postValue(query.call());
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error al ejecutar la consulta observada", e);
+            } finally {
+                running.set(false);
+                // Si se invalidó justo al terminar, se vuelve a consultar desde el hilo principal
+                DatabaseExecutor.main().execute(() -> {
+                    if (stale.get() && hasActiveObservers()) {
+                        refresh();
+                    }
+                });
+            }
+        });
+    }
+}
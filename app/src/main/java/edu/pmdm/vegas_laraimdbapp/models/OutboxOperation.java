@@ -0,0 +1,52 @@
+package edu.pmdm.vegas_laraimdbapp.models;
+
+/**
+ * Cambio de favoritos guardado en la cola local (outbox) a la espera de subirse a Firestore.
+ */
+public class OutboxOperation {
+
+    public static final String OP_ADD = "add";
+    public static final String OP_REMOVE = "remove";
+
+    private final long id; // ID local (rowid de la cola)
+    private final String userId;
+    private final String movieId;
+    private final String op;
+    private final long createdAt; // Milisegundos desde epoch en que se encoló
+    private final Movie movie; // Datos de la película para las altas (null en las bajas)
+
+    public OutboxOperation(long id, String userId, String movieId, String op, long createdAt, Movie movie) {
+        this.id = id;
+        this.userId = userId;
+        this.movieId = movieId;
+        this.op = op;
+        this.createdAt = createdAt;
+        this.movie = movie;
+    }
+
+    // Getters
+
+    public long getId() {
+        return id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getMovieId() {
+        return movieId;
+    }
+
+    public String getOp() {
+        return op;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public Movie getMovie() {
+        return movie;
+    }
+}
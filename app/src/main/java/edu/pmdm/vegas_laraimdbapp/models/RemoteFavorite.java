@@ -0,0 +1,38 @@
+package edu.pmdm.vegas_laraimdbapp.models;
+
+/**
+ * Estado remoto de un favorito tal como lo devuelve el almacén remoto: una película guardada
+ * o un borrado lógico, con la hora del servidor de su último cambio.
+ */
+public class RemoteFavorite {
+
+    private final String movieId;
+    private final Movie movie; // Datos de la película (null en los borrados)
+    private final boolean deleted;
+    private final long updatedAt; // Milisegundos desde epoch, 0 en los documentos antiguos sin marca
+
+    public RemoteFavorite(String movieId, Movie movie, boolean deleted, long updatedAt) {
+        this.movieId = movieId;
+        this.movie = movie;
+        this.deleted = deleted;
+        this.updatedAt = updatedAt;
+    }
+
+    // Getters
+
+    public String getMovieId() {
+        return movieId;
+    }
+
+    public Movie getMovie() {
+        return movie;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public long getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,46 @@
+package edu.pmdm.vegas_laraimdbapp.models;
+
+/**
+ * Evento de sesión (inicio o cierre) guardado en el diario local antes de subirse a Firestore.
+ */
+public class SessionEvent {
+
+    public static final String TYPE_LOGIN = "login";
+    public static final String TYPE_LOGOUT = "logout";
+
+    private final long id; // ID local (rowid del diario)
+    private final String userId;
+    private final String type;
+    private final String time; // Fecha legible "yyyy-MM-dd HH:mm:ss"
+    private final long timestamp; // Milisegundos desde epoch
+
+    public SessionEvent(long id, String userId, String type, String time, long timestamp) {
+        this.id = id;
+        this.userId = userId;
+        this.type = type;
+        this.time = time;
+        this.timestamp = timestamp;
+    }
+
+    // Getters
+
+    public long getId() {
+        return id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getTime() {
+        return time;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+}
@@ -151,9 +151,12 @@ public class TMDBMovie {
 
     /**
      * Obtiene la URL completa de la imagen del póster de la película
-     * @return URL del póster de la película.
+     * @return URL del póster de la película, o null si no tiene póster.
      */
     public String getFullImageUrl() {
+        if (this.posterPath == null || this.posterPath.isEmpty()) {
+            return null;
+        }
         return "https://image.tmdb.org/t/p/w500" + this.posterPath;
     }
 
@@ -168,7 +171,7 @@ public class TMDBMovie {
         movie.setTitle(this.title);
         movie.setImage(getFullImageUrl());
         movie.setReleaseDate(this.releaseDate);
-        movie.setPlot(this.overview != null ? this.overview : "Descripción no disponible");
+        movie.setPlot(this.overview); // Sin sinopsis queda null; el texto por defecto se pone al mostrarla
         movie.setRating(this.rating > 0 ? this.rating : -1.0);
         return movie;
     }
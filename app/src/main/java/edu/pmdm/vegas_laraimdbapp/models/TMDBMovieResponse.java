@@ -1,9 +1,20 @@
 package edu.pmdm.vegas_laraimdbapp.models;
 
+import com.google.gson.annotations.SerializedName;
+
 import java.util.List;
 
 public class TMDBMovieResponse {
 
+    // Página devuelta y metadatos de paginación
+    @SerializedName("page")
+    private int page;
+
+    @SerializedName("total_pages")
+    private int totalPages;
+
+    @SerializedName("total_results")
+    private int totalResults;
 
     private List<TMDBMovie> results;
 
@@ -16,4 +27,19 @@ public class TMDBMovieResponse {
     public void setResults(List<TMDBMovie> results) {
         this.results = results;
     }
-}
\ No newline at end of file
+
+    // Método para obtener el número de página devuelto
+    public int getPage() {
+        return page;
+    }
+
+    // Método para obtener el número total de páginas
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    // Método para obtener el número total de resultados
+    public int getTotalResults() {
+        return totalResults;
+    }
+}
@@ -0,0 +1,148 @@
+package edu.pmdm.vegas_laraimdbapp.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import edu.pmdm.vegas_laraimdbapp.api.RapidApiKeyManager;
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
+
+/**
+ * Precarga en segundo plano los detalles de las películas visibles para que la pantalla
+ * de detalles se abra al instante. Limita la concurrencia, cede el paso a las peticiones
+ * del usuario y respeta el presupuesto del pool de API Keys: sin presupuesto se detiene
+ * hasta la siguiente precarga encolada o hasta que se reinicie la cuota de alguna key.
+ * Todo el estado se maneja en el hilo principal.
+ */
+public class DetailPrefetcher {
+
+    private static final String TAG = "DetailPrefetcher";
+
+    // Cuota que se deja libre en cada key para las peticiones del usuario
+    private static final int QUOTA_RESERVE = 20;
+    // Espera antes de volver a intentarlo cuando hay que ceder el paso
+    private static final long BACKOFF_MS = 500;
+    // Precargas simultáneas permitidas
+    private static final int MAX_CONCURRENT = 2;
+
+    private static DetailPrefetcher instance; // Instancia única
+
+    private final MovieDetailsRepository repository;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Deque<String> queue = new ArrayDeque<>(); // IDs pendientes de precargar
+    private final Runnable pumpRunnable = this::pump;
+    private int active = 0; // Precargas en curso
+
+    /**
+     * Constructor privado
+     * @param repository Repositorio de detalles
+     */
+    private DetailPrefetcher(MovieDetailsRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Obtener la instancia única del precargador
+     * @return Instancia del precargador
+     */
+    public static synchronized DetailPrefetcher getInstance() {
+        if (instance == null) {
+            instance = new DetailPrefetcher(MovieDetailsRepository.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Encola la precarga de los detalles de las primeras películas de la lista.
+     * Sustituye cualquier precarga pendiente anterior.
+     * @param movies Películas visibles
+     * @param topN Número de películas a precargar
+     */
+    public void prefetch(List<Movie> movies, int topN) {
+        queue.clear();
+        int max = Math.min(movies.size(), topN);
+        for (int i = 0; i < max; i++) {
+            String id = movies.get(i).getId();
+            if (id != null && repository.getCached(id) == null) {
+                queue.add(id);
+            }
+        }
+        pump();
+    }
+
+    /**
+     * Cancela las precargas pendientes (las que ya están en curso terminan).
+     * Debe llamarse al destruir la vista que las pidió.
+     */
+    public void cancel() {
+        queue.clear();
+        handler.removeCallbacks(pumpRunnable);
+    }
+
+    /**
+     * Lanza precargas mientras haya hueco, presupuesto y ninguna petición del usuario esperando.
+     */
+    private void pump() {
+        handler.removeCallbacks(pumpRunnable);
+        while (active < MAX_CONCURRENT && !queue.isEmpty()) {
+            if (repository.hasUserRequestsInFlight()) {
+                handler.postDelayed(pumpRunnable, BACKOFF_MS); // Cedemos el paso y reintentamos luego
+                return;
+            }
+            if (!RapidApiKeyManager.hasBackgroundBudget(QUOTA_RESERVE)) {
+                waitForBudget();
+                return;
+            }
+
+            String tconst = queue.poll();
+            if (repository.getCached(tconst) != null) {
+                continue; // Ya se cargó por otra vía
+            }
+
+            active++;
+            repository.prefetch(tconst, new MovieDetailsRepository.DetailsCallback() {
+                @Override
+                public void onDetails(Movie movie) {
+                    onPrefetchDone();
+                }
+
+                @Override
+                public void onError(String message) {
+                    Log.w(TAG, "Precarga fallida de " + tconst + ": " + message);
+                    onPrefetchDone();
+                }
+            });
+        }
+    }
+
+    /**
+     * Programa el siguiente intento cuando no hay presupuesto. Si solo falta un token del limitador
+     * se espera a que se recupere; si las keys están agotadas o bloqueadas, se espera a que se reinicie
+     * la cuota de la primera. Si aún tienen cuota pero por debajo de la reserva, se para hasta la siguiente
+     * llamada a {@link #prefetch(List, int)}, en lugar de seguir comprobándolo cada poco tiempo.
+     */
+    private void waitForBudget() {
+        long tokenWait = RapidApiKeyManager.millisUntilToken();
+        if (tokenWait > 0) {
+            handler.postDelayed(pumpRunnable, tokenWait);
+        } else if (RapidApiKeyManager.allKeysExhausted()) {
+            long resetWait = RapidApiKeyManager.millisUntilAvailable();
+            Log.d(TAG, "Precarga en pausa hasta que se reinicie la cuota (" + resetWait / 1000 + " s)");
+            handler.postDelayed(pumpRunnable, Math.max(resetWait, BACKOFF_MS));
+        } else {
+            Log.d(TAG, "Precarga en pausa: cuota por debajo de la reserva del usuario");
+        }
+    }
+
+    /**
+     * Libera el hueco de una precarga terminada y continúa con la cola.
+     */
+    private void onPrefetchDone() {
+        active--;
+        pump();
+    }
+}
@@ -0,0 +1,92 @@
+package edu.pmdm.vegas_laraimdbapp.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import edu.pmdm.vegas_laraimdbapp.models.TMDBMovieResponse;
+
+/**
+ * Caché en disco de las páginas de resultados de discover/movie de TMDB,
+ * identificadas por (género, año, idioma, página).
+ * Sus métodos hacen E/S: deben llamarse fuera del hilo principal.
+ */
+public class DiscoverPageCache {
+
+    private static final String TAG = "DiscoverPageCache";
+    private static final String DIR_NAME = "discover_pages";
+    private static final long TTL_MS = 24 * 60 * 60 * 1000L; // Un día
+
+    private final File dir;
+    private final Gson gson = new Gson();
+
+    /**
+     * Constructor
+     * @param context Contexto de la aplicación
+     */
+    public DiscoverPageCache(Context context) {
+        dir = new File(context.getApplicationContext().getCacheDir(), DIR_NAME);
+    }
+
+    /**
+     * Lee una página guardada.
+     * @return Página o null si no existe o ha caducado.
+     */
+    public TMDBMovieResponse read(String genreId, String year, String language, int page) {
+        File file = fileFor(genreId, year, language, page);
+        if (!file.exists()) {
+            return null;
+        }
+        if (System.currentTimeMillis() - file.lastModified() > TTL_MS) {
+            file.delete(); // Página caducada
+            return null;
+        }
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, TMDBMovieResponse.class);
+        } catch (Exception e) {
+            Log.e(TAG, "Error al leer la página " + file.getName(), e);
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Guarda una página.
+     */
+    public void write(String genreId, String year, String language, int page, TMDBMovieResponse response) {
+        if (!dir.exists() && !dir.mkdirs()) {
+            return;
+        }
+        File file = fileFor(genreId, year, language, page);
+        File tmp = new File(dir, file.getName() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            gson.toJson(response, writer);
+        } catch (Exception e) {
+            Log.e(TAG, "Error al guardar la página " + file.getName(), e);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+        }
+    }
+
+    private File fileFor(String genreId, String year, String language, int page) {
+        String name = sanitize(genreId) + "_" + sanitize(year) + "_" + sanitize(language) + "_" + page + ".json";
+        return new File(dir, name);
+    }
+
+    private static String sanitize(String value) {
+        return value == null ? "" : value.replaceAll("[^A-Za-z0-9-]", "");
+    }
+}
@@ -0,0 +1,241 @@
+package edu.pmdm.vegas_laraimdbapp.repository;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import edu.pmdm.vegas_laraimdbapp.api.ApiClientTMDB;
+import edu.pmdm.vegas_laraimdbapp.api.TMDBApiService;
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
+import edu.pmdm.vegas_laraimdbapp.models.TMDBMovie;
+import edu.pmdm.vegas_laraimdbapp.models.TMDBMovieResponse;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Motor de paginación para los resultados de discover/movie de TMDB.
+ * Mantiene en memoria una ventana acotada de páginas contiguas, carga la siguiente (o la anterior)
+ * antes de que el usuario llegue al borde y guarda cada página en disco.
+ * Los métodos públicos y los callbacks del listener se ejecutan en el hilo principal.
+ */
+public class DiscoverPager {
+
+    private static final String TAG = "DiscoverPager";
+
+    // Número máximo de páginas que se mantienen en memoria
+    private static final int MAX_PAGES_IN_MEMORY = 5;
+
+    // Ejecutor compartido para la E/S de la caché en disco
+    private static final ExecutorService diskExecutor = Executors.newSingleThreadExecutor();
+
+    private final TMDBApiService apiService;
+    private final DiscoverPageCache diskCache;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final String genreId;
+    private final String year;
+    private final String language;
+    private final Listener listener;
+
+    private final Deque<Page> window = new ArrayDeque<>(); // Páginas cargadas, en orden
+    private int totalPages = Integer.MAX_VALUE; // Se conoce tras la primera respuesta
+    private boolean loadingNext = false;
+    private boolean loadingPrevious = false;
+    private boolean released = false;
+
+    /**
+     * Listener con los cambios en la ventana de páginas, para aplicarlos al adaptador.
+     */
+    public interface Listener {
+        void onPageAppended(List<Movie> movies);
+
+        void onPagePrepended(List<Movie> movies);
+
+        void onItemsDroppedFromStart(int count);
+
+        void onItemsDroppedFromEnd(int count);
+
+        void onError(String message);
+    }
+
+    /**
+     * Página cargada en memoria.
+     */
+    private static class Page {
+        final int number;
+        final List<Movie> movies;
+
+        Page(int number, List<Movie> movies) {
+            this.number = number;
+            this.movies = movies;
+        }
+    }
+
+    /**
+     * Constructor
+     * @param context Contexto
+     * @param genreId ID del género
+     * @param year Año de estreno
+     * @param language Idioma de los resultados
+     * @param listener Listener de cambios
+     */
+    public DiscoverPager(Context context, String genreId, String year, String language, Listener listener) {
+        this.apiService = ApiClientTMDB.getClient().create(TMDBApiService.class);
+        this.diskCache = new DiscoverPageCache(context);
+        this.genreId = genreId;
+        this.year = year;
+        this.language = language;
+        this.listener = listener;
+    }
+
+    /**
+     * Carga la siguiente página a la última de la ventana (o la primera si está vacía).
+     */
+    public void loadNext() {
+        int next = window.isEmpty() ? 1 : window.peekLast().number + 1;
+        if (loadingNext || released || next > totalPages) {
+            return;
+        }
+        loadingNext = true;
+        loadPage(next, true);
+    }
+
+    /**
+     * Carga la página anterior a la primera de la ventana, si se descartó al bajar.
+     */
+    public void loadPrevious() {
+        if (loadingPrevious || released || !canLoadPrevious()) {
+            return;
+        }
+        loadingPrevious = true;
+        loadPage(window.peekFirst().number - 1, false);
+    }
+
+    /**
+     * Indica si hay páginas anteriores descartadas de la ventana.
+     */
+    public boolean canLoadPrevious() {
+        return !window.isEmpty() && window.peekFirst().number > 1;
+    }
+
+    /**
+     * Indica si quedan páginas por cargar al final.
+     */
+    public boolean hasMore() {
+        return window.isEmpty() || window.peekLast().number < totalPages;
+    }
+
+    /**
+     * Deja de entregar resultados (por ejemplo, al destruir la actividad).
+     */
+    public void release() {
+        released = true;
+    }
+
+    /**
+     * Carga una página desde disco o, si no está, desde la red.
+     * @param page Número de página
+     * @param append True si va al final de la ventana, false si va al principio
+     */
+    private void loadPage(int page, boolean append) {
+        diskExecutor.execute(() -> {
+            TMDBMovieResponse cached = diskCache.read(genreId, year, language, page);
+            mainHandler.post(() -> {
+                if (cached != null && cached.getResults() != null) {
+                    deliver(page, cached, append);
+                } else {
+                    fetchFromNetwork(page, append);
+                }
+            });
+        });
+    }
+
+    /**
+     * Pide una página a la API de TMDB.
+     */
+    private void fetchFromNetwork(int page, boolean append) {
+        apiService.discoverMovies(language, false, page, genreId, year)
+                .enqueue(new Callback<TMDBMovieResponse>() {
+                    @Override
+                    public void onResponse(Call<TMDBMovieResponse> call, Response<TMDBMovieResponse> response) {
+                        if (response.isSuccessful() && response.body() != null && response.body().getResults() != null) {
+                            TMDBMovieResponse body = response.body();
+                            diskExecutor.execute(() -> diskCache.write(genreId, year, language, page, body));
+                            deliver(page, body, append);
+                        } else {
+                            fail(append, "Código de respuesta: " + response.code());
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Call<TMDBMovieResponse> call, Throwable t) {
+                        fail(append, t.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Añade la página a la ventana y descarta las que quedan lejos.
+     * Las cargas hacia arriba y hacia abajo pueden ir a la vez: si mientras tanto la otra movió el borde
+     * y la página ya no es contigua, se ignora (queda en disco) para no dejar un hueco en la lista.
+     */
+    private void deliver(int page, TMDBMovieResponse response, boolean append) {
+        if (append) {
+            loadingNext = false;
+        } else {
+            loadingPrevious = false;
+        }
+        if (released) {
+            return;
+        }
+        int expected = append
+                ? (window.isEmpty() ? 1 : window.peekLast().number + 1)
+                : (window.isEmpty() ? -1 : window.peekFirst().number - 1);
+        if (page != expected) {
+            Log.d(TAG, "Página " + page + " descartada: la ventana espera la " + expected);
+            return;
+        }
+        if (response.getTotalPages() > 0) {
+            totalPages = response.getTotalPages();
+        }
+
+        List<Movie> movies = new ArrayList<>();
+        for (TMDBMovie tmdbMovie : response.getResults()) {
+            movies.add(tmdbMovie.toMovie());
+        }
+
+        if (append) {
+            window.addLast(new Page(page, movies));
+            listener.onPageAppended(movies);
+            while (window.size() > MAX_PAGES_IN_MEMORY) {
+                listener.onItemsDroppedFromStart(window.removeFirst().movies.size());
+            }
+        } else {
+            window.addFirst(new Page(page, movies));
+            listener.onPagePrepended(movies);
+            while (window.size() > MAX_PAGES_IN_MEMORY) {
+                listener.onItemsDroppedFromEnd(window.removeLast().movies.size());
+            }
+        }
+    }
+
+    private void fail(boolean append, String message) {
+        if (append) {
+            loadingNext = false;
+        } else {
+            loadingPrevious = false;
+        }
+        Log.e(TAG, "Error al cargar página: " + message);
+        if (!released) {
+            listener.onError(message);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package edu.pmdm.vegas_laraimdbapp.repository;
+
+import android.content.Context;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import edu.pmdm.vegas_laraimdbapp.database.DatabaseExecutor;
+import edu.pmdm.vegas_laraimdbapp.database.FavoriteDatabase;
+import edu.pmdm.vegas_laraimdbapp.database.FavoritesManager;
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
+
+/**
+ * API asíncrona de favoritos para la interfaz.
+ * Todas las operaciones se ejecutan en {@link DatabaseExecutor#io()} y devuelven un {@link CompletableFuture};
+ * para tocar vistas con el resultado hay que continuar en {@link DatabaseExecutor#main()}.
+ */
+public class FavoritesRepository {
+
+    private static FavoritesRepository instance; // Instancia única
+
+    private final FavoritesManager favoritesManager;
+    private final FavoriteDatabase database;
+
+    /**
+     * Constructor privado
+     * @param context Contexto
+     */
+    private FavoritesRepository(Context context) {
+        favoritesManager = FavoritesManager.getInstance(context.getApplicationContext());
+        database = FavoriteDatabase.getInstance(context);
+    }
+
+    /**
+     * Obtener la instancia única del repositorio
+     * @param context Contexto
+     * @return Instancia del repositorio
+     */
+    public static synchronized FavoritesRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new FavoritesRepository(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Añade una película a favoritos (SQLite y Firestore).
+     * @param movie Película
+     * @param userId ID del usuario
+     * @return True si ya estaba en favoritos
+     */
+    public CompletableFuture<Boolean> addFavorite(Movie movie, String userId) {
+        return CompletableFuture.supplyAsync(() -> favoritesManager.addFavorite(movie, userId), DatabaseExecutor.io());
+    }
+
+    /**
+     * Elimina una película de favoritos (SQLite y Firestore).
+     * @param movie Película
+     * @param userId ID del usuario
+     */
+    public CompletableFuture<Void> removeFavorite(Movie movie, String userId) {
+        return CompletableFuture.runAsync(() -> favoritesManager.removeFavorite(movie, userId), DatabaseExecutor.io());
+    }
+
+    /**
+     * Lee todos los datos de una película favorita.
+     * @param movieId ID de la película
+     * @param userId ID del usuario
+     * @return Película o null si no está en favoritos
+     */
+    public CompletableFuture<Movie> getFavorite(String movieId, String userId) {
+        return CompletableFuture.supplyAsync(() -> database.getFavorite(movieId, userId), DatabaseExecutor.io());
+    }
+
+    /**
+     * Lee todos los favoritos completos de un usuario (para compartirlos, no para pintar listas).
+     * @param userId ID del usuario
+     * @return Lista de favoritos
+     */
+    public CompletableFuture<List<Movie>> getAllFavorites(String userId) {
+        return CompletableFuture.supplyAsync(() -> database.getAllFavorites(userId), DatabaseExecutor.io());
+    }
+}
@@ -0,0 +1,191 @@
+package edu.pmdm.vegas_laraimdbapp.repository;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.pmdm.vegas_laraimdbapp.api.ApiClientTMDB;
+import edu.pmdm.vegas_laraimdbapp.api.TMDBApiService;
+import edu.pmdm.vegas_laraimdbapp.models.TMDBGenreResponse;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Catálogo persistente de géneros de TMDB por idioma.
+ * La lista guardada se sirve al instante y se revalida en segundo plano con peticiones
+ * condicionales (ETag / Last-Modified) cuando supera su tiempo de vida.
+ */
+public class GenreRepository {
+
+    private static final String TAG = "GenreRepository";
+
+    // Preferencias donde se guarda el catálogo
+    private static final String PREFS_NAME = "GenreCatalog";
+    private static final String KEY_GENRES = "genres_";
+    private static final String KEY_ETAG = "etag_";
+    private static final String KEY_LAST_MODIFIED = "lastModified_";
+    private static final String KEY_TIMESTAMP = "timestamp_";
+
+    // La lista de géneros casi nunca cambia: se revalida como mucho una vez al día
+    private static final long TTL_MS = 24 * 60 * 60 * 1000L;
+
+    private static GenreRepository instance; // Instancia única
+
+    private final SharedPreferences prefs;
+    private final TMDBApiService apiService;
+    private final Gson gson = new Gson();
+    private final Type listType = new TypeToken<List<TMDBGenreResponse.Genre>>() {}.getType();
+    private final Map<String, List<TMDBGenreResponse.Genre>> memory = new HashMap<>(); // Copia en memoria por idioma
+    private final Map<String, List<GenresCallback>> inFlight = new HashMap<>(); // Revalidaciones en curso
+
+    /**
+     * Callback con la lista de géneros actualizada.
+     */
+    public interface GenresCallback {
+        void onGenres(List<TMDBGenreResponse.Genre> genres);
+
+        void onError(String message);
+    }
+
+    /**
+     * Constructor privado
+     * @param context Contexto de la aplicación
+     */
+    private GenreRepository(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        apiService = ApiClientTMDB.getClient().create(TMDBApiService.class);
+    }
+
+    /**
+     * Obtener la instancia única del repositorio
+     * @param context Contexto
+     * @return Instancia del repositorio
+     */
+    public static synchronized GenreRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new GenreRepository(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Devuelve los géneros guardados para un idioma sin acceder a la red.
+     * @param language Idioma
+     * @return Lista guardada o lista vacía.
+     */
+    public synchronized List<TMDBGenreResponse.Genre> getCachedGenres(String language) {
+        List<TMDBGenreResponse.Genre> genres = memory.get(language);
+        if (genres == null) {
+            String json = prefs.getString(KEY_GENRES + language, null);
+            try {
+                genres = json != null ? gson.fromJson(json, listType) : null;
+            } catch (Exception e) {
+                Log.e(TAG, "Catálogo de géneros corrupto, se descarta", e);
+            }
+            if (genres == null) {
+                genres = new ArrayList<>();
+            }
+            memory.put(language, genres);
+        }
+        return new ArrayList<>(genres);
+    }
+
+    /**
+     * Obtiene el nombre de un género a partir de su ID, para otras pantallas.
+     * @param language Idioma
+     * @param genreId ID del género
+     * @return Nombre o null si no se conoce.
+     */
+    public String getGenreName(String language, int genreId) {
+        for (TMDBGenreResponse.Genre genre : getCachedGenres(language)) {
+            if (genre.getId() == genreId) {
+                return genre.getName();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Revalida el catálogo si ha caducado (o no existe). Solo se notifica si la lista cambia.
+     * @param language Idioma
+     * @param callback Callback con la lista nueva
+     */
+    public synchronized void refresh(String language, GenresCallback callback) {
+        boolean empty = getCachedGenres(language).isEmpty();
+        long age = System.currentTimeMillis() - prefs.getLong(KEY_TIMESTAMP + language, 0);
+        if (!empty && age < TTL_MS) {
+            return; // La copia local sigue fresca
+        }
+
+        List<GenresCallback> waiting = inFlight.get(language);
+        if (waiting != null) {
+            waiting.add(callback);
+            return;
+        }
+        waiting = new ArrayList<>();
+        waiting.add(callback);
+        inFlight.put(language, waiting);
+
+        // Sin copia local no tiene sentido la petición condicional
+        String etag = empty ? null : prefs.getString(KEY_ETAG + language, null);
+        String lastModified = empty ? null : prefs.getString(KEY_LAST_MODIFIED + language, null);
+
+        apiService.getGenresIfChanged(language, etag, lastModified).enqueue(new Callback<TMDBGenreResponse>() {
+            @Override
+            public void onResponse(Call<TMDBGenreResponse> call, Response<TMDBGenreResponse> response) {
+                List<GenresCallback> callbacks = complete(language);
+                if (response.code() == 304) {
+                    // No ha cambiado: solo renovamos la marca de tiempo
+                    prefs.edit().putLong(KEY_TIMESTAMP + language, System.currentTimeMillis()).apply();
+                    Log.d(TAG, "Catálogo de géneros sin cambios (" + language + ")");
+                } else if (response.isSuccessful() && response.body() != null && response.body().getGenres() != null) {
+                    List<TMDBGenreResponse.Genre> genres = response.body().getGenres();
+                    store(language, genres, response.headers().get("ETag"), response.headers().get("Last-Modified"));
+                    for (GenresCallback cb : callbacks) {
+                        cb.onGenres(new ArrayList<>(genres));
+                    }
+                } else {
+                    for (GenresCallback cb : callbacks) {
+                        cb.onError("Código de respuesta: " + response.code());
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(Call<TMDBGenreResponse> call, Throwable t) {
+                List<GenresCallback> callbacks = complete(language);
+                for (GenresCallback cb : callbacks) {
+                    cb.onError(t.getMessage());
+                }
+            }
+        });
+    }
+
+    private synchronized List<GenresCallback> complete(String language) {
+        List<GenresCallback> callbacks = inFlight.remove(language);
+        return callbacks != null ? callbacks : new ArrayList<>();
+    }
+
+    /**
+     * Guarda el catálogo con sus validadores.
+     */
+    private synchronized void store(String language, List<TMDBGenreResponse.Genre> genres, String etag, String lastModified) {
+        memory.put(language, new ArrayList<>(genres));
+        prefs.edit()
+                .putString(KEY_GENRES + language, gson.toJson(genres, listType))
+                .putString(KEY_ETAG + language, etag)
+                .putString(KEY_LAST_MODIFIED + language, lastModified)
+                .putLong(KEY_TIMESTAMP + language, System.currentTimeMillis())
+                .apply();
+    }
+}
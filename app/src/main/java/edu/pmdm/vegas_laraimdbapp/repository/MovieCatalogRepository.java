@@ -0,0 +1,85 @@
+package edu.pmdm.vegas_laraimdbapp.repository;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import edu.pmdm.vegas_laraimdbapp.database.DatabaseExecutor;
+import edu.pmdm.vegas_laraimdbapp.database.FavoriteDatabase;
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
+
+/**
+ * Copia local de los metadatos de las películas que se han visto en cualquier pantalla
+ * (top, búsqueda, detalle o favoritos), guardada una sola vez por ID en la tabla compartida de películas.
+ * Las escrituras se hacen en {@link DatabaseExecutor#io()}; para tocar vistas con una lectura hay que
+ * continuar en {@link DatabaseExecutor#main()}.
+ */
+public class MovieCatalogRepository {
+
+    private static final String TAG = "MovieCatalogRepository";
+
+    private static MovieCatalogRepository instance; // Instancia única
+
+    private final FavoriteDatabase database;
+
+    /**
+     * Constructor privado
+     * @param context Contexto
+     */
+    private MovieCatalogRepository(Context context) {
+        database = FavoriteDatabase.getInstance(context);
+    }
+
+    /**
+     * Obtener la instancia única del repositorio
+     * @param context Contexto
+     * @return Instancia del repositorio
+     */
+    public static synchronized MovieCatalogRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new MovieCatalogRepository(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Guarda en segundo plano las películas recibidas de la API. Se copia la lista porque
+     * el llamante puede seguir modificándola desde el hilo principal.
+     * @param movies Películas obtenidas
+     */
+    public void save(List<Movie> movies) {
+        if (movies == null || movies.isEmpty()) {
+            return;
+        }
+        List<Movie> copy = new ArrayList<>(movies);
+        DatabaseExecutor.io().execute(() -> {
+            int changed = database.upsertMovies(copy);
+            if (changed > 0) {
+                Log.d(TAG, changed + " películas nuevas o actualizadas en la copia local");
+            }
+        });
+    }
+
+    /**
+     * Guarda en segundo plano una película recibida de la API.
+     * @param movie Película obtenida
+     */
+    public void save(Movie movie) {
+        if (movie != null) {
+            save(Collections.singletonList(movie));
+        }
+    }
+
+    /**
+     * Lee los datos guardados de una película.
+     * @param movieId ID de la película
+     * @return Película o null si nunca se ha guardado
+     */
+    public CompletableFuture<Movie> getMovie(String movieId) {
+        return CompletableFuture.supplyAsync(() -> database.getMovie(movieId), DatabaseExecutor.io());
+    }
+}
@@ -0,0 +1,255 @@
+package edu.pmdm.vegas_laraimdbapp.repository;
+
+import android.util.Log;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.pmdm.vegas_laraimdbapp.api.ApiClientIMDB;
+import edu.pmdm.vegas_laraimdbapp.api.IMDBApiService;
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Repositorio de detalles de películas de IMDb.
+ * Las peticiones simultáneas del mismo tconst comparten una única llamada (single-flight)
+ * y los resultados se guardan en una caché LRU en memoria con caducidad.
+ */
+public class MovieDetailsRepository {
+
+    private static final String TAG = "MovieDetailsRepository";
+
+    // Configuración de la caché en memoria
+    private static final int MAX_ENTRIES = 50;
+    private static final long TTL_MS = 30 * 60 * 1000L;
+
+    private static MovieDetailsRepository instance; // Instancia única
+
+    private final IMDBApiService apiService;
+    private final LruCache<String, CacheEntry> cache = new LruCache<>(MAX_ENTRIES);
+    private final Map<String, List<DetailsCallback>> inFlight = new HashMap<>(); // Llamadas en curso por tconst
+
+    // Contadores para medir el ahorro de cuota
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong joinedRequests = new AtomicLong();
+    private final AtomicLong networkCalls = new AtomicLong();
+    private final AtomicInteger userRequestsInFlight = new AtomicInteger(); // Peticiones del usuario esperando red
+
+    /**
+     * Callback para recibir los detalles de una película.
+     */
+    public interface DetailsCallback {
+        void onDetails(Movie movie);
+
+        void onError(String message);
+    }
+
+    /**
+     * Entrada de la caché con su marca de tiempo.
+     */
+    private static class CacheEntry {
+        final Movie movie;
+        final long fetchedAt;
+
+        CacheEntry(Movie movie, long fetchedAt) {
+            this.movie = movie;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    /**
+     * Constructor privado
+     */
+    private MovieDetailsRepository() {
+        apiService = ApiClientIMDB.getClient().create(IMDBApiService.class);
+    }
+
+    /**
+     * Obtener la instancia única del repositorio
+     * @return Instancia del repositorio
+     */
+    public static synchronized MovieDetailsRepository getInstance() {
+        if (instance == null) {
+            instance = new MovieDetailsRepository();
+        }
+        return instance;
+    }
+
+    /**
+     * Obtiene los detalles de una película desde la caché, uniéndose a una llamada en curso
+     * o lanzando una nueva si no hay ninguna.
+     * @param tconst ID de la película en IMDb.
+     * @param callback Callback con el resultado.
+     */
+    public void getMovieDetails(String tconst, DetailsCallback callback) {
+        fetch(tconst, callback, true);
+    }
+
+    /**
+     * Precarga los detalles de una película en segundo plano. No cuenta como petición del usuario.
+     * @param tconst ID de la película en IMDb.
+     * @param callback Callback con el resultado.
+     */
+    public void prefetch(String tconst, DetailsCallback callback) {
+        fetch(tconst, callback, false);
+    }
+
+    /**
+     * Indica si hay peticiones iniciadas por el usuario esperando respuesta de la red.
+     * La precarga les cede el paso mientras tanto.
+     * @return True si hay alguna en curso.
+     */
+    public boolean hasUserRequestsInFlight() {
+        return userRequestsInFlight.get() > 0;
+    }
+
+    /**
+     * Obtiene los detalles desde la caché, uniéndose a una llamada en curso o lanzando una nueva.
+     * @param tconst ID de la película en IMDb.
+     * @param callback Callback con el resultado.
+     * @param userInitiated True si la pide el usuario (no la precarga).
+     */
+    private void fetch(String tconst, DetailsCallback callback, boolean userInitiated) {
+        Movie cached = getCached(tconst);
+        if (cached != null) {
+            cacheHits.incrementAndGet();
+            callback.onDetails(cached);
+            return;
+        }
+
+        if (userInitiated) {
+            // El usuario espera hasta que se resuelva la llamada (propia o compartida)
+            userRequestsInFlight.incrementAndGet();
+            callback = new UserCallback(callback);
+        }
+
+        synchronized (inFlight) {
+            List<DetailsCallback> waiting = inFlight.get(tconst);
+            if (waiting != null) {
+                joinedRequests.incrementAndGet();
+                waiting.add(callback); // Nos unimos a la llamada en curso
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(callback);
+            inFlight.put(tconst, waiting);
+        }
+
+        networkCalls.incrementAndGet();
+        apiService.getMovieDetails(tconst).enqueue(new Callback<Movie>() {
+            @Override
+            public void onResponse(Call<Movie> call, Response<Movie> response) {
+                List<DetailsCallback> callbacks = complete(tconst);
+                if (response.isSuccessful() && response.body() != null) {
+                    Movie movie = response.body();
+                    cache.put(tconst, new CacheEntry(movie, System.currentTimeMillis()));
+                    for (DetailsCallback cb : callbacks) {
+                        cb.onDetails(movie);
+                    }
+                } else {
+                    for (DetailsCallback cb : callbacks) {
+                        cb.onError("No se pudo obtener los detalles de la película. Código: " + response.code());
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(Call<Movie> call, Throwable t) {
+                List<DetailsCallback> callbacks = complete(tconst);
+                for (DetailsCallback cb : callbacks) {
+                    cb.onError("Error de conexión: " + t.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * Devuelve los detalles en caché si no han caducado.
+     * @param tconst ID de la película.
+     * @return Detalles o null si no hay copia válida.
+     */
+    public Movie getCached(String tconst) {
+        CacheEntry entry = cache.get(tconst);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.fetchedAt > TTL_MS) {
+            cache.remove(tconst); // Entrada caducada
+            return null;
+        }
+        return entry.movie;
+    }
+
+    /**
+     * Retira la llamada en curso y devuelve los callbacks que estaban esperando.
+     * @param tconst ID de la película.
+     * @return Callbacks a notificar.
+     */
+    private List<DetailsCallback> complete(String tconst) {
+        synchronized (inFlight) {
+            List<DetailsCallback> callbacks = inFlight.remove(tconst);
+            logStats();
+            return callbacks != null ? callbacks : new ArrayList<>();
+        }
+    }
+
+    /**
+     * Envoltorio que descuenta la petición del usuario al resolverse.
+     */
+    private class UserCallback implements DetailsCallback {
+        private final DetailsCallback delegate;
+
+        UserCallback(DetailsCallback delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onDetails(Movie movie) {
+            userRequestsInFlight.decrementAndGet();
+            delegate.onDetails(movie);
+        }
+
+        @Override
+        public void onError(String message) {
+            userRequestsInFlight.decrementAndGet();
+            delegate.onError(message);
+        }
+    }
+
+    /**
+     * Número de peticiones servidas desde la caché en memoria.
+     */
+    public long getCacheHits() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Número de peticiones que se unieron a una llamada ya en curso.
+     */
+    public long getJoinedRequests() {
+        return joinedRequests.get();
+    }
+
+    /**
+     * Número de llamadas reales a la API.
+     */
+    public long getNetworkCalls() {
+        return networkCalls.get();
+    }
+
+    /**
+     * Escribe en el log las llamadas ahorradas.
+     */
+    private void logStats() {
+        Log.d(TAG, "Llamadas a la API: " + networkCalls.get()
+                + " | servidas desde caché: " + cacheHits.get()
+                + " | unidas a llamada en curso: " + joinedRequests.get());
+    }
+}
@@ -0,0 +1,288 @@
+package edu.pmdm.vegas_laraimdbapp.repository;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.pmdm.vegas_laraimdbapp.api.ApiClientIMDB;
+import edu.pmdm.vegas_laraimdbapp.api.HttpClientProvider;
+import edu.pmdm.vegas_laraimdbapp.api.IMDBApiService;
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Repositorio del top de películas de IMDb con caché local (stale-while-revalidate).
+ * La última respuesta correcta se guarda con su marca de tiempo para pintar la lista al instante
+ * y se revalida en segundo plano.
+ */
+public class TopMoviesRepository {
+
+    private static final String TAG = "TopMoviesRepository";
+
+    // Preferencias donde se guarda la copia local
+    private static final String PREFS_NAME = "TopMoviesCache";
+    private static final String KEY_MOVIES = "movies";
+    private static final String KEY_TIMESTAMP = "timestamp";
+
+    // Tiempo durante el que la copia local se considera fresca y no se revalida
+    private static final long FRESH_TTL_MS = 10 * 60 * 1000L;
+
+    private static TopMoviesRepository instance; // Instancia única
+
+    private final SharedPreferences prefs;
+    private final IMDBApiService apiService;
+    private final Gson gson = new Gson();
+    private final Type listType = new TypeToken<List<Movie>>() {}.getType();
+
+    private List<Movie> cachedMovies; // Copia en memoria de la lista guardada
+    private long cachedTimestamp;
+    private Call<List<Movie>> inFlight; // Revalidación en curso
+    private final List<RefreshCallback> pendingCallbacks = new ArrayList<>(); // Esperando la revalidación
+
+    /**
+     * Callback para recibir la lista revalidada.
+     */
+    public interface RefreshCallback {
+        /**
+         * Se llama cuando la red devuelve una lista nueva.
+         * @param movies Lista actualizada.
+         * @param changedRanks Posiciones que han cambiado respecto a la copia anterior.
+         */
+        void onMoviesUpdated(List<Movie> movies, List<Integer> changedRanks);
+
+        /**
+         * Se llama si la revalidación falla. La copia local sigue siendo válida.
+         * @param message Mensaje de error.
+         */
+        void onError(String message);
+    }
+
+    /**
+     * Constructor privado
+     * @param context Contexto de la aplicación
+     */
+    private TopMoviesRepository(Context context) {
+        prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        apiService = ApiClientIMDB.getClient().create(IMDBApiService.class);
+    }
+
+    /**
+     * Obtener la instancia única del repositorio
+     * @param context Contexto
+     * @return Instancia del repositorio
+     */
+    public static synchronized TopMoviesRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new TopMoviesRepository(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Devuelve la última lista guardada (lectura local, sin red).
+     * La primera vez la lee de disco y la deserializa: llamar desde DatabaseExecutor.io(), no desde el hilo principal.
+     * @return Lista guardada o lista vacía si no hay copia.
+     */
+    public synchronized List<Movie> getCachedMovies() {
+        if (cachedMovies == null) {
+            cachedTimestamp = prefs.getLong(KEY_TIMESTAMP, 0);
+            String json = prefs.getString(KEY_MOVIES, null);
+            List<Movie> stored = null;
+            try {
+                stored = json != null ? gson.fromJson(json, listType) : null;
+            } catch (Exception e) {
+                Log.e(TAG, "Copia local corrupta, se descarta", e);
+            }
+            cachedMovies = stored != null ? stored : new ArrayList<>();
+        }
+        return new ArrayList<>(cachedMovies);
+    }
+
+    /**
+     * Indica si la copia local ha superado su tiempo de frescura.
+     * @return True si hay que revalidar.
+     */
+    public synchronized boolean isStale() {
+        getCachedMovies();
+        return cachedMovies.isEmpty() || System.currentTimeMillis() - cachedTimestamp > FRESH_TTL_MS;
+    }
+
+    /**
+     * Revalida la lista en segundo plano. Si la copia local es fresca no se hace ninguna llamada.
+     * @param limit Número máximo de películas.
+     * @param force True para revalidar aunque la copia sea fresca.
+     * @param callback Callback con el resultado.
+     */
+    public synchronized void refresh(int limit, boolean force, RefreshCallback callback) {
+        if (!force && !isStale()) {
+            return;
+        }
+        pendingCallbacks.add(callback);
+        if (inFlight != null) {
+            return; // Ya hay una revalidación en curso, se notificará al terminar
+        }
+
+        inFlight = apiService.getTopMovies("ALL");
+        inFlight.enqueue(new Callback<List<Movie>>() {
+            @Override
+            public void onResponse(Call<List<Movie>> call, Response<List<Movie>> response) {
+                List<RefreshCallback> callbacks = takeCallbacks();
+                if (response.isSuccessful() && response.body() != null) {
+                    List<Movie> fresh = toMovies(response.body(), limit);
+                    List<Integer> changed = store(fresh);
+                    for (RefreshCallback cb : callbacks) {
+                        cb.onMoviesUpdated(fresh, changed);
+                    }
+                } else {
+                    // Con ambas API Keys limitadas seguimos sirviendo la copia local
+                    Log.e("API_ERROR", "Código de respuesta: " + response.code());
+                    fallBackToHttpCache(limit, callbacks, "Código de respuesta: " + response.code());
+                }
+            }
+
+            @Override
+            public void onFailure(Call<List<Movie>> call, Throwable t) {
+                List<RefreshCallback> callbacks = takeCallbacks();
+                Log.e("API_ERROR", "Error al cargar las películas", t);
+                fallBackToHttpCache(limit, callbacks, t.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Si la revalidación falla y no hay copia local (primer arranque sin red, o copia descartada),
+     * se intenta servir la última respuesta que guardó la caché HTTP. No se guarda como copia local
+     * para que la siguiente revalidación vuelva a ir a la red.
+     * @param limit Número máximo de películas.
+     * @param callbacks Callbacks a notificar.
+     * @param error Mensaje del fallo de red.
+     */
+    private void fallBackToHttpCache(int limit, List<RefreshCallback> callbacks, String error) {
+        if (hasLocalCopy()) {
+            notifyError(callbacks, error); // La pantalla ya muestra la copia local
+            return;
+        }
+
+        apiService.getTopMovies("ALL", HttpClientProvider.CACHE_ONLY).enqueue(new Callback<List<Movie>>() {
+            @Override
+            public void onResponse(Call<List<Movie>> call, Response<List<Movie>> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    List<Movie> cached = toMovies(response.body(), limit);
+                    List<Integer> changed = diffRanks(new ArrayList<>(), cached);
+                    for (RefreshCallback cb : callbacks) {
+                        cb.onMoviesUpdated(cached, changed);
+                    }
+                } else {
+                    notifyError(callbacks, error); // 504: la caché HTTP tampoco tiene copia
+                }
+            }
+
+            @Override
+            public void onFailure(Call<List<Movie>> call, Throwable t) {
+                Log.e(TAG, "Error al leer el top de la caché HTTP", t);
+                notifyError(callbacks, error);
+            }
+        });
+    }
+
+    /**
+     * Indica si hay copia local ya cargada en memoria (no lee de disco: se llama desde el hilo principal).
+     */
+    private synchronized boolean hasLocalCopy() {
+        return cachedMovies != null && !cachedMovies.isEmpty();
+    }
+
+    private static void notifyError(List<RefreshCallback> callbacks, String message) {
+        for (RefreshCallback cb : callbacks) {
+            cb.onError(message);
+        }
+    }
+
+    /**
+     * Libera la revalidación en curso y devuelve los callbacks pendientes.
+     * @return Callbacks a notificar.
+     */
+    private synchronized List<RefreshCallback> takeCallbacks() {
+        inFlight = null;
+        List<RefreshCallback> callbacks = new ArrayList<>(pendingCallbacks);
+        pendingCallbacks.clear();
+        return callbacks;
+    }
+
+    /**
+     * Guarda la nueva lista y calcula qué posiciones han cambiado.
+     * @param fresh Lista recibida de la red.
+     * @return Posiciones cambiadas.
+     */
+    private synchronized List<Integer> store(List<Movie> fresh) {
+        List<Movie> previous = getCachedMovies();
+        List<Integer> changed = diffRanks(previous, fresh);
+
+        cachedMovies = new ArrayList<>(fresh);
+        cachedTimestamp = System.currentTimeMillis();
+        prefs.edit()
+                .putString(KEY_MOVIES, gson.toJson(cachedMovies, listType))
+                .putLong(KEY_TIMESTAMP, cachedTimestamp)
+                .apply();
+        return changed;
+    }
+
+    /**
+     * Recorta la respuesta de la API al número de películas pedido.
+     * @param body Películas convertidas por la API.
+     * @param limit Número máximo de películas.
+     * @return Lista de películas.
+     */
+    private List<Movie> toMovies(List<Movie> body, int limit) {
+        List<Movie> movies = new ArrayList<>();
+        for (Movie movie : body) {
+            if (movies.size() >= limit) {
+                break;
+            }
+            if (movie.getId() != null) {
+                movies.add(movie);
+            }
+        }
+        return movies;
+    }
+
+    /**
+     * Compara dos listas posición a posición.
+     * @param oldList Lista anterior.
+     * @param newList Lista nueva.
+     * @return Posiciones cuyo contenido ha cambiado (incluye altas y bajas al final).
+     */
+    public static List<Integer> diffRanks(List<Movie> oldList, List<Movie> newList) {
+        List<Integer> changed = new ArrayList<>();
+        int max = Math.max(oldList.size(), newList.size());
+        for (int i = 0; i < max; i++) {
+            if (i >= oldList.size() || i >= newList.size() || !sameContent(oldList.get(i), newList.get(i))) {
+                changed.add(i);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Comprueba si dos películas se pintan igual.
+     */
+    private static boolean sameContent(Movie a, Movie b) {
+        return eq(a.getId(), b.getId())
+                && eq(a.getImage(), b.getImage())
+                && eq(a.getTitle(), b.getTitle())
+                && a.getRating() == b.getRating();
+    }
+
+    private static boolean eq(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,185 @@
+package edu.pmdm.vegas_laraimdbapp.sync;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import edu.pmdm.vegas_laraimdbapp.api.RetryPolicy;
+import edu.pmdm.vegas_laraimdbapp.database.DatabaseExecutor;
+import edu.pmdm.vegas_laraimdbapp.database.FavoriteDatabase;
+import edu.pmdm.vegas_laraimdbapp.models.OutboxOperation;
+
+/**
+ * Subida a Firestore de la cola local de cambios de favoritos.
+ * Las altas y bajas se guardan en SQLite en la misma transacción que el cambio local, así que no se pierden
+ * aunque falle la red o muera el proceso. Aquí se agrupan en lotes atómicos del {@link RemoteFavoritesStore}
+ * y se reintentan con backoff.
+ */
+public class FavoritesOutbox {
+
+    private static final String TAG = "FavoritesOutbox";
+
+    // Espera tras el último cambio antes de subir, para que varios toques seguidos vayan en un lote
+    private static final long FLUSH_DELAY_MS = 2_000;
+    // Límite de escrituras por lote
+    private static final int BATCH_SIZE = RemoteFavoritesStore.MAX_BATCH_SIZE;
+
+    private static FavoritesOutbox instance; // Instancia única
+
+    private final FavoriteDatabase database;
+    private final RemoteFavoritesStore store;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean flushing = new AtomicBoolean(false); // Una sola subida en curso
+    private final Runnable flushRunnable = this::flush;
+    // Backoff exponencial con jitter entre 2 s y 5 min, sin límite de intentos
+    private final RetryPolicy retryPolicy = new RetryPolicy(Integer.MAX_VALUE, 2_000, 5 * 60_000, 0);
+    private int failedAttempts = 0; // Fallos seguidos (solo se toca en la subida en curso)
+
+    // Métricas
+    private volatile int queueDepth = 0;
+    private volatile long lastBatchMs = 0;
+    private volatile long maxBatchMs = 0;
+    private volatile long maxWaitMs = 0; // Mayor espera de un cambio desde que se encoló hasta que lo confirmó Firestore
+    private volatile long batches = 0;
+    private volatile long operationsFlushed = 0;
+    private volatile long failures = 0;
+
+    /**
+     * Constructor privado
+     * @param context Contexto
+     */
+    private FavoritesOutbox(Context context) {
+        database = FavoriteDatabase.getInstance(context);
+        store = FirestoreFavoritesStore.getInstance();
+    }
+
+    /**
+     * Obtener la instancia única de la cola
+     * @param context Contexto
+     * @return Instancia de la cola
+     */
+    public static synchronized FavoritesOutbox getInstance(Context context) {
+        if (instance == null) {
+            instance = new FavoritesOutbox(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Recupera las operaciones que quedaron a medias en la ejecución anterior y las sube.
+     * Se llama una vez al arrancar la aplicación.
+     */
+    public void start() {
+        DatabaseExecutor.io().execute(() -> {
+            int recovered = database.resetOutboxClaims();
+            if (recovered > 0) {
+                Log.d(TAG, "Cambios recuperados de la ejecución anterior: " + recovered);
+            }
+            scheduleFlush(0);
+        });
+    }
+
+    /**
+     * Programa una subida tras un cambio local, agrupando los cambios seguidos.
+     */
+    public void schedule() {
+        scheduleFlush(FLUSH_DELAY_MS);
+    }
+
+    /**
+     * Programa una subida, sustituyendo la que hubiera pendiente.
+     * @param delayMs Espera en milisegundos
+     */
+    private void scheduleFlush(long delayMs) {
+        mainHandler.removeCallbacks(flushRunnable);
+        mainHandler.postDelayed(flushRunnable, delayMs);
+    }
+
+    /**
+     * Sube la cola por lotes hasta vaciarla.
+     */
+    private void flush() {
+        if (!flushing.compareAndSet(false, true)) {
+            return; // La subida en curso encadena los lotes siguientes
+        }
+        DatabaseExecutor.io().execute(this::flushNextBatch);
+    }
+
+    /**
+     * Sube un lote y encadena el siguiente.
+     */
+    private void flushNextBatch() {
+        List<OutboxOperation> operations = database.claimOutbox(BATCH_SIZE);
+        if (operations.isEmpty()) {
+            flushing.set(false);
+            // Un cambio encolado justo después de leer la cola no debe esperar al siguiente toque
+            queueDepth = database.countOutbox();
+            if (queueDepth > 0) {
+                scheduleFlush(FLUSH_DELAY_MS);
+            }
+            return;
+        }
+
+        long start = SystemClock.elapsedRealtime();
+        store.commit(operations).whenCompleteAsync((aVoid, e) -> {
+            if (e == null) {
+                long elapsed = SystemClock.elapsedRealtime() - start;
+                database.completeOutbox(operations);
+                recordBatch(operations, elapsed);
+                failedAttempts = 0;
+                flushNextBatch();
+                return;
+            }
+            database.releaseOutbox(operations);
+            failures++;
+            queueDepth = database.countOutbox();
+            long delay = Math.max(FLUSH_DELAY_MS, retryPolicy.delayFor(failedAttempts++, null));
+            Log.e(TAG, "Error al subir " + operations.size() + " cambios de favoritos; reintento en " + delay + " ms", e);
+            flushing.set(false);
+            scheduleFlush(delay);
+        }, DatabaseExecutor.io());
+    }
+
+    /**
+     * Actualiza las métricas tras un lote confirmado.
+     * @param operations Operaciones del lote
+     * @param elapsedMs Duración del commit
+     */
+    private void recordBatch(List<OutboxOperation> operations, long elapsedMs) {
+        long now = System.currentTimeMillis();
+        long oldest = now;
+        for (OutboxOperation operation : operations) {
+            oldest = Math.min(oldest, operation.getCreatedAt());
+        }
+        batches++;
+        operationsFlushed += operations.size();
+        lastBatchMs = elapsedMs;
+        maxBatchMs = Math.max(maxBatchMs, elapsedMs);
+        maxWaitMs = Math.max(maxWaitMs, now - oldest);
+        queueDepth = database.countOutbox();
+        Log.d(TAG, operations.size() + " cambios subidos en " + elapsedMs + " ms; quedan " + queueDepth);
+    }
+
+    /**
+     * Profundidad de la cola tras la última subida.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Resumen de las métricas de la cola para la pantalla de depuración.
+     * @return Texto con profundidad, lotes y latencias
+     */
+    public String report() {
+        return String.format(Locale.ROOT,
+                "Cola de favoritos: %d pendientes | %d lotes, %d cambios, %d fallos | commit último %d ms, máx %d ms | espera máx %d ms",
+                queueDepth, batches, operationsFlushed, failures, lastBatchMs, maxBatchMs, maxWaitMs);
+    }
+}
@@ -0,0 +1,245 @@
+package edu.pmdm.vegas_laraimdbapp.sync;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import edu.pmdm.vegas_laraimdbapp.database.DatabaseExecutor;
+import edu.pmdm.vegas_laraimdbapp.database.FavoriteDatabase;
+import edu.pmdm.vegas_laraimdbapp.database.FavoritesManager;
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
+import edu.pmdm.vegas_laraimdbapp.models.RemoteFavorite;
+
+/**
+ * Sincronización de favoritos del almacén remoto hacia SQLite: lectura incremental por marca de agua
+ * y escucha en tiempo real. La subida de los cambios locales la hace {@link FavoritesOutbox} con el mismo almacén.
+ * El almacén y la base local se reciben por constructor, así que se puede medir con {@link InMemoryFavoritesStore}.
+ */
+public class FavoritesSyncEngine {
+
+    private static final String TAG = "FavoritesSyncEngine";
+
+    // Documentos por consulta en la sincronización incremental
+    private static final int PAGE_SIZE = 500;
+
+    /**
+     * Lado local de la sincronización.
+     */
+    public interface LocalStore {
+        /**
+         * Marca de agua guardada del usuario
+         * @param userId ID del usuario
+         * @return Milisegundos o -1 si nunca se ha sincronizado
+         */
+        long getWatermark(String userId);
+
+        /**
+         * Aplica un lote de cambios en una sola transacción. Puede quitar de las listas las películas
+         * con cambios locales pendientes de subir.
+         * @param userId ID del usuario
+         * @param upserts Favoritos nuevos o modificados
+         * @param deletedIds IDs borrados
+         * @param watermark Nueva marca de agua o -1 para no tocarla
+         * @return true si se guardó
+         */
+        boolean applyChanges(String userId, List<Movie> upserts, List<String> deletedIds, long watermark);
+    }
+
+    private static FavoritesSyncEngine instance; // Instancia única
+
+    private final RemoteFavoritesStore remote;
+    private final LocalStore local;
+    private final Executor executor;
+
+    // Sincronización en curso (protegido por this)
+    private CompletableFuture<Integer> inFlight;
+    private String inFlightUserId;
+
+    // Escucha en tiempo real (protegido por this)
+    private RemoteFavoritesStore.Registration registration;
+    private String listeningUserId;
+
+    /**
+     * Constructor
+     * @param remote Almacén remoto
+     * @param local Base de datos local
+     * @param executor Ejecutor en segundo plano para leer y escribir en local
+     */
+    public FavoritesSyncEngine(RemoteFavoritesStore remote, LocalStore local, Executor executor) {
+        this.remote = remote;
+        this.local = local;
+        this.executor = executor;
+    }
+
+    /**
+     * Obtener la instancia única del motor, sobre Firestore y SQLite
+     * @param context Contexto
+     * @return Instancia del motor
+     */
+    public static synchronized FavoritesSyncEngine getInstance(Context context) {
+        if (instance == null) {
+            FavoriteDatabase database = FavoriteDatabase.getInstance(context);
+            FavoritesManager favoritesManager = FavoritesManager.getInstance(context);
+            instance = new FavoritesSyncEngine(FirestoreFavoritesStore.getInstance(), new LocalStore() {
+                @Override
+                public long getWatermark(String userId) {
+                    return database.getSyncWatermark(userId, FavoriteDatabase.SYNC_SCOPE_FAVORITES);
+                }
+
+                @Override
+                public boolean applyChanges(String userId, List<Movie> upserts, List<String> deletedIds, long watermark) {
+                    return favoritesManager.applySyncedChanges(userId, upserts, deletedIds, watermark);
+                }
+            }, DatabaseExecutor.io());
+        }
+        return instance;
+    }
+
+    /**
+     * Trae los favoritos cambiados desde la última marca de agua del usuario; la primera vez
+     * lee la colección completa, porque los documentos antiguos no tienen updatedAt.
+     * Si ya hay una sincronización en curso para el usuario, devuelve esa.
+     * @param userId ID del usuario
+     * @return Futuro con el número de documentos leídos
+     */
+    public synchronized CompletableFuture<Integer> sync(String userId) {
+        if (inFlight != null && !inFlight.isDone() && userId.equals(inFlightUserId)) {
+            return inFlight; // Traerá también estos cambios
+        }
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        inFlight = result;
+        inFlightUserId = userId;
+        executor.execute(() -> {
+            long watermark = local.getWatermark(userId);
+            fetchPage(userId, watermark, watermark, null, System.nanoTime(), 0, result);
+        });
+        return result;
+    }
+
+    /**
+     * Pide una página de cambios, la aplica en una transacción y encadena la siguiente.
+     * La marca de agua solo se guarda con la última página: si el proceso muere a mitad,
+     * la siguiente sincronización repite las páginas ya aplicadas, que son idempotentes.
+     * @param userId ID del usuario
+     * @param watermark Marca de agua de partida (ms) o -1 para la lectura completa
+     * @param maxSeen Mayor updatedAt visto hasta ahora (ms)
+     * @param cursor Cursor de la página anterior (null en la primera)
+     * @param start Inicio de la sincronización (nanoTime)
+     * @param documents Documentos leídos hasta ahora
+     * @param result Futuro a completar al terminar
+     */
+    private void fetchPage(String userId, long watermark, long maxSeen, Object cursor, long start, int documents,
+                           CompletableFuture<Integer> result) {
+        remote.fetchChanges(userId, watermark, cursor, PAGE_SIZE).whenCompleteAsync((page, error) -> {
+            if (error != null) {
+                Log.e(TAG, "Error al recuperar favoritos del almacén remoto", error);
+                result.completeExceptionally(error);
+                return;
+            }
+
+            List<RemoteFavorite> changes = page.getChanges();
+            long newMaxSeen = maxSeen;
+            for (RemoteFavorite change : changes) {
+                newMaxSeen = Math.max(newMaxSeen, change.getUpdatedAt());
+            }
+
+            boolean lastPage = changes.size() < PAGE_SIZE;
+            long newWatermark = lastPage ? Math.max(newMaxSeen, 0) : -1;
+            if (!apply(userId, changes, newWatermark)) {
+                result.completeExceptionally(new IllegalStateException("No se pudieron guardar los favoritos sincronizados"));
+                return;
+            }
+
+            int total = documents + changes.size();
+            if (!lastPage) {
+                fetchPage(userId, watermark, newMaxSeen, page.getCursor(), start, total, result);
+                return;
+            }
+
+            Log.d(TAG, "Sincronización de favoritos completada" + (watermark < 0 ? " (completa)" : " (incremental)")
+                    + ": " + total + " documentos leídos en "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+            result.complete(total);
+        }, executor);
+    }
+
+    /**
+     * Empieza a escuchar en tiempo real los favoritos del usuario.
+     * Antes sincroniza, para que la escucha parta de la marca de agua y su primera entrega
+     * traiga solo lo cambiado desde entonces y no la colección entera.
+     * @param userId ID del usuario
+     */
+    public synchronized void startListening(String userId) {
+        if (userId.equals(listeningUserId)) {
+            return;
+        }
+        stopListening();
+        listeningUserId = userId;
+        sync(userId).whenCompleteAsync((documents, error) -> attach(userId), executor);
+    }
+
+    /**
+     * Deja de escuchar los cambios remotos.
+     */
+    public synchronized void stopListening() {
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        listeningUserId = null;
+    }
+
+    /**
+     * Registra la escucha desde la marca de agua actual.
+     * @param userId ID del usuario
+     */
+    private void attach(String userId) {
+        long watermark = local.getWatermark(userId);
+        synchronized (this) {
+            if (!userId.equals(listeningUserId) || registration != null) {
+                return; // Se paró o cambió de usuario mientras se sincronizaba
+            }
+            registration = remote.listen(userId, watermark, new RemoteFavoritesStore.ChangeListener() {
+                @Override
+                public void onChanges(List<RemoteFavorite> changes) {
+                    // Las entregas llegan en orden fuera del hilo principal: se aplican aquí mismo, en una transacción
+                    long start = System.nanoTime();
+                    if (!changes.isEmpty() && apply(userId, changes, -1)) {
+                        Log.d(TAG, changes.size() + " favoritos actualizados en tiempo real en "
+                                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+                    }
+                }
+
+                @Override
+                public void onError(Exception e) {
+                    Log.e(TAG, "Error al escuchar cambios en favoritos", e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Aplica en local un lote de cambios remotos en una transacción.
+     * @param userId ID del usuario
+     * @param changes Cambios
+     * @param watermark Nueva marca de agua o -1 para no tocarla
+     * @return true si se guardó
+     */
+    private boolean apply(String userId, List<RemoteFavorite> changes, long watermark) {
+        List<Movie> upserts = new ArrayList<>();
+        List<String> deletedIds = new ArrayList<>();
+        for (RemoteFavorite change : changes) {
+            if (change.isDeleted()) {
+                deletedIds.add(change.getMovieId());
+            } else {
+                upserts.add(change.getMovie());
+            }
+        }
+        return local.applyChanges(userId, upserts, deletedIds, watermark);
+    }
+}
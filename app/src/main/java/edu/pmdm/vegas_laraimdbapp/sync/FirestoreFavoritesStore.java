@@ -0,0 +1,253 @@
+package edu.pmdm.vegas_laraimdbapp.sync;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import edu.pmdm.vegas_laraimdbapp.database.DatabaseExecutor;
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
+import edu.pmdm.vegas_laraimdbapp.models.OutboxOperation;
+import edu.pmdm.vegas_laraimdbapp.models.RemoteFavorite;
+
+/**
+ * Favoritos en Firestore: un documento por película en favorites/{userId}/movies/{movieId}.
+ * Es el único sitio que sabe convertir entre documentos y películas.
+ * Los resultados se entregan en {@link DatabaseExecutor#io()}, nunca en el hilo principal.
+ */
+public class FirestoreFavoritesStore implements RemoteFavoritesStore {
+
+    // Campos de control de cada documento: hora del servidor del último cambio y borrado lógico
+    public static final String FIELD_UPDATED_AT = "updatedAt";
+    public static final String FIELD_DELETED = "deleted";
+
+    private static FirestoreFavoritesStore instance; // Instancia única
+
+    private final FirebaseFirestore firestore;
+
+    /**
+     * Constructor privado
+     */
+    private FirestoreFavoritesStore() {
+        firestore = FirebaseFirestore.getInstance();
+    }
+
+    /**
+     * Obtener la instancia única del almacén
+     * @return Instancia del almacén
+     */
+    public static synchronized FirestoreFavoritesStore getInstance() {
+        if (instance == null) {
+            instance = new FirestoreFavoritesStore();
+        }
+        return instance;
+    }
+
+    /**
+     * Colección de favoritos de un usuario
+     * @param userId ID del usuario
+     * @return Colección
+     */
+    private CollectionReference favorites(String userId) {
+        return firestore.collection("favorites").document(userId).collection("movies");
+    }
+
+    @Override
+    public CompletableFuture<ChangePage> fetchChanges(String userId, long sinceMs, Object cursor, int limit) {
+        CollectionReference favoritesRef = favorites(userId);
+        Query query = sinceMs < 0
+                ? favoritesRef.orderBy(FieldPath.documentId())
+                // Con >= se relee el límite: un cambio con la misma marca de tiempo no se pierde
+                : favoritesRef.whereGreaterThanOrEqualTo(FIELD_UPDATED_AT, new Timestamp(new Date(sinceMs)))
+                        .orderBy(FIELD_UPDATED_AT);
+        query = query.limit(limit);
+        if (cursor != null) {
+            query = query.startAfter((DocumentSnapshot) cursor);
+        }
+
+        CompletableFuture<ChangePage> future = new CompletableFuture<>();
+        query.get().addOnCompleteListener(DatabaseExecutor.io(), task -> {
+            if (!task.isSuccessful() || task.getResult() == null) {
+                future.completeExceptionally(task.getException() != null
+                        ? task.getException() : new IllegalStateException("Consulta de favoritos sin resultado"));
+                return;
+            }
+            QuerySnapshot result = task.getResult();
+            List<DocumentSnapshot> documents = result.getDocuments();
+            future.complete(new ChangePage(fromDocuments(documents),
+                    documents.isEmpty() ? null : documents.get(documents.size() - 1)));
+        });
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<Void> commit(List<OutboxOperation> operations) {
+        WriteBatch batch = firestore.batch();
+        for (OutboxOperation operation : operations) {
+            DocumentReference ref = favorites(operation.getUserId()).document(operation.getMovieId());
+            if (OutboxOperation.OP_ADD.equals(operation.getOp())) {
+                batch.set(ref, toDocument(operation.getMovie()));
+            } else {
+                // Borrado lógico: los demás dispositivos lo ven en su sincronización incremental
+                Map<String, Object> tombstone = new HashMap<>();
+                tombstone.put(FIELD_DELETED, true);
+                tombstone.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+                batch.set(ref, tombstone, SetOptions.merge());
+            }
+        }
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        batch.commit().addOnCompleteListener(DatabaseExecutor.io(), task -> {
+            if (task.isSuccessful()) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(task.getException());
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public Registration listen(String userId, long sinceMs, ChangeListener listener) {
+        Query query = favorites(userId);
+        if (sinceMs >= 0) {
+            query = query.whereGreaterThanOrEqualTo(FIELD_UPDATED_AT, new Timestamp(new Date(sinceMs)));
+        }
+        // Las instantáneas se procesan de una en una y en orden, aunque io() tenga varios hilos
+        ListenerRegistration registration = query.addSnapshotListener(new SerialExecutor(DatabaseExecutor.io()), (snapshots, e) -> {
+            if (e != null) {
+                listener.onError(e);
+                return;
+            }
+            if (snapshots == null) {
+                return;
+            }
+            // Solo los documentos que cambian en esta instantánea, no la consulta entera
+            List<DocumentChange> documentChanges = snapshots.getDocumentChanges();
+            List<RemoteFavorite> changes = new ArrayList<>(documentChanges.size());
+            for (DocumentChange change : documentChanges) {
+                DocumentSnapshot document = change.getDocument();
+                if (document.getMetadata().hasPendingWrites()) {
+                    continue; // Eco de una escritura nuestra que aún no ha confirmado el servidor: ya está en local
+                }
+                if (change.getType() == DocumentChange.Type.REMOVED) {
+                    // Documento borrado de verdad (no lógico): deja de ser favorito
+                    changes.add(new RemoteFavorite(document.getId(), null, true, 0));
+                } else {
+                    changes.add(fromDocument(document));
+                }
+            }
+            if (!changes.isEmpty()) {
+                listener.onChanges(changes);
+            }
+        });
+        return registration::remove;
+    }
+
+    /**
+     * Convertir documentos de favoritos en cambios remotos
+     * @param documents Documentos
+     * @return Cambios
+     */
+    private static List<RemoteFavorite> fromDocuments(List<DocumentSnapshot> documents) {
+        List<RemoteFavorite> changes = new ArrayList<>(documents.size());
+        for (DocumentSnapshot document : documents) {
+            changes.add(fromDocument(document));
+        }
+        return changes;
+    }
+
+    /**
+     * Convertir un documento de favoritos en un cambio remoto
+     * @param document Documento
+     * @return Favorito o borrado lógico
+     */
+    public static RemoteFavorite fromDocument(DocumentSnapshot document) {
+        Timestamp updatedAt = document.getTimestamp(FIELD_UPDATED_AT);
+        long updatedAtMs = updatedAt != null ? updatedAt.toDate().getTime() : 0;
+        if (Boolean.TRUE.equals(document.getBoolean(FIELD_DELETED))) {
+            return new RemoteFavorite(document.getId(), null, true, updatedAtMs);
+        }
+
+        Movie movie = new Movie();
+        String movieId = document.getString("movieId");
+        movie.setId(movieId != null ? movieId : document.getId());
+        movie.setTitle(document.getString("title"));
+        movie.setImage(document.getString("imageUrl"));
+        movie.setReleaseDate(document.getString("releaseDate"));
+        movie.setPlot(document.getString("plot"));
+        Double rating = document.getDouble("rating");
+        movie.setRating(rating != null ? rating : 0);
+        return new RemoteFavorite(movie.getId(), movie, false, updatedAtMs);
+    }
+
+    /**
+     * Documento de Firestore de un favorito
+     * @param movie Película
+     * @return Campos del documento
+     */
+    private static Map<String, Object> toDocument(Movie movie) {
+        Map<String, Object> movieData = new HashMap<>();
+        movieData.put("movieId", movie.getId());
+        movieData.put("title", movie.getTitle());
+        movieData.put("imageUrl", movie.getImage());
+        movieData.put("releaseDate", movie.getReleaseDate());
+        movieData.put("plot", movie.getPlot());
+        movieData.put("rating", movie.getRating());
+        movieData.put(FIELD_DELETED, false);
+        movieData.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+        return movieData;
+    }
+
+    /**
+     * Ejecutor que pasa las tareas de una en una y en orden a otro ejecutor.
+     */
+    private static class SerialExecutor implements Executor {
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private final Executor executor;
+        private Runnable active;
+
+        SerialExecutor(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public synchronized void execute(Runnable runnable) {
+            tasks.add(() -> {
+                try {
+                    runnable.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+            if (active == null) {
+                scheduleNext();
+            }
+        }
+
+        private synchronized void scheduleNext() {
+            active = tasks.poll();
+            if (active != null) {
+                executor.execute(active);
+            }
+        }
+    }
+}
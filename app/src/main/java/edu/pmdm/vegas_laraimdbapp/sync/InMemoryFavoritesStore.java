@@ -0,0 +1,351 @@
+package edu.pmdm.vegas_laraimdbapp.sync;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
+import edu.pmdm.vegas_laraimdbapp.models.OutboxOperation;
+import edu.pmdm.vegas_laraimdbapp.models.RemoteFavorite;
+
+/**
+ * Almacén remoto de favoritos en memoria, con la misma semántica de consultas que Firestore
+ * (marca de tiempo del servidor por lote, borrado lógico, orden por updatedAt o por ID y cursores).
+ * Permite añadir latencia y fallos para medir la sincronización en la JVM sin un proyecto de Firebase.
+ * No usa clases de Android.
+ */
+public class InMemoryFavoritesStore implements RemoteFavoritesStore {
+
+    // Orden de la lectura completa (por ID de documento)
+    private static final Comparator<RemoteFavorite> BY_ID = (a, b) -> a.getMovieId().compareTo(b.getMovieId());
+    // Orden de la lectura incremental (por updatedAt; a igualdad, por ID como Firestore)
+    private static final Comparator<RemoteFavorite> BY_UPDATED_AT = (a, b) -> {
+        int byTime = Long.compare(a.getUpdatedAt(), b.getUpdatedAt());
+        return byTime != 0 ? byTime : BY_ID.compare(a, b);
+    };
+
+    // Documentos de cada usuario por ID de película (protegido por this)
+    private final Map<String, Map<String, RemoteFavorite>> users = new HashMap<>();
+    private final List<Subscription> subscriptions = new ArrayList<>();
+    private final ScheduledExecutorService scheduler;
+    private final Random random;
+    private long clock = 0; // Última marca de tiempo del "servidor"
+
+    // Fallos y latencia simulados
+    private volatile long minLatencyMs = 0;
+    private volatile long maxLatencyMs = 0;
+    private volatile double failureRate = 0;
+    private int failNext = 0; // Peticiones que fallarán sí o sí (protegido por this)
+
+    // Métricas
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong documentsRead = new AtomicLong();
+    private final AtomicLong documentsWritten = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    /**
+     * Constructor con semilla aleatoria
+     */
+    public InMemoryFavoritesStore() {
+        this(System.nanoTime());
+    }
+
+    /**
+     * Constructor
+     * @param seed Semilla de la latencia y los fallos, para repetir una medición
+     */
+    public InMemoryFavoritesStore(long seed) {
+        random = new Random(seed);
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "InMemoryFavoritesStore");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Latencia de cada petición, elegida al azar en el intervalo
+     * @param minMs Mínimo en milisegundos
+     * @param maxMs Máximo en milisegundos
+     */
+    public void setLatency(long minMs, long maxMs) {
+        minLatencyMs = minMs;
+        maxLatencyMs = Math.max(minMs, maxMs);
+    }
+
+    /**
+     * Probabilidad de que falle cada petición
+     * @param rate Entre 0 y 1
+     */
+    public void setFailureRate(double rate) {
+        failureRate = rate;
+    }
+
+    /**
+     * Hace fallar las siguientes peticiones
+     * @param count Número de peticiones
+     */
+    public synchronized void failNext(int count) {
+        failNext = count;
+    }
+
+    // Escrituras de "otro dispositivo", sin latencia ni fallos, para preparar los datos
+
+    /**
+     * Guarda un favorito con la hora actual del servidor
+     * @param userId ID del usuario
+     * @param movie Película
+     */
+    public synchronized void put(String userId, Movie movie) {
+        write(userId, new RemoteFavorite(movie.getId(), movie, false, nextTimestamp()));
+    }
+
+    /**
+     * Guarda un favorito sin updatedAt, como los documentos anteriores a la sincronización incremental
+     * @param userId ID del usuario
+     * @param movie Película
+     */
+    public synchronized void putLegacy(String userId, Movie movie) {
+        write(userId, new RemoteFavorite(movie.getId(), movie, false, 0));
+    }
+
+    /**
+     * Marca un favorito como borrado
+     * @param userId ID del usuario
+     * @param movieId ID de la película
+     */
+    public synchronized void delete(String userId, String movieId) {
+        write(userId, new RemoteFavorite(movieId, null, true, nextTimestamp()));
+    }
+
+    /**
+     * Copia de los documentos de un usuario, para comprobar que el local ha convergido
+     * @param userId ID del usuario
+     * @return Documentos por ID de película
+     */
+    public synchronized Map<String, RemoteFavorite> snapshot(String userId) {
+        return new HashMap<>(documents(userId));
+    }
+
+    @Override
+    public CompletableFuture<ChangePage> fetchChanges(String userId, long sinceMs, Object cursor, int limit) {
+        return deliver(() -> {
+            synchronized (this) {
+                Comparator<RemoteFavorite> order = sinceMs < 0 ? BY_ID : BY_UPDATED_AT;
+                List<RemoteFavorite> matching = new ArrayList<>();
+                for (RemoteFavorite favorite : documents(userId).values()) {
+                    if (sinceMs < 0 || favorite.getUpdatedAt() >= sinceMs) {
+                        matching.add(favorite);
+                    }
+                }
+                Collections.sort(matching, order);
+
+                int from = 0;
+                if (cursor != null) {
+                    int index = Collections.binarySearch(matching, (RemoteFavorite) cursor, order);
+                    from = index >= 0 ? index + 1 : -index - 1;
+                }
+                List<RemoteFavorite> page = new ArrayList<>(matching.subList(from, Math.min(from + limit, matching.size())));
+                documentsRead.addAndGet(page.size());
+                return new ChangePage(page, page.isEmpty() ? null : page.get(page.size() - 1));
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> commit(List<OutboxOperation> operations) {
+        if (operations.size() > MAX_BATCH_SIZE) {
+            CompletableFuture<Void> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new IllegalArgumentException("Lote de " + operations.size() + " escrituras"));
+            return rejected;
+        }
+        List<OutboxOperation> copy = new ArrayList<>(operations);
+        return deliver(() -> {
+            synchronized (this) {
+                long timestamp = nextTimestamp(); // Todo el lote con la misma hora, como serverTimestamp
+                for (OutboxOperation operation : copy) {
+                    boolean add = OutboxOperation.OP_ADD.equals(operation.getOp());
+                    write(operation.getUserId(), new RemoteFavorite(operation.getMovieId(),
+                            add ? operation.getMovie() : null, !add, timestamp));
+                }
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public synchronized Registration listen(String userId, long sinceMs, ChangeListener listener) {
+        Subscription subscription = new Subscription(userId, sinceMs, listener);
+        subscriptions.add(subscription);
+
+        // Primera entrega: todo lo que cumple la consulta, como la primera instantánea de Firestore
+        List<RemoteFavorite> initial = new ArrayList<>();
+        for (RemoteFavorite favorite : documents(userId).values()) {
+            if (subscription.matches(favorite)) {
+                initial.add(favorite);
+            }
+        }
+        subscription.send(initial);
+        return () -> {
+            synchronized (InMemoryFavoritesStore.this) {
+                subscription.active = false;
+                subscriptions.remove(subscription);
+            }
+        };
+    }
+
+    /**
+     * Para el hilo de entregas
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    // Métricas
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getDocumentsRead() {
+        return documentsRead.get();
+    }
+
+    public long getDocumentsWritten() {
+        return documentsWritten.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * Ejecuta una petición tras la latencia simulada, o la hace fallar sin aplicarla.
+     * @param operation Petición
+     * @return Futuro con el resultado
+     */
+    private <T> CompletableFuture<T> deliver(Supplier<T> operation) {
+        requests.incrementAndGet();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        scheduler.schedule(() -> {
+            if (shouldFail()) {
+                failures.incrementAndGet();
+                future.completeExceptionally(new IOException("Fallo simulado del almacén remoto"));
+                return;
+            }
+            try {
+                future.complete(operation.get());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        }, latency(), TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    /**
+     * Decide si la petición en curso falla
+     * @return true si debe fallar
+     */
+    private synchronized boolean shouldFail() {
+        if (failNext > 0) {
+            failNext--;
+            return true;
+        }
+        return failureRate > 0 && random.nextDouble() < failureRate;
+    }
+
+    /**
+     * Latencia de una petición
+     * @return Milisegundos
+     */
+    private synchronized long latency() {
+        long spread = maxLatencyMs - minLatencyMs;
+        return minLatencyMs + (spread > 0 ? (long) (random.nextDouble() * (spread + 1)) : 0);
+    }
+
+    /**
+     * Siguiente marca de tiempo del servidor, siempre creciente
+     * @return Milisegundos desde epoch
+     */
+    private long nextTimestamp() {
+        clock = Math.max(clock + 1, System.currentTimeMillis());
+        return clock;
+    }
+
+    /**
+     * Documentos de un usuario (llamar con el cerrojo tomado)
+     * @param userId ID del usuario
+     * @return Mapa modificable
+     */
+    private Map<String, RemoteFavorite> documents(String userId) {
+        Map<String, RemoteFavorite> documents = users.get(userId);
+        if (documents == null) {
+            documents = new HashMap<>();
+            users.put(userId, documents);
+        }
+        return documents;
+    }
+
+    /**
+     * Guarda un documento y avisa a las escuchas del usuario (llamar con el cerrojo tomado)
+     * @param userId ID del usuario
+     * @param favorite Documento
+     */
+    private void write(String userId, RemoteFavorite favorite) {
+        documents(userId).put(favorite.getMovieId(), favorite);
+        documentsWritten.incrementAndGet();
+        for (Subscription subscription : subscriptions) {
+            if (subscription.userId.equals(userId) && subscription.matches(favorite)) {
+                subscription.send(Collections.singletonList(favorite));
+            }
+        }
+    }
+
+    /**
+     * Escucha registrada. Las entregas de una misma escucha salen en orden aunque la latencia varíe.
+     */
+    private class Subscription {
+        final String userId;
+        final long sinceMs;
+        final ChangeListener listener;
+        volatile boolean active = true;
+        long lastDeliveryAt = 0; // Momento (nanoTime) de la última entrega programada
+
+        Subscription(String userId, long sinceMs, ChangeListener listener) {
+            this.userId = userId;
+            this.sinceMs = sinceMs;
+            this.listener = listener;
+        }
+
+        boolean matches(RemoteFavorite favorite) {
+            return sinceMs < 0 || favorite.getUpdatedAt() >= sinceMs;
+        }
+
+        /**
+         * Programa una entrega (llamar con el cerrojo del almacén tomado)
+         * @param changes Cambios
+         */
+        void send(List<RemoteFavorite> changes) {
+            long now = System.nanoTime();
+            long deliveryAt = Math.max(now + TimeUnit.MILLISECONDS.toNanos(latency()), lastDeliveryAt);
+            lastDeliveryAt = deliveryAt;
+            documentsRead.addAndGet(changes.size());
+            scheduler.schedule(() -> {
+                if (active) {
+                    listener.onChanges(changes);
+                }
+            }, deliveryAt - now, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package edu.pmdm.vegas_laraimdbapp.sync;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import edu.pmdm.vegas_laraimdbapp.models.OutboxOperation;
+import edu.pmdm.vegas_laraimdbapp.models.RemoteFavorite;
+
+/**
+ * Almacén remoto de los favoritos de cada usuario.
+ * No depende de Android ni de Firebase, para poder sustituir Firestore por {@link InMemoryFavoritesStore}
+ * en pruebas y mediciones en la JVM. Los resultados se entregan en un hilo del propio almacén.
+ */
+public interface RemoteFavoritesStore {
+
+    // Límite de escrituras por commit (el de un WriteBatch de Firestore)
+    int MAX_BATCH_SIZE = 500;
+
+    /**
+     * Pide una página de favoritos cambiados.
+     * Con sinceMs >= 0 devuelve los que tienen updatedAt >= sinceMs ordenados por updatedAt;
+     * con sinceMs < 0 devuelve la colección completa ordenada por ID, incluidos los documentos sin updatedAt.
+     * @param userId ID del usuario
+     * @param sinceMs Marca de agua en milisegundos o -1 para la lectura completa
+     * @param cursor Cursor de la página anterior (null en la primera)
+     * @param limit Tamaño máximo de la página
+     * @return Página de cambios
+     */
+    CompletableFuture<ChangePage> fetchChanges(String userId, long sinceMs, Object cursor, int limit);
+
+    /**
+     * Sube de forma atómica un lote de operaciones de la cola local (como mucho {@link #MAX_BATCH_SIZE}).
+     * Las bajas se guardan como borrado lógico para que las vean los demás dispositivos.
+     * @param operations Operaciones
+     * @return Futuro que termina al confirmarse el lote
+     */
+    CompletableFuture<Void> commit(List<OutboxOperation> operations);
+
+    /**
+     * Escucha en tiempo real los favoritos con updatedAt >= sinceMs (todos si sinceMs < 0).
+     * Cada entrega trae solo los documentos añadidos, modificados o quitados desde la anterior
+     * (la primera, todos los que cumplen la consulta), en orden y de una en una. Los quitados llegan como borrados.
+     * No se entregan los ecos de escrituras propias aún sin confirmar.
+     * @param userId ID del usuario
+     * @param sinceMs Marca de agua en milisegundos o -1
+     * @param listener Receptor de los cambios
+     * @return Registro para dejar de escuchar
+     */
+    Registration listen(String userId, long sinceMs, ChangeListener listener);
+
+    /**
+     * Receptor de los cambios de una escucha.
+     */
+    interface ChangeListener {
+        void onChanges(List<RemoteFavorite> changes);
+
+        void onError(Exception e);
+    }
+
+    /**
+     * Registro de una escucha activa.
+     */
+    interface Registration {
+        void remove();
+    }
+
+    /**
+     * Página de cambios devuelta por {@link #fetchChanges(String, long, Object, int)}.
+     */
+    final class ChangePage {
+
+        private final List<RemoteFavorite> changes;
+        private final Object cursor; // Opaco: solo sirve para pedir la página siguiente al mismo almacén
+
+        public ChangePage(List<RemoteFavorite> changes, Object cursor) {
+            this.changes = changes;
+            this.cursor = cursor;
+        }
+
+        public List<RemoteFavorite> getChanges() {
+            return changes;
+        }
+
+        public Object getCursor() {
+            return cursor;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package edu.pmdm.vegas_laraimdbapp.sync;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import edu.pmdm.vegas_laraimdbapp.database.DatabaseExecutor;
+import edu.pmdm.vegas_laraimdbapp.database.FavoriteDatabase;
+import edu.pmdm.vegas_laraimdbapp.models.SessionEvent;
+
+/**
+ * Diario de sesiones: los inicios y cierres de sesión se guardan primero en SQLite
+ * y se suben después a Firestore por lotes, cada uno como un documento independiente en
+ * {@code users/{uid}/activity_log}. Así cada evento cuesta lo mismo sin importar el historial acumulado.
+ * Los eventos ya subidos y antiguos se compactan en un resumen por día.
+ */
+public class SessionJournal {
+
+    private static final String TAG = "SessionJournal";
+
+    // Espera tras el último evento antes de subir, para agrupar las transiciones seguidas
+    private static final long FLUSH_DELAY_MS = 5_000;
+    // Reintento tras un fallo de red
+    private static final long RETRY_DELAY_MS = 60_000;
+    // Límite de escrituras por WriteBatch de Firestore
+    private static final int BATCH_SIZE = 500;
+    // Dos eventos iguales tan seguidos se consideran el mismo (varias pantallas registran el login)
+    private static final long DUPLICATE_WINDOW_MS = 10_000;
+    // Antigüedad a partir de la cual los eventos subidos pasan al resumen diario
+    private static final long COMPACT_AFTER_MS = 7L * 24 * 60 * 60 * 1000;
+
+    private static SessionJournal instance; // Instancia única
+
+    private final FavoriteDatabase database;
+    private final FirebaseFirestore firestore;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicBoolean flushing = new AtomicBoolean(false); // Una sola subida en curso
+    private final Runnable flushRunnable = this::flush;
+
+    /**
+     * Constructor privado
+     * @param context Contexto
+     */
+    private SessionJournal(Context context) {
+        database = FavoriteDatabase.getInstance(context);
+        firestore = FirebaseFirestore.getInstance();
+    }
+
+    /**
+     * Obtener la instancia única del diario
+     * @param context Contexto
+     * @return Instancia del diario
+     */
+    public static synchronized SessionJournal getInstance(Context context) {
+        if (instance == null) {
+            instance = new SessionJournal(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Añade un evento al diario local y programa su subida.
+     * Si el último evento del usuario era un inicio sin cierre (la app se cerró sin logout),
+     * se registra antes un cierre automático con la misma hora.
+     * @param userId ID del usuario
+     * @param type Tipo de evento
+     * @param time Fecha legible del evento
+     */
+    public void record(String userId, String type, String time) {
+        long now = System.currentTimeMillis();
+        DatabaseExecutor.io().execute(() -> {
+            SessionEvent last = database.getLastSessionEvent(userId);
+            if (last != null && last.getType().equals(type)) {
+                if (now - last.getTimestamp() < DUPLICATE_WINDOW_MS) {
+                    return; // Mismo evento registrado desde otra pantalla
+                }
+                if (SessionEvent.TYPE_LOGIN.equals(type)) {
+                    database.appendSessionEvent(userId, SessionEvent.TYPE_LOGOUT, time, now);
+                }
+            }
+            database.appendSessionEvent(userId, type, time, now);
+            scheduleFlush(FLUSH_DELAY_MS);
+        });
+    }
+
+    /**
+     * Programa una subida, sustituyendo la que hubiera pendiente.
+     * @param delayMs Espera en milisegundos
+     */
+    public void scheduleFlush(long delayMs) {
+        mainHandler.removeCallbacks(flushRunnable);
+        mainHandler.postDelayed(flushRunnable, delayMs);
+    }
+
+    /**
+     * Sube los eventos pendientes por lotes y, al terminar, compacta los antiguos.
+     */
+    private void flush() {
+        if (!flushing.compareAndSet(false, true)) {
+            return;
+        }
+        DatabaseExecutor.io().execute(this::flushNextBatch);
+    }
+
+    /**
+     * Sube un lote y encadena el siguiente hasta vaciar el diario.
+     */
+    private void flushNextBatch() {
+        List<SessionEvent> events = database.getPendingSessionEvents(BATCH_SIZE);
+        if (events.isEmpty()) {
+            int compacted = database.compactSessionJournal(System.currentTimeMillis() - COMPACT_AFTER_MS);
+            if (compacted > 0) {
+                Log.d(TAG, "Eventos compactados en el resumen diario: " + compacted);
+            }
+            flushing.set(false);
+            return;
+        }
+
+        WriteBatch batch = firestore.batch();
+        for (SessionEvent event : events) {
+            Map<String, Object> data = new HashMap<>();
+            data.put("type", event.getType());
+            data.put("time", event.getTime());
+            data.put("timestamp", event.getTimestamp());
+            // ID determinista: si se reintenta un lote ya subido, se sobrescribe en vez de duplicarse
+            String docId = event.getTimestamp() + "_" + event.getId();
+            batch.set(firestore.collection("users").document(event.getUserId())
+                    .collection("activity_log").document(docId), data);
+        }
+
+        long start = System.currentTimeMillis();
+        batch.commit()
+                .addOnSuccessListener(DatabaseExecutor.io(), aVoid -> {
+                    database.markSessionEventsSynced(events);
+                    Log.d(TAG, events.size() + " eventos de sesión subidos en " + (System.currentTimeMillis() - start) + " ms");
+                    flushNextBatch();
+                })
+                .addOnFailureListener(DatabaseExecutor.io(), e -> {
+                    Log.e(TAG, "Error al subir el diario de sesiones, se reintentará", e);
+                    flushing.set(false);
+                    scheduleFlush(RETRY_DELAY_MS);
+                });
+    }
+}
@@ -0,0 +1,183 @@
+package edu.pmdm.vegas_laraimdbapp.sync;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+
+import java.util.Locale;
+
+/**
+ * Punto único para lanzar la sincronización de favoritos con Firestore.
+ * Los avisos (arranque, vuelta a primer plano, pantalla de favoritos...) se agrupan en una ventana de espera,
+ * se descartan si la última sincronización del mismo usuario es reciente y nunca hay más de una en curso.
+ * Todo el estado se toca solo en el hilo principal.
+ */
+public class SyncScheduler {
+
+    private static final String TAG = "SyncScheduler";
+
+    // Espera tras el último aviso antes de sincronizar, para juntar los que llegan seguidos
+    private static final long DEBOUNCE_MS = 1_000;
+    // Tiempo mínimo entre dos sincronizaciones del mismo usuario, salvo que se fuerce
+    private static final long MIN_INTERVAL_MS = 5 * 60_000;
+
+    public static final String REASON_STARTUP = "startup";
+    public static final String REASON_FOREGROUND = "foreground";
+    public static final String REASON_FAVORITES_SCREEN = "favorites_screen";
+    public static final String REASON_RERUN = "rerun";
+
+    private static SyncScheduler instance; // Instancia única
+
+    private final FavoritesSyncEngine syncEngine;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable runRunnable = this::runIfDue;
+
+    // Aviso pendiente dentro de la ventana de espera
+    private String pendingReason;
+    private boolean pendingForce;
+
+    // Sincronización en curso
+    private boolean running = false;
+    private String rerunReason; // Aviso forzado llegado durante la sincronización en curso
+
+    // Última sincronización lanzada
+    private String lastUserId;
+    private long lastRunAt = 0; // elapsedRealtime
+    private String lastReason;
+    private long lastDurationMs = 0;
+
+    // Métricas
+    private long requests = 0;
+    private long runs = 0;
+    private long coalesced = 0; // Avisos absorbidos por otro pendiente o por la sincronización en curso
+    private long throttled = 0; // Avisos descartados por el intervalo mínimo
+
+    /**
+     * Constructor privado
+     * @param context Contexto
+     */
+    private SyncScheduler(Context context) {
+        syncEngine = FavoritesSyncEngine.getInstance(context.getApplicationContext());
+    }
+
+    /**
+     * Obtener la instancia única del planificador
+     * @param context Contexto
+     * @return Instancia del planificador
+     */
+    public static synchronized SyncScheduler getInstance(Context context) {
+        if (instance == null) {
+            instance = new SyncScheduler(context);
+        }
+        return instance;
+    }
+
+    /**
+     * Pide una sincronización respetando el intervalo mínimo.
+     * @param reason Motivo del aviso, para diagnóstico
+     */
+    public void requestSync(String reason) {
+        requestSync(reason, false);
+    }
+
+    /**
+     * Pide una sincronización.
+     * @param reason Motivo del aviso, para diagnóstico
+     * @param force true para saltarse el intervalo mínimo (acción explícita del usuario)
+     */
+    public void requestSync(String reason, boolean force) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mainHandler.post(() -> requestSync(reason, force));
+            return;
+        }
+        requests++;
+        if (pendingReason != null) {
+            coalesced++; // Se queda el último motivo; basta con una sincronización
+        }
+        pendingReason = reason;
+        pendingForce |= force;
+        mainHandler.removeCallbacks(runRunnable);
+        mainHandler.postDelayed(runRunnable, DEBOUNCE_MS);
+    }
+
+    /**
+     * Lanza la sincronización pendiente si no hay otra en curso y ha pasado el intervalo mínimo.
+     */
+    private void runIfDue() {
+        String reason = pendingReason;
+        boolean force = pendingForce;
+        pendingReason = null;
+        pendingForce = false;
+        if (reason == null) {
+            return;
+        }
+
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) {
+            return;
+        }
+        String userId = user.getUid();
+
+        if (running) {
+            coalesced++;
+            if (force) {
+                rerunReason = reason; // Se repite al acabar la actual
+            }
+            Log.d(TAG, "Aviso '" + reason + "' absorbido por la sincronización en curso");
+            return;
+        }
+
+        long now = SystemClock.elapsedRealtime();
+        long sinceLast = now - lastRunAt;
+        if (!force && userId.equals(lastUserId) && lastRunAt != 0 && sinceLast < MIN_INTERVAL_MS) {
+            throttled++;
+            Log.d(TAG, "Aviso '" + reason + "' descartado: última sincronización hace " + sinceLast / 1000 + " s");
+            return;
+        }
+
+        running = true;
+        runs++;
+        lastUserId = userId;
+        lastRunAt = now;
+        lastReason = reason;
+        Log.d(TAG, "Sincronizando favoritos (motivo: " + reason + ")");
+        syncEngine.sync(userId).whenComplete((documents, error) -> mainHandler.post(() -> onRunFinished(now)));
+    }
+
+    /**
+     * Cierra la sincronización en curso y repite si llegó un aviso forzado mientras tanto.
+     * @param start Inicio de la sincronización
+     */
+    private void onRunFinished(long start) {
+        running = false;
+        lastDurationMs = SystemClock.elapsedRealtime() - start;
+        if (rerunReason != null) {
+            String reason = rerunReason;
+            rerunReason = null;
+            requestSync(REASON_RERUN + ":" + reason, true);
+        }
+    }
+
+    /**
+     * Motivo de la última sincronización lanzada.
+     */
+    public String getLastReason() {
+        return lastReason;
+    }
+
+    /**
+     * Resumen del planificador para la pantalla de depuración.
+     * @return Texto con avisos, sincronizaciones y último motivo
+     */
+    public String report() {
+        long ago = lastRunAt == 0 ? -1 : (SystemClock.elapsedRealtime() - lastRunAt) / 1000;
+        return String.format(Locale.ROOT,
+                "Sincronización: %d avisos, %d ejecuciones, %d agrupados, %d descartados por intervalo | última: %s hace %d s, %d ms",
+                requests, runs, coalesced, throttled, lastReason, ago, lastDurationMs);
+    }
+}
@@ -6,18 +6,15 @@ import android.content.Context;
 import android.content.SharedPreferences;
 import android.util.Log;
 
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
+import edu.pmdm.vegas_laraimdbapp.database.DatabaseExecutor;
 import edu.pmdm.vegas_laraimdbapp.database.FavoriteDatabase;
-import edu.pmdm.vegas_laraimdbapp.models.Movie;
+import edu.pmdm.vegas_laraimdbapp.models.SessionEvent;
 import edu.pmdm.vegas_laraimdbapp.utils.KeystoreManager;
 
 /**
@@ -37,12 +34,12 @@ public class UserSyncManager {
     public UserSyncManager(Context context) {
         this.context = context;
         this.db = FirebaseFirestore.getInstance();
-        this.databaseHelper = new FavoriteDatabase(context);
+        this.databaseHelper = FavoriteDatabase.getInstance(context);
         this.keystoreManager = new KeystoreManager(context);
     }
 
     /**
-     * Registrar un login en Firestore y SQLite
+     * Registrar un login en el diario de sesiones y SQLite
      * @param userId
      */
     public void registerLogin(String userId) {
@@ -51,43 +48,21 @@ public class UserSyncManager {
         }
 
         String loginTime = getCurrentDateTime();
-        DocumentReference userRef = db.collection("users").document(userId);
 
-        // Obtener el último login registrado para verificar si tiene logout_time
-        userRef.get().addOnSuccessListener(documentSnapshot -> {
-            if (documentSnapshot.exists() && documentSnapshot.contains("activity_log")) {
-                List<Map<String, Object>> logs = (List<Map<String, Object>>) documentSnapshot.get("activity_log");
-                if (logs != null && !logs.isEmpty()) {
-                    Map<String, Object> lastLog = logs.get(logs.size() - 1);
-                    if (lastLog.get("logout_time") == null) {
-                        //  Si la app se cerró sin logout, registrar un logout automático
-                        lastLog.put("logout_time", loginTime);
-                    }
-                }
-                //  Registrar el nuevo login
-                Map<String, Object> newLogin = new HashMap<>();
-                newLogin.put("login_time", loginTime);
-                newLogin.put("logout_time", null);
-
-                logs.add(newLogin);
-
-                userRef.update("activity_log", logs)
-                        .addOnSuccessListener(aVoid -> Log.d("UserSyncManager", " Login registrado en Firestore: " + loginTime))
-                        .addOnFailureListener(e -> Log.e("UserSyncManager", " Error al registrar login en Firestore", e));
-            }
-        });
+        //  Añadir el evento al diario local; se sube a Firestore por lotes (con logout automático si faltaba)
+        SessionJournal.getInstance(context).record(userId, SessionEvent.TYPE_LOGIN, loginTime);
 
         //  Guardar en SharedPreferences
         SharedPreferences.Editor editor = context.getSharedPreferences("UserPrefs", Context.MODE_PRIVATE).edit();
         editor.putString("last_login", loginTime);
         editor.apply();
 
-        //  Guardar en SQLite
-        databaseHelper.registerLogin(userId, loginTime);
+        //  Guardar en SQLite (en segundo plano)
+        DatabaseExecutor.io().execute(() -> databaseHelper.registerLogin(userId, loginTime));
     }
 
     /**
-     * Registrar un logout en Firestore y SQLite
+     * Registrar un logout en el diario de sesiones y SQLite
      * @param userId Id del usuario
      */
     public void registerLogout(String userId) {
@@ -97,31 +72,17 @@ public class UserSyncManager {
         }
 
         String logoutTime = getCurrentDateTime();
-        DocumentReference userRef = db.collection("users").document(userId);
 
-        userRef.get().addOnSuccessListener(documentSnapshot -> {
-            if (documentSnapshot.exists() && documentSnapshot.contains("activity_log")) {
-                List<Map<String, Object>> logs = (List<Map<String, Object>>) documentSnapshot.get("activity_log");
-                if (logs != null && !logs.isEmpty()) {
-                    Map<String, Object> lastLog = logs.get(logs.size() - 1);
-                    if (lastLog.get("logout_time") == null) {
-                        //  Actualizar el último login con el logout_time
-                        lastLog.put("logout_time", logoutTime);
-                        userRef.update("activity_log", logs)
-                                .addOnSuccessListener(aVoid -> Log.d("UserSyncManager", " Logout registrado en Firestore: " + logoutTime))
-                                .addOnFailureListener(e -> Log.e("UserSyncManager", " Error al registrar logout en Firestore", e));
-                    }
-                }
-            }
-        }).addOnFailureListener(e -> Log.e("UserSyncManager", "Error al obtener actividad de Firestore", e));
+        // Añadir el evento al diario local; se sube a Firestore por lotes
+        SessionJournal.getInstance(context).record(userId, SessionEvent.TYPE_LOGOUT, logoutTime);
 
         // Guardar en SharedPreferences
         SharedPreferences.Editor editor = context.getSharedPreferences("UserPrefs", Context.MODE_PRIVATE).edit();
         editor.putString("last_logout", logoutTime);
         editor.apply();
 
-        // Guardar en SQLite
-        databaseHelper.registerLogout(userId, logoutTime);
+        // Guardar en SQLite (en segundo plano)
+        DatabaseExecutor.io().execute(() -> databaseHelper.registerLogout(userId, logoutTime));
     }
 
     /**
@@ -132,41 +93,13 @@ public class UserSyncManager {
         return new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new java.util.Date());
     }
 
-    /**
-     * Sincroniza las películas desde Firestore a SQLite
-     */
-    public void syncMoviesFromFirestore() {
-        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-        if (user == null) {
-            Log.e("FavoritesManager", "Usuario no autenticado. No se pueden sincronizar películas.");
-            return;
-        }
-
-        String userId = user.getUid();
-        db.collection("movies")
-                .get()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        FavoriteDatabase database = new FavoriteDatabase(context);
-
-                        for (QueryDocumentSnapshot document : task.getResult()) {
-                            Movie movie = document.toObject(Movie.class);
-                            database.addFavorite(movie, userId); // Guardar en SQLite
-                        }
-
-                        Log.d("FavoritesManager", "Películas sincronizadas desde Firestore a SQLite.");
-                    } else {
-                        Log.e("FavoritesManager", "Error al sincronizar películas desde Firestore", task.getException());
-                    }
-                });
-    }
-
     /**
      * Sincroniza los datos del usuario desde Firestore a SQLite y SharedPreferences.
      */
     public void syncUserData(String userId) {
         DocumentReference userRef = db.collection("users").document(userId);
-        userRef.get().addOnSuccessListener(documentSnapshot -> {
+        // El descifrado y la escritura en SQLite se hacen en segundo plano
+        userRef.get().addOnSuccessListener(DatabaseExecutor.io(), documentSnapshot -> {
             if (documentSnapshot.exists()) {
                 String email = documentSnapshot.getString("email");
                 String name = documentSnapshot.getString("name");
@@ -214,8 +147,9 @@ public class UserSyncManager {
         String encryptedAddress = keystoreManager.encrypt(address);
         String encryptedPhone = keystoreManager.encrypt(phone);
 
-        // Guardar en SQLite con datos cifrados
-        databaseHelper.updateUser(userId, name, email, null, null, encryptedAddress, encryptedPhone, image);
+        // Guardar en SQLite con datos cifrados (en segundo plano)
+        DatabaseExecutor.io().execute(() ->
+                databaseHelper.updateUser(userId, name, email, null, null, encryptedAddress, encryptedPhone, image));
 
         // Guardar en Firestore con datos cifrados
         Map<String, Object> userData = new HashMap<>();
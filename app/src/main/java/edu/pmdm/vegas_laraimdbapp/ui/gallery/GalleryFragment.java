@@ -1,6 +1,5 @@
 package edu.pmdm.vegas_laraimdbapp.ui.gallery;
 
-import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.bluetooth.BluetoothAdapter;
 import android.content.Context;
@@ -9,52 +8,62 @@ import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.Toast;
 
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.core.app.ActivityCompat;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 
-import java.util.ArrayList;
-import java.util.List;
 
 import edu.pmdm.vegas_laraimdbapp.LogInActivity;
 import edu.pmdm.vegas_laraimdbapp.MovieDetailsActivity;
 import edu.pmdm.vegas_laraimdbapp.R;
-import edu.pmdm.vegas_laraimdbapp.adapter.MovieAdapter;
+import edu.pmdm.vegas_laraimdbapp.adapter.FavoritesPagedAdapter;
 import edu.pmdm.vegas_laraimdbapp.bluetooth.BluetoothSimulator;
-import edu.pmdm.vegas_laraimdbapp.database.FavoriteDatabase;
-import edu.pmdm.vegas_laraimdbapp.database.FavoritesManager;
+import edu.pmdm.vegas_laraimdbapp.database.DatabaseExecutor;
+import edu.pmdm.vegas_laraimdbapp.database.FavoritesPagedSource;
 import edu.pmdm.vegas_laraimdbapp.models.Movie;
+import edu.pmdm.vegas_laraimdbapp.repository.FavoritesRepository;
+import edu.pmdm.vegas_laraimdbapp.sync.SyncScheduler;
 
 /**
  * Fragmento que muestra las películas favoritas del usuario.
  */
 public class GalleryFragment extends Fragment {
 
+    // Espera tras la última pulsación antes de lanzar la búsqueda
+    private static final long SEARCH_DEBOUNCE_MS = 300;
+
     //Declarar variables
     private RecyclerView recyclerView;
-    private MovieAdapter movieAdapter;
+    private FavoritesPagedAdapter movieAdapter;
     private BluetoothAdapter bluetoothAdapter;
     private ActivityResultLauncher<Intent> enableBluetoothLauncher;
-    private FavoritesManager favoritesManager;
     private String userId;
-    private List<Movie> favoriteMovies = new ArrayList<>();
-    private FavoriteDatabase database;
+    private FavoritesRepository favoritesRepository; // Acceso asíncrono a los favoritos
+    private FavoritesPagedSource favoritesSource; // Páginas de favoritos alrededor de la posición visible
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    private Runnable pendingSearch; // Búsqueda programada a la espera del debounce
 
-    @SuppressLint("NotifyDataSetChanged")
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         View root = inflater.inflate(R.layout.fragment_gallery, container, false);
@@ -75,7 +84,6 @@ public class GalleryFragment extends Fragment {
                     }
                 }
         );
-        favoritesManager = FavoritesManager.getInstance(getContext());
 
         //  Obtener el usuario autenticado de Firebase
         FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
@@ -89,15 +97,29 @@ public class GalleryFragment extends Fragment {
             return root;
         }
 
-        database = new FavoriteDatabase(getContext());
-
+        favoritesRepository = FavoritesRepository.getInstance(requireContext());
 
-
-        movieAdapter = new MovieAdapter(getContext(), favoriteMovies, this::onMovieClick);
+        movieAdapter = new FavoritesPagedAdapter(getContext(), this::onMovieClick);
         movieAdapter.setOnMovieLongClickListener(this::onMovieLongClick);
+        favoritesSource = new FavoritesPagedSource(getContext(), userId, movieAdapter);
+        movieAdapter.setSource(favoritesSource);
         recyclerView.setAdapter(movieAdapter);
-        movieAdapter.notifyDataSetChanged();
-        loadMoviesFromDatabase(); //  Cargar películas desde SQLite
+
+        EditText searchBox = root.findViewById(R.id.searchFavorites);
+        searchBox.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                scheduleSearch(s.toString());
+            }
+        });
         Button shareButton = root.findViewById(R.id.btnShare);
         shareButton.setOnClickListener(v -> {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S &&
@@ -111,34 +133,69 @@ public class GalleryFragment extends Fragment {
         return root;
     }
 
-    private void loadMoviesFromDatabase() {
-        favoriteMovies.clear();
-        favoriteMovies.addAll(database.getAllFavorites(userId)); // Recuperar películas de SQLite
-        movieAdapter.notifyDataSetChanged();
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        if (userId == null) {
+            return;
+        }
+        // La lista se recarga cuando cambia la tabla de favoritos (alta, baja o sincronización), no en cada onResume
+        GalleryViewModel viewModel = new ViewModelProvider(this).get(GalleryViewModel.class);
+        viewModel.getFavoritesCount(userId).observe(getViewLifecycleOwner(), favoritesSource::onFavoritesChanged);
     }
 
     @Override
     public void onResume() {
         super.onResume();
         if (userId != null) {
-            favoritesManager.syncFavoritesFromFirestore();  // Sincronizar favoritos con Firestore
-            favoriteMovies = favoritesManager.getFavoriteMovies(userId);
-            movieAdapter.updateMovies(favoriteMovies);
+            // Sincronizar favoritos con Firestore si hace tiempo de la última; el observador refresca al terminar
+            SyncScheduler.getInstance(requireContext()).requestSync(SyncScheduler.REASON_FAVORITES_SCREEN);
+        }
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (pendingSearch != null) {
+            searchHandler.removeCallbacks(pendingSearch);
         }
     }
 
+    /**
+     * Programa la búsqueda en favoritos cuando el usuario deja de escribir.
+     * @param query Texto introducido.
+     */
+    private void scheduleSearch(String query) {
+        if (pendingSearch != null) {
+            searchHandler.removeCallbacks(pendingSearch);
+        }
+        pendingSearch = () -> {
+            recyclerView.scrollToPosition(0);
+            favoritesSource.setQuery(query);
+        };
+        searchHandler.postDelayed(pendingSearch, SEARCH_DEBOUNCE_MS);
+    }
+
     /**
      * Maneja el clic en una película.
      * @param movie Película seleccionada.
      */
     private void onMovieClick(Movie movie) {
-        Intent intent = new Intent(getContext(), MovieDetailsActivity.class);
-        intent.putExtra("id", movie.getId());
-        intent.putExtra("title", movie.getTitle());
-        intent.putExtra("imageUrl", movie.getImage());
-        intent.putExtra("releaseDate", movie.getReleaseDate());
-        intent.putExtra("plot", movie.getPlot());
-        startActivity(intent);
+        // La cuadrícula solo carga ID, título y carátula; el resto se lee al abrir el detalle
+        favoritesRepository.getFavorite(movie.getId(), userId)
+                .thenAcceptAsync(full -> {
+                    if (!isAdded()) {
+                        return;
+                    }
+                    Movie selected = full != null ? full : movie;
+                    Intent intent = new Intent(getContext(), MovieDetailsActivity.class);
+                    intent.putExtra("id", selected.getId());
+                    intent.putExtra("title", selected.getTitle());
+                    intent.putExtra("imageUrl", selected.getImage());
+                    intent.putExtra("releaseDate", selected.getReleaseDate());
+                    intent.putExtra("plot", selected.getPlot());
+                    startActivity(intent);
+                }, DatabaseExecutor.main());
     }
 
     /**
@@ -146,17 +203,20 @@ public class GalleryFragment extends Fragment {
      * @param movie Película seleccionada.
      */
     private void onMovieLongClick(Movie movie) {
-        favoritesManager.removeFavorite(movie, userId);
-        movieAdapter.updateMovies(favoritesManager.getFavoriteMovies(userId));
-
-        Toast.makeText(getContext(), "Película eliminada de favoritos: " + movie.getTitle(), Toast.LENGTH_SHORT).show();
+        favoritesRepository.removeFavorite(movie, userId)
+                .thenRunAsync(() -> {
+                    if (!isAdded()) {
+                        return;
+                    }
+                    Toast.makeText(getContext(), "Película eliminada de favoritos: " + movie.getTitle(), Toast.LENGTH_SHORT).show();
+                }, DatabaseExecutor.main());
     }
 
     /**
      * Verifica si el dispositivo tiene Bluetooth y si está habilitado antes de compartir.
      */
     private void shareFavoritesViaBluetooth() {
-        if (favoriteMovies.isEmpty()) {
+        if (favoritesSource.getCount() == 0) {
             Toast.makeText(getContext(), "No hay películas favoritas para compartir.", Toast.LENGTH_SHORT).show();
             return;
         }
@@ -171,8 +231,15 @@ public class GalleryFragment extends Fragment {
             return;
         }
 
-        BluetoothSimulator bluetoothSimulator = new BluetoothSimulator(requireActivity());
-        bluetoothSimulator.simulateBluetoothConnection(favoriteMovies);
+        // Compartir necesita todos los datos, así que se leen completos solo en este momento
+        favoritesRepository.getAllFavorites(userId)
+                .thenAcceptAsync(favoriteMovies -> {
+                    if (!isAdded()) {
+                        return;
+                    }
+                    BluetoothSimulator bluetoothSimulator = new BluetoothSimulator(requireActivity());
+                    bluetoothSimulator.simulateBluetoothConnection(favoriteMovies);
+                }, DatabaseExecutor.main());
     }
 
     /**
@@ -1,19 +1,41 @@
 package edu.pmdm.vegas_laraimdbapp.ui.gallery;
 
+import android.app.Application;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
-import androidx.lifecycle.ViewModel;
 
-public class GalleryViewModel extends ViewModel {
+import edu.pmdm.vegas_laraimdbapp.database.FavoriteDatabase;
+import edu.pmdm.vegas_laraimdbapp.database.TableLiveData;
+
+/**
+ * ViewModel de la pantalla de favoritos.
+ * Observa la tabla de favoritos y la de películas (de donde salen el título y la carátula de cada favorito)
+ * y vuelve a contar solo cuando una escritura las modifica y mientras la pantalla está visible.
+ */
+public class GalleryViewModel extends AndroidViewModel {
 
-    private final MutableLiveData<String> mText;
+    private LiveData<Integer> favoritesCount;
+    private String userId;
 
-    public GalleryViewModel() {
-        mText = new MutableLiveData<>();
-        mText.setValue("This is gallery fragment");
+    public GalleryViewModel(@NonNull Application application) {
+        super(application);
     }
 
-    public LiveData<String> getText() {
-        return mText;
+    /**
+     * Número de favoritos del usuario. Emite un valor nuevo cada vez que cambia la tabla de favoritos
+     * o los datos de alguna película, para que la cuadrícula vuelva a cargar sus páginas.
+     * @param userId ID del usuario
+     * @return LiveData con el número de favoritos
+     */
+    public LiveData<Integer> getFavoritesCount(String userId) {
+        if (favoritesCount == null || !userId.equals(this.userId)) {
+            this.userId = userId;
+            FavoriteDatabase database = FavoriteDatabase.getInstance(getApplication());
+            favoritesCount = new TableLiveData<>(database.getInvalidationTracker(),
+                    () -> database.countFavorites(userId), FavoriteDatabase.TABLE_FAVORITES, FavoriteDatabase.TABLE_MOVIES);
+        }
+        return favoritesCount;
     }
-}
\ No newline at end of file
+}
@@ -18,18 +18,18 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import edu.pmdm.vegas_laraimdbapp.MovieDetailsActivity;
 import edu.pmdm.vegas_laraimdbapp.R;
 import edu.pmdm.vegas_laraimdbapp.adapter.MovieAdapter;
-import edu.pmdm.vegas_laraimdbapp.api.ApiClientIMDB;
-import edu.pmdm.vegas_laraimdbapp.api.IMDBApiService;
+import edu.pmdm.vegas_laraimdbapp.database.DatabaseExecutor;
 import edu.pmdm.vegas_laraimdbapp.database.FavoritesManager;
 import edu.pmdm.vegas_laraimdbapp.models.Movie;
-import edu.pmdm.vegas_laraimdbapp.models.MovieResponse;
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import edu.pmdm.vegas_laraimdbapp.repository.DetailPrefetcher;
+import edu.pmdm.vegas_laraimdbapp.repository.FavoritesRepository;
+import edu.pmdm.vegas_laraimdbapp.repository.MovieCatalogRepository;
+import edu.pmdm.vegas_laraimdbapp.repository.TopMoviesRepository;
 
 /**
  * Fragmento que muestra las películas más populares.
@@ -39,8 +39,14 @@ public class HomeFragment extends Fragment {
     // Declaración de variables
     private RecyclerView recyclerView;
     private MovieAdapter movieAdapter;
-    private IMDBApiService apiService;
+    private TopMoviesRepository topMoviesRepository;
+    private static final int TOP_LIMIT = 10; // Número de películas a mostrar
     private List<Movie> movieList = new ArrayList<>();
+    private FavoritesManager favoritesManager;
+
+    // Redibuja los distintivos cuando cambia el conjunto de favoritos
+    private final FavoritesManager.OnFavoritesChangedListener favoritesListener =
+            () -> movieAdapter.notifyItemRangeChanged(0, movieAdapter.getItemCount());
 
     @Nullable
     @Override
@@ -52,10 +58,12 @@ public class HomeFragment extends Fragment {
         recyclerView.setLayoutManager(new GridLayoutManager(getContext(), 2)); // Asignamos el LayoutManager en 2 columnas
         movieAdapter = new MovieAdapter(getContext(), movieList, this::onMovieClick); // Asignamos el adaptador
         movieAdapter.setOnMovieLongClickListener(this::onMovieLongClick); // Asignamos el listener para añadir a favoritos
+        favoritesManager = FavoritesManager.getInstance(getContext());
+        movieAdapter.setFavoritesManager(favoritesManager); // Distintivo de favorita en cada carátula
         recyclerView.setAdapter(movieAdapter); // Asignamos el adaptador al RecyclerView
 
-        // Inicializa el servicio de la API
-        apiService = ApiClientIMDB.getClient().create(IMDBApiService.class);
+        // Inicializa el repositorio del top (caché local + API)
+        topMoviesRepository = TopMoviesRepository.getInstance(requireContext());
 
         // Carga las películas
         loadTop10Movies();
@@ -63,41 +71,79 @@ public class HomeFragment extends Fragment {
         return root; // Devolvemos la vista
     }
 
+    @Override
+    public void onStart() {
+        super.onStart();
+        favoritesManager.addOnFavoritesChangedListener(favoritesListener);
+        favoritesManager.loadFavoriteIds(favoritesListener::onFavoritesChanged); // Carga única del índice
+    }
+
+    @Override
+    public void onStop() {
+        super.onStop();
+        favoritesManager.removeOnFavoritesChangedListener(favoritesListener);
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        DetailPrefetcher.getInstance().cancel(); // Sin esta pantalla no hace falta seguir precargando
+    }
+
     /**
      * Método que carga las películas más populares.
+     * Pinta primero la copia local y después revalida en segundo plano.
      */
     private void loadTop10Movies() {
-        Call<MovieResponse> call = apiService.getTopMovies("ALL"); // Llamada a la API para obtener las películas más populares
-        call.enqueue(new Callback<MovieResponse>() {
+        // La copia local se lee de disco (SharedPreferences + Gson): fuera del hilo principal
+        CompletableFuture.supplyAsync(topMoviesRepository::getCachedMovies, DatabaseExecutor.io())
+                .thenAcceptAsync(cached -> {
+                    if (isAdded()) {
+                        showAndRevalidate(cached);
+                    }
+                }, DatabaseExecutor.main());
+    }
+
+    /**
+     * Pinta la última lista guardada y la revalida contra la API
+     * @param cached Lista guardada (vacía si no hay)
+     */
+    private void showAndRevalidate(List<Movie> cached) {
+        movieList.clear();
+        movieList.addAll(cached);
+        movieAdapter.notifyDataSetChanged();
+        DetailPrefetcher.getInstance().prefetch(movieList, TOP_LIMIT); // Calentar la caché de detalles
+
+        // Revalidar en segundo plano y actualizar solo las posiciones que cambian
+        topMoviesRepository.refresh(TOP_LIMIT, movieList.isEmpty(), new TopMoviesRepository.RefreshCallback() {
             @Override
-            public void onResponse(Call<MovieResponse> call, Response<MovieResponse> response) {
-                if (response.isSuccessful() && response.body() != null) { // Si la respuesta es exitosa y contiene datos
-                    List<MovieResponse.Edge> edges = response.body().getData().getTopMeterTitles().getEdges(); // Obtenemos las películas
-                    movieList.clear(); // Limpiamos la lista de películas
-
-                    int limit = Math.min(edges.size(), 10); // Limitar a las 10 primeras películas con mejor ranking
-                    for (int i = 0; i < limit; i++) { // Recorremos las películas
-                        MovieResponse.Node node = edges.get(i).getNode(); // Obtenemos el nodo de la película
-                        if (node != null) { // Si el nodo no es nulo
-                            movieList.add(new Movie( // Agregamos la película a la lista
-                                    node.getId(),
-                                    node.getImageUrl(),
-                                    node.getTitleText(),
-                                    node.getPlotText(),
-                                    node.getRating(),
-                                    node.getReleaseDateString()
-                            ));
-                        }
+            public void onMoviesUpdated(List<Movie> movies, List<Integer> changedRanks) {
+                if (!isAdded()) {
+                    return;
+                }
+                int oldSize = movieList.size();
+                movieList.clear();
+                movieList.addAll(movies);
+
+                for (int rank : changedRanks) {
+                    if (rank < Math.min(oldSize, movies.size())) {
+                        movieAdapter.notifyItemChanged(rank);
                     }
-                    movieAdapter.notifyDataSetChanged(); // Notificamos al adaptador que los datos han cambiado
-                } else {
-                    Log.e("API_ERROR", "Código de respuesta: " + response.code());
                 }
+                if (movies.size() > oldSize) {
+                    movieAdapter.notifyItemRangeInserted(oldSize, movies.size() - oldSize);
+                } else if (movies.size() < oldSize) {
+                    movieAdapter.notifyItemRangeRemoved(movies.size(), oldSize - movies.size());
+                }
+                DetailPrefetcher.getInstance().prefetch(movies, TOP_LIMIT);
+                MovieCatalogRepository.getInstance(requireContext()).save(movies); // Copia compartida para detalle y favoritos
             }
 
             @Override
-            public void onFailure(Call<MovieResponse> call, Throwable t) {
-                Log.e("API_ERROR", "Error al cargar las películas", t);
+            public void onError(String message) {
+                if (isAdded() && movieList.isEmpty()) {
+                    Toast.makeText(getContext(), "Error al cargar las películas", Toast.LENGTH_SHORT).show();
+                }
             }
         });
     }
@@ -134,17 +180,21 @@ public class HomeFragment extends Fragment {
             return;
         }
 
-        // Agregar la película a favoritos
-        FavoritesManager favoritesManager = FavoritesManager.getInstance(getContext());
-
-        // Verificar si la película ya está en favoritos
-        if (favoritesManager.addFavorite(movie, userId)) {
-            Log.i("HomeFragment", "Película ya estaba en favoritos para usuario: " + userId);
-            Toast.makeText(getContext(), "Película ya estaba en favoritos", Toast.LENGTH_SHORT).show();
-        } else {
-            Log.i("HomeFragment", "Película agregada a favoritos para usuario: " + userId);
-            Toast.makeText(getContext(), "Película agregada a favoritos", Toast.LENGTH_SHORT).show();
-        }
+        // Agregar la película a favoritos en segundo plano y avisar al terminar
+        FavoritesRepository.getInstance(requireContext()).addFavorite(movie, userId)
+                .thenAcceptAsync(alreadyFavorite -> {
+                    if (!isAdded()) {
+                        return;
+                    }
+                    // Verificar si la película ya estaba en favoritos
+                    if (alreadyFavorite) {
+                        Log.i("HomeFragment", "Película ya estaba en favoritos para usuario: " + userId);
+                        Toast.makeText(getContext(), "Película ya estaba en favoritos", Toast.LENGTH_SHORT).show();
+                    } else {
+                        Log.i("HomeFragment", "Película agregada a favoritos para usuario: " + userId);
+                        Toast.makeText(getContext(), "Película agregada a favoritos", Toast.LENGTH_SHORT).show();
+                    }
+                }, DatabaseExecutor.main());
     }
 
 
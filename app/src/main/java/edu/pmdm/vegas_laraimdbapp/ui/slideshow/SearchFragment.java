@@ -20,13 +20,9 @@ import java.util.Calendar;
 import java.util.List;
 
 import edu.pmdm.vegas_laraimdbapp.MovieListActivity;
-import edu.pmdm.vegas_laraimdbapp.api.ApiClientTMDB;
-import edu.pmdm.vegas_laraimdbapp.api.TMDBApiService;
 import edu.pmdm.vegas_laraimdbapp.databinding.FragmentSlideshowBinding;
 import edu.pmdm.vegas_laraimdbapp.models.TMDBGenreResponse;
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import edu.pmdm.vegas_laraimdbapp.repository.GenreRepository;
 
 /**
  * Fragmento que muestra la pantalla de búsqueda de películas.
@@ -38,7 +34,8 @@ public class SearchFragment extends Fragment {
     private Spinner spinnerGenres;
     private EditText etYear;
     private Button btnSearch;
-    private TMDBApiService apiService;
+    private GenreRepository genreRepository;
+    private static final String LANGUAGE = "es-US"; // Idioma del catálogo de géneros
     private List<TMDBGenreResponse.Genre> genreList = new ArrayList<>();
     private String selectedGenreId = "";
 
@@ -54,9 +51,9 @@ public class SearchFragment extends Fragment {
         etYear = binding.etYear; // Asignamos el EditText
         btnSearch = binding.btnSearch; // Asignamos el botón
 
-        apiService = ApiClientTMDB.getClient().create(TMDBApiService.class); // Inicializamos el servicio de la API
+        genreRepository = GenreRepository.getInstance(requireContext()); // Catálogo de géneros guardado
 
-        // Cargar géneros desde la API de TMDB
+        // Cargar géneros (copia local + revalidación)
         loadGenres();
 
         // Configurar el botón de búsqueda con validación del año
@@ -86,44 +83,68 @@ public class SearchFragment extends Fragment {
     }
 
     /**
-     * Método para cargar los géneros de películas desde la API de TMDB y llenar el Spinner.
+     * Método para cargar los géneros de películas y llenar el Spinner.
+     * Se pinta primero el catálogo guardado y se revalida en segundo plano.
      */
     private void loadGenres() {
-        apiService.getGenres("es-US").enqueue(new Callback<TMDBGenreResponse>() {
+        List<TMDBGenreResponse.Genre> cached = genreRepository.getCachedGenres(LANGUAGE);
+        if (!cached.isEmpty()) {
+            showGenres(cached);
+        }
+
+        genreRepository.refresh(LANGUAGE, new GenreRepository.GenresCallback() {
             @Override
-            public void onResponse(Call<TMDBGenreResponse> call, Response<TMDBGenreResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    genreList = response.body().getGenres(); // Obtener la lista de géneros
-                    List<String> genreNames = new ArrayList<>(); // Crear una lista de nombres de géneros
-                    // Llenar la lista con los nombres de los géneros
-                    for (TMDBGenreResponse.Genre genre : genreList) {
-                        genreNames.add(genre.getName());
-                    }
-
-                    // Configurar el Spinner con los nombres de los géneros
-                    ArrayAdapter<String> adapter = new ArrayAdapter<>(getContext(), android.R.layout.simple_spinner_dropdown_item, genreNames);
-                    spinnerGenres.setAdapter(adapter); // Asignar el adaptador al Spinner
-
-                    // Configurar el listener para obtener el ID del género seleccionado
-                    spinnerGenres.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
-                        @Override
-                        public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
-                            selectedGenreId = String.valueOf(genreList.get(position).getId());
-                        }
-
-                        @Override
-                        public void onNothingSelected(AdapterView<?> parent) { }
-                    });
+            public void onGenres(List<TMDBGenreResponse.Genre> genres) {
+                if (binding != null) {
+                    showGenres(genres);
                 }
             }
 
             @Override
-            public void onFailure(Call<TMDBGenreResponse> call, Throwable t) {
-                Toast.makeText(getContext(), "Error al cargar géneros", Toast.LENGTH_SHORT).show();
+            public void onError(String message) {
+                if (binding != null && genreList.isEmpty()) {
+                    Toast.makeText(getContext(), "Error al cargar géneros", Toast.LENGTH_SHORT).show();
+                }
             }
         });
     }
 
+    /**
+     * Llena el Spinner con la lista de géneros.
+     * Si el género elegido sigue en la lista (por ejemplo, al llegar la revalidación), se mantiene seleccionado.
+     * @param genres Lista de géneros.
+     */
+    private void showGenres(List<TMDBGenreResponse.Genre> genres) {
+        String previousGenreId = selectedGenreId; // Un adaptador nuevo vuelve a la posición 0
+        genreList = genres;
+        List<String> genreNames = new ArrayList<>(); // Crear una lista de nombres de géneros
+        // Llenar la lista con los nombres de los géneros
+        for (TMDBGenreResponse.Genre genre : genreList) {
+            genreNames.add(genre.getName());
+        }
+
+        // Configurar el Spinner con los nombres de los géneros
+        ArrayAdapter<String> adapter = new ArrayAdapter<>(requireContext(), android.R.layout.simple_spinner_dropdown_item, genreNames);
+        spinnerGenres.setAdapter(adapter); // Asignar el adaptador al Spinner
+        for (int i = 0; i < genreList.size(); i++) {
+            if (String.valueOf(genreList.get(i).getId()).equals(previousGenreId)) {
+                spinnerGenres.setSelection(i, false);
+                break;
+            }
+        }
+
+        // Configurar el listener para obtener el ID del género seleccionado
+        spinnerGenres.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
+                selectedGenreId = String.valueOf(genreList.get(position).getId());
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> parent) { }
+        });
+    }
+
     /**
      * Método para validar si el año ingresado es un número válido dentro del rango permitido.
      * @param yearInput Cadena de texto ingresada por el usuario.
@@ -8,10 +8,15 @@ import android.os.Bundle;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 
+import edu.pmdm.vegas_laraimdbapp.api.RapidApiKeyManager;
+import edu.pmdm.vegas_laraimdbapp.sync.SyncScheduler;
 import edu.pmdm.vegas_laraimdbapp.sync.UserSyncManager;
 
 /**
  * Clase para manejar el ciclo de vida de la aplicación.
+ * Se registra una sola vez en {@link edu.pmdm.vegas_laraimdbapp.VegasLaraIMDbApp}, así que cuenta las actividades
+ * de toda la aplicación. Solo la vuelta a primer plano pide una sincronización; la navegación entre pantallas
+ * y los giros de pantalla no registran sesiones ni leen de Firestore.
  */
 public class AppLifecycleManager implements Application.ActivityLifecycleCallbacks {
 
@@ -19,6 +24,7 @@ public class AppLifecycleManager implements Application.ActivityLifecycleCallbac
     private static int activityCount = 0;
     private static boolean isAppInForeground = false;
     private final UserSyncManager userSyncManager;
+    private final SyncScheduler syncScheduler;
     private final Context context;
 
     /**
@@ -28,15 +34,11 @@ public class AppLifecycleManager implements Application.ActivityLifecycleCallbac
     public AppLifecycleManager(Context context) {
         this.context = context;
         this.userSyncManager = new UserSyncManager(context);
+        this.syncScheduler = SyncScheduler.getInstance(context);
     }
 
     @Override
     public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
-        // Si hay datos temporales almacenados, los sincronizamos al abrir la app
-        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-        if (user != null) {
-            userSyncManager.syncMoviesFromFirestore();
-        }
     }
 
     @Override
@@ -45,37 +47,32 @@ public class AppLifecycleManager implements Application.ActivityLifecycleCallbac
         if (!isAppInForeground) {
             isAppInForeground = true;
 
-            // Registrar login cuando la app se abre
+            // Registrar login cuando la app se abre y traer los cambios de otros dispositivos
             FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
             if (user != null) {
                 userSyncManager.registerLogin(user.getUid());
+                syncScheduler.requestSync(SyncScheduler.REASON_FOREGROUND);
             }
         }
     }
 
     @Override
     public void onActivityResumed(Activity activity) {
-        // Sincronizar datos del usuario al volver a la app
-        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-        if (user != null) {
-            userSyncManager.syncMoviesFromFirestore();
-        }
     }
 
     @Override
     public void onActivityPaused(Activity activity) {
-        // Guardar en SQLite los cambios antes de que la app quede en segundo plano
-        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-        if (user != null) {
-            userSyncManager.syncMoviesFromFirestore();
-        }
     }
 
     @Override
     public void onActivityStopped(Activity activity) {
         activityCount--;
-        if (activityCount == 0) {
+        // En un giro la actividad se recrea enseguida: no es salir de la aplicación
+        if (activityCount == 0 && !activity.isChangingConfigurations()) {
             isAppInForeground = false;
+            // Guardar el estado de las API Keys: en segundo plano el proceso puede morir sin aviso
+            RapidApiKeyManager.flush();
+
             // Registrar logout cuando la app se cierra
             FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
             if (user != null) {
@@ -86,19 +83,9 @@ public class AppLifecycleManager implements Application.ActivityLifecycleCallbac
 
     @Override
     public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
-        // Guardar datos temporales antes de que la actividad sea destruida
-        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-        if (user != null) {
-            userSyncManager.syncMoviesFromFirestore();
-        }
     }
 
     @Override
     public void onActivityDestroyed(Activity activity) {
-        // Verificar que los datos críticos se han guardado antes de destruir la actividad
-        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-        if (user != null) {
-            userSyncManager.syncMoviesFromFirestore();
-        }
     }
 }
@@ -0,0 +1,291 @@
+package edu.pmdm.vegas_laraimdbapp.api;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import retrofit2.Converter;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del converter en streaming de get-top-meter y get-overview, con respuestas generadas
+ * con la misma forma que las de la API (100 títulos con todos sus campos), y equivalencia con los modelos Gson.
+ */
+public class ImdbStreamingConverterFactoryTest {
+
+    private static final MediaType JSON = MediaType.parse("application/json");
+
+    // Títulos que devuelve get-top-meter en cada respuesta
+    private static final int TOP_METER_SIZE = 100;
+
+    // Como GsonConverterFactory: un adaptador por tipo, creado una vez
+    private static final Gson GSON = new Gson();
+    private static final TypeAdapter<TopMeterResponse> GSON_ADAPTER = GSON.getAdapter(TopMeterResponse.class);
+
+    private final ImdbStreamingConverterFactory factory = ImdbStreamingConverterFactory.create();
+
+    @Test
+    public void topMeter_truncatesToN() throws Exception {
+        List<Movie> movies = convertTop(topMeter(TOP_METER_SIZE));
+
+        assertEquals(IMDBApiService.TOP_N, movies.size());
+        for (int i = 0; i < movies.size(); i++) {
+            assertEquals("tt" + i, movies.get(i).getId());
+        }
+    }
+
+    @Test
+    public void topMeter_fewerThanN_returnsAll() throws Exception {
+        assertEquals(3, convertTop(topMeter(3)).size());
+        assertTrue(convertTop(topMeter(0)).isEmpty());
+    }
+
+    @Test
+    public void topMeter_readsFields() throws Exception {
+        Movie movie = convertTop(topMeter(1)).get(0);
+
+        assertEquals("tt0", movie.getId());
+        assertEquals("Película 0", movie.getTitle());
+        assertEquals("Argumento de la película 0", movie.getPlot());
+        assertEquals("2024-3-1", movie.getReleaseDate());
+        assertEquals(1.0, movie.getRating(), 0.0);
+        assertEquals("https://m.media-amazon.com/images/M/0.jpg", movie.getImage());
+    }
+
+    @Test
+    public void topMeter_skipsUnknownFieldsAndLeavesMissingOnesNull() throws Exception {
+        String json = "{\"extensions\":{\"disclaimer\":[1,2,{\"a\":null}]},"
+                + "\"data\":{\"__typename\":\"Query\",\"topMeterTitles\":{\"total\":2,\"pageInfo\":{\"hasNextPage\":true},\"edges\":["
+                // Campos desconocidos antes y después del node, y node sin la mayoría de campos
+                + "{\"cursor\":\"abc\",\"node\":{\"id\":\"tt1\",\"titleText\":null,\"plot\":null,\"unknown\":{\"deep\":[[{}]]},"
+                + "\"releaseDate\":{\"year\":2020,\"country\":{\"id\":\"US\"}},\"primaryImage\":{\"url\":null,\"width\":10}},\"extra\":true},"
+                // Edge sin node
+                + "{\"cursor\":\"def\"},"
+                + "{\"node\":{\"id\":\"tt2\",\"titleText\":{\"text\":\"Dos\",\"isOriginal\":true},"
+                + "\"plot\":{\"plotText\":{\"plainText\":\"Sinopsis\"}},\"ratingsSummary\":{\"voteCount\":5,\"aggregateRating\":null}}}"
+                + "]}}}";
+
+        List<Movie> movies = convertTop(json);
+
+        assertEquals(2, movies.size());
+        Movie first = movies.get(0);
+        assertEquals("tt1", first.getId());
+        assertNull(first.getTitle());
+        assertNull(first.getPlot());
+        assertEquals("2020-0-0", first.getReleaseDate());
+        assertNull(first.getImage());
+        assertEquals(0.0, first.getRating(), 0.0);
+
+        Movie second = movies.get(1);
+        assertEquals("Dos", second.getTitle());
+        assertEquals("Sinopsis", second.getPlot());
+        assertNull(second.getReleaseDate());
+        assertNull(second.getImage());
+    }
+
+    @Test
+    public void topMeter_withoutData_returnsEmpty() throws Exception {
+        assertTrue(convertTop("{\"errors\":[{\"message\":\"quota\"}]}").isEmpty());
+    }
+
+    @Test
+    public void overview_readsFieldsAndLeavesMissingOnesNull() throws Exception {
+        Converter<ResponseBody, ?> converter = factory.responseBodyConverter(Movie.class, new Annotation[0], null);
+
+        Movie movie = (Movie) converter.convert(body("{\"data\":{\"title\":{\"__typename\":\"Title\",\"id\":\"tt9\","
+                + "\"plot\":{\"plotText\":{\"plainText\":\"Sinopsis larga\"},\"language\":{\"id\":\"es\"}},"
+                + "\"ratingsSummary\":{\"aggregateRating\":8.4},\"genres\":{\"genres\":[{\"text\":\"Drama\"}]}}}}"));
+
+        assertEquals("tt9", movie.getId());
+        assertNull(movie.getTitle());
+        assertNull(movie.getReleaseDate());
+        assertEquals("Sinopsis larga", movie.getPlot());
+        assertEquals(8.4, movie.getRating(), 0.0);
+    }
+
+    @Test
+    public void otherTypes_areLeftToGson() throws Exception {
+        assertNull(factory.responseBodyConverter(String.class, new Annotation[0], null));
+        // List<Movie> sin @TopN no es del top
+        assertNull(factory.responseBodyConverter(topMoviesType(), new Annotation[0], null));
+    }
+
+    @Test
+    public void matchesGsonModels() throws Exception {
+        String json = topMeter(TOP_METER_SIZE);
+        List<Movie> streaming = convertTop(json);
+        List<Movie> gson = parseWithGson(json);
+
+        assertEquals(streaming.size(), gson.size());
+        for (int i = 0; i < streaming.size(); i++) {
+            Movie expected = gson.get(i);
+            Movie actual = streaming.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getTitle(), actual.getTitle());
+            assertEquals(expected.getPlot(), actual.getPlot());
+            assertEquals(expected.getReleaseDate(), actual.getReleaseDate());
+            assertEquals(expected.getRating(), actual.getRating(), 0.0);
+            assertEquals(expected.getImage(), actual.getImage());
+        }
+    }
+
+    /**
+     * Converter que eligen la anotación y el tipo de IMDBApiService.getTopMovies
+     * @return Converter
+     */
+    @SuppressWarnings("unchecked")
+    private Converter<ResponseBody, List<Movie>> topConverter() throws Exception {
+        Method method = IMDBApiService.class.getMethod("getTopMovies", String.class);
+        Converter<ResponseBody, ?> converter = factory.responseBodyConverter(topMoviesType(), method.getAnnotations(), null);
+        assertNotNull(converter);
+        return (Converter<ResponseBody, List<Movie>>) converter;
+    }
+
+    private List<Movie> convertTop(String json) throws Exception {
+        return topConverter().convert(body(json));
+    }
+
+    private static Type topMoviesType() throws NoSuchMethodException {
+        Method method = IMDBApiService.class.getMethod("getTopMovies", String.class);
+        // Call<List<Movie>> -> List<Movie>
+        return ((ParameterizedType) method.getGenericReturnType()).getActualTypeArguments()[0];
+    }
+
+    private static ResponseBody body(String json) {
+        return ResponseBody.create(JSON, json);
+    }
+
+    /**
+     * Respuesta de get-top-meter con la forma de la API: cada título con todos los campos que trae,
+     * aunque la aplicación solo use unos pocos
+     * @param count Número de títulos
+     * @return JSON
+     */
+    private static String topMeter(int count) {
+        StringBuilder json = new StringBuilder("{\"data\":{\"topMeterTitles\":{\"__typename\":\"TopMeterTitlesConnection\","
+                + "\"total\":" + count + ",\"edges\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"__typename\":\"TopMeterTitlesEdge\",\"node\":{")
+                    .append("\"__typename\":\"Title\",\"id\":\"tt").append(i).append("\",")
+                    .append("\"titleText\":{\"__typename\":\"TitleText\",\"text\":\"Película ").append(i).append("\",\"isOriginalTitle\":true},")
+                    .append("\"titleType\":{\"__typename\":\"TitleType\",\"id\":\"movie\",\"text\":\"Movie\",\"canHaveEpisodes\":false,")
+                    .append("\"displayableProperty\":{\"value\":{\"plainText\":\"\"}}},")
+                    .append("\"primaryImage\":{\"__typename\":\"Image\",\"id\":\"rm").append(i).append("\",")
+                    .append("\"url\":\"https://m.media-amazon.com/images/M/").append(i).append(".jpg\",\"width\":1500,\"height\":2222,")
+                    .append("\"caption\":{\"plainText\":\"Cartel de la película ").append(i).append("\"}},")
+                    .append("\"releaseDate\":{\"__typename\":\"ReleaseDate\",\"day\":1,\"month\":3,\"year\":2024,")
+                    .append("\"country\":{\"id\":\"US\",\"text\":\"United States\"}},")
+                    .append("\"ratingsSummary\":{\"__typename\":\"RatingsSummary\",\"aggregateRating\":").append(1 + i % 9)
+                    .append(",\"voteCount\":").append(1000 + i).append("},")
+                    .append("\"meterRanking\":{\"currentRank\":").append(i + 1)
+                    .append(",\"rankChange\":{\"changeDirection\":\"UP\",\"difference\":").append(i % 7).append("}},")
+                    .append("\"certificate\":null,\"canRate\":{\"isRatable\":true},")
+                    .append("\"runtime\":{\"seconds\":").append(5400 + i).append("},")
+                    .append("\"genres\":{\"genres\":[{\"text\":\"Drama\",\"id\":\"Drama\"},{\"text\":\"Thriller\",\"id\":\"Thriller\"}]},")
+                    .append("\"plot\":{\"__typename\":\"Plot\",\"plainText\":\"Argumento de la película ").append(i).append("\",")
+                    .append("\"language\":{\"id\":\"es-ES\"}}")
+                    .append("}}");
+        }
+        return json.append("]}}}").toString();
+    }
+
+    /**
+     * Conversión con Gson a los modelos anidados de la respuesta, leyendo el cuerpo igual que GsonResponseBodyConverter,
+     * y de ahí a películas con los campos que faltan a null
+     * @param json Respuesta
+     * @return Las primeras TOP_N películas
+     */
+    private static List<Movie> parseWithGson(String json) throws IOException {
+        TopMeterResponse response;
+        ResponseBody value = body(json);
+        try (JsonReader reader = GSON.newJsonReader(value.charStream())) {
+            response = GSON_ADAPTER.read(reader);
+        } finally {
+            value.close();
+        }
+        List<Movie> movies = new ArrayList<>();
+        for (Edge edge : response.data.topMeterTitles.edges) {
+            if (movies.size() >= IMDBApiService.TOP_N) {
+                break;
+            }
+            Node node = edge.node;
+            Movie movie = new Movie();
+            movie.setId(node.id);
+            movie.setTitle(node.titleText != null ? node.titleText.text : null);
+            movie.setPlot(node.plot != null ? node.plot.plainText : null);
+            movie.setImage(node.primaryImage != null ? node.primaryImage.url : null);
+            movie.setRating(node.ratingsSummary != null ? node.ratingsSummary.aggregateRating : 0.0);
+            movie.setReleaseDate(node.releaseDate != null
+                    ? node.releaseDate.year + "-" + node.releaseDate.month + "-" + node.releaseDate.day
+                    : null);
+            movies.add(movie);
+        }
+        return movies;
+    }
+
+    // Modelos Gson de la respuesta de get-top-meter
+
+    private static class TopMeterResponse {
+        Data data;
+    }
+
+    private static class Data {
+        TopMeterTitles topMeterTitles;
+    }
+
+    private static class TopMeterTitles {
+        List<Edge> edges;
+    }
+
+    private static class Edge {
+        Node node;
+    }
+
+    private static class Node {
+        String id;
+        TitleText titleText;
+        Plot plot;
+        ReleaseDate releaseDate;
+        RatingsSummary ratingsSummary;
+        PrimaryImage primaryImage;
+    }
+
+    private static class TitleText {
+        String text;
+    }
+
+    private static class Plot {
+        String plainText;
+    }
+
+    private static class ReleaseDate {
+        int year;
+        int month;
+        int day;
+    }
+
+    private static class RatingsSummary {
+        double aggregateRating;
+    }
+
+    private static class PrimaryImage {
+        String url;
+    }
+}
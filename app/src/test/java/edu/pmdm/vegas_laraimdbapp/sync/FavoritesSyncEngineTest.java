@@ -0,0 +1,458 @@
+package edu.pmdm.vegas_laraimdbapp.sync;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import edu.pmdm.vegas_laraimdbapp.models.Movie;
+import edu.pmdm.vegas_laraimdbapp.models.OutboxOperation;
+import edu.pmdm.vegas_laraimdbapp.models.RemoteFavorite;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del motor de sincronización de favoritos contra {@link InMemoryFavoritesStore}, en la JVM:
+ * lectura incremental por marca de agua, borrados lógicos, subida de la cola y lecturas acotadas con miles de documentos.
+ */
+public class FavoritesSyncEngineTest {
+
+    private static final String USER = "user";
+    private static final long TIMEOUT_S = 30;
+
+    private InMemoryFavoritesStore store;
+    private MemoryLocalStore local;
+    private ExecutorService executor;
+    private FavoritesSyncEngine engine;
+
+    @Before
+    public void setUp() {
+        store = new InMemoryFavoritesStore(42);
+        local = new MemoryLocalStore();
+        executor = Executors.newSingleThreadExecutor();
+        engine = new FavoritesSyncEngine(store, local, executor);
+    }
+
+    @After
+    public void tearDown() {
+        engine.stopListening();
+        executor.shutdownNow();
+        store.shutdown();
+    }
+
+    @Test
+    public void firstSync_readsWholeCollectionIncludingLegacyDocuments() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            store.putLegacy(USER, movie(i));
+        }
+        for (int i = 10; i < 20; i++) {
+            store.put(USER, movie(i));
+        }
+
+        assertEquals(20, sync());
+        assertConverged();
+        assertTrue(local.getWatermark(USER) > 0);
+    }
+
+    @Test
+    public void secondSync_readsOnlyChangesSinceWatermark() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            store.put(USER, movie(i));
+        }
+        sync();
+        long watermark = local.getWatermark(USER);
+
+        store.put(USER, movie(100));
+        store.put(USER, movie(101));
+        store.put(USER, movie(5)); // Modificado
+
+        // Los tres cambios y el documento que marca el límite, que se relee por la consulta con >=
+        assertEquals(4, sync());
+        assertConverged();
+        assertTrue(local.getWatermark(USER) > watermark);
+    }
+
+    @Test
+    public void syncWithoutChanges_readsOnlyBoundary() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            store.put(USER, movie(i));
+        }
+        sync();
+        assertEquals(1, sync());
+        assertConverged();
+    }
+
+    @Test
+    public void tombstone_removesLocalFavorite() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            store.put(USER, movie(i));
+        }
+        sync();
+
+        store.delete(USER, "tt3");
+        store.delete(USER, "tt7");
+
+        assertEquals(3, sync());
+        assertFalse(local.contains("tt3"));
+        assertFalse(local.contains("tt7"));
+        assertEquals(8, local.size());
+        assertConverged();
+    }
+
+    @Test
+    public void tombstone_onFirstSync_isNotAddedLocally() throws Exception {
+        store.put(USER, movie(1));
+        store.put(USER, movie(2));
+        store.delete(USER, "tt2");
+
+        sync();
+        assertTrue(local.contains("tt1"));
+        assertFalse(local.contains("tt2"));
+    }
+
+    @Test
+    public void readdedAfterTombstone_isRestored() throws Exception {
+        store.put(USER, movie(1));
+        sync();
+        store.delete(USER, "tt1");
+        sync();
+        assertFalse(local.contains("tt1"));
+
+        store.put(USER, movie(1));
+        sync();
+        assertTrue(local.contains("tt1"));
+        assertConverged();
+    }
+
+    @Test
+    public void severalPages_areAppliedAndWatermarkSavedOnlyAtTheEnd() throws Exception {
+        for (int i = 0; i < 1234; i++) {
+            store.put(USER, movie(i));
+        }
+
+        assertEquals(1234, sync());
+        assertConverged();
+        // Las páginas intermedias no tocan la marca de agua; solo la última la guarda
+        assertEquals(1, local.watermarkWrites);
+    }
+
+    @Test
+    public void failedSync_keepsWatermarkAndNextSyncRecovers() throws Exception {
+        for (int i = 0; i < 1200; i++) {
+            store.put(USER, movie(i));
+        }
+        sync();
+        long watermark = local.getWatermark(USER);
+
+        for (int i = 1200; i < 2400; i++) {
+            store.put(USER, movie(i));
+        }
+        store.failNext(1);
+        try {
+            sync();
+            fail("La sincronización debía fallar");
+        } catch (ExecutionException expected) {
+            // Fallo simulado del almacén
+        }
+        assertEquals(watermark, local.getWatermark(USER));
+
+        sync();
+        assertConverged();
+    }
+
+    @Test
+    public void outboxFlush_reachesOtherDevice() throws Exception {
+        store.put(USER, movie(1));
+        store.put(USER, movie(2));
+        sync();
+
+        // Cola de otro dispositivo: 1200 altas y la baja de un favorito existente, en lotes como FavoritesOutbox
+        List<OutboxOperation> outbox = new ArrayList<>();
+        for (int i = 100; i < 1300; i++) {
+            outbox.add(new OutboxOperation(i, USER, "tt" + i, OutboxOperation.OP_ADD, 0, movie(i)));
+        }
+        outbox.add(new OutboxOperation(0, USER, "tt1", OutboxOperation.OP_REMOVE, 0, null));
+        flush(outbox);
+
+        RemoteFavorite tombstone = store.snapshot(USER).get("tt1");
+        assertTrue(tombstone.isDeleted());
+        assertTrue(tombstone.getUpdatedAt() > 0);
+
+        sync();
+        assertFalse(local.contains("tt1"));
+        assertTrue(local.contains("tt2"));
+        assertTrue(local.contains("tt1299"));
+        assertConverged();
+    }
+
+    @Test
+    public void pendingAddThenRemove_deletesAddFromOtherDevice() throws Exception {
+        sync();
+
+        // A marca tt1 sin subirlo todavía; B añade tt1 y A sincroniza: el cambio de B se salta por la entrada pendiente
+        local.addLocal(movie(1));
+        store.put(USER, movie(1));
+        sync();
+        assertTrue(local.getWatermark(USER) >= store.snapshot(USER).get("tt1").getUpdatedAt());
+
+        // A quita tt1 antes de subir: la entrada pendiente pasa a baja, no desaparece
+        local.removeLocal("tt1");
+        assertEquals(OutboxOperation.OP_REMOVE, local.pendingOp("tt1"));
+        flush(local.drainOutbox());
+
+        assertTrue(store.snapshot(USER).get("tt1").isDeleted());
+        sync();
+        assertFalse(local.contains("tt1"));
+        assertConverged();
+    }
+
+    @Test
+    public void pendingRemoveThenAdd_keepsDocument() throws Exception {
+        store.put(USER, movie(1));
+        sync();
+
+        local.removeLocal("tt1");
+        store.put(USER, movie(1)); // Otro dispositivo lo modifica mientras tanto
+        sync();
+        local.addLocal(movie(1));
+        flush(local.drainOutbox());
+
+        assertFalse(store.snapshot(USER).get("tt1").isDeleted());
+        sync();
+        assertTrue(local.contains("tt1"));
+        assertConverged();
+    }
+
+    @Test
+    public void outboxBatchOverLimit_isRejected() throws Exception {
+        List<OutboxOperation> operations = new ArrayList<>();
+        for (int i = 0; i <= RemoteFavoritesStore.MAX_BATCH_SIZE; i++) {
+            operations.add(new OutboxOperation(i, USER, "tt" + i, OutboxOperation.OP_ADD, 0, movie(i)));
+        }
+        try {
+            store.commit(operations).get(TIMEOUT_S, TimeUnit.SECONDS);
+            fail("El lote supera el límite de un WriteBatch");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof IllegalArgumentException);
+        }
+        assertTrue(store.snapshot(USER).isEmpty());
+    }
+
+    @Test
+    public void listener_appliesRemoteChanges() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            store.put(USER, movie(i));
+        }
+        engine.startListening(USER);
+        waitFor(() -> local.size() == 20);
+
+        store.put(USER, movie(20));
+        store.delete(USER, "tt0");
+        waitFor(() -> local.contains("tt20") && !local.contains("tt0"));
+        assertConverged();
+    }
+
+    /**
+     * Miles de documentos con latencia y fallos aleatorios.
+     * Una lectura completa seguida de rondas de cambios de otro dispositivo, con una sincronización incremental
+     * tras cada ronda; al final el local tiene que coincidir con el almacén y las incrementales
+     * solo pueden leer lo que ha cambiado.
+     */
+    @Test
+    public void thousandsOfDocuments_incrementalSyncReadsOnlyChanges() throws Exception {
+        final int documents = 5000;
+        final int rounds = 20;
+        final int changesPerRound = 100;
+        Random random = new Random(7);
+
+        for (int i = 0; i < documents; i++) {
+            if (i % 10 == 0) {
+                store.putLegacy(USER, movie(i));
+            } else {
+                store.put(USER, movie(i));
+            }
+        }
+        store.setLatency(1, 5);
+
+        assertEquals(documents, sync());
+        assertConverged();
+
+        store.setFailureRate(0.1);
+        long readBefore = store.getDocumentsRead();
+        int retries = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (int i = 0; i < changesPerRound; i++) {
+                int id = random.nextInt(documents + 1000);
+                if (random.nextInt(4) == 0) {
+                    store.delete(USER, "tt" + id);
+                } else {
+                    store.put(USER, movie(id));
+                }
+            }
+            while (true) {
+                try {
+                    sync();
+                    break;
+                } catch (ExecutionException e) {
+                    retries++; // Como el reintento del planificador
+                }
+            }
+        }
+        long deltaRead = store.getDocumentsRead() - readBefore;
+        assertConverged();
+
+        // Cada ronda incremental relee como mucho sus cambios y el límite, no la colección entera
+        assertTrue("Documentos leídos en las incrementales: " + deltaRead,
+                deltaRead <= (long) (rounds + retries) * (changesPerRound + 1));
+    }
+
+    /**
+     * Sincroniza y espera el resultado
+     * @return Documentos leídos
+     */
+    private int sync() throws Exception {
+        return engine.sync(USER).get(TIMEOUT_S, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Sube una cola en lotes del tamaño máximo, como FavoritesOutbox
+     * @param operations Operaciones en orden
+     */
+    private void flush(List<OutboxOperation> operations) throws Exception {
+        for (int from = 0; from < operations.size(); from += RemoteFavoritesStore.MAX_BATCH_SIZE) {
+            int to = Math.min(from + RemoteFavoritesStore.MAX_BATCH_SIZE, operations.size());
+            store.commit(operations.subList(from, to)).get(TIMEOUT_S, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Comprueba que los favoritos locales son exactamente los documentos no borrados del almacén
+     */
+    private void assertConverged() {
+        Map<String, String> expected = new HashMap<>();
+        for (RemoteFavorite favorite : store.snapshot(USER).values()) {
+            if (!favorite.isDeleted()) {
+                expected.put(favorite.getMovieId(), favorite.getMovie().getTitle());
+            }
+        }
+        assertEquals(expected, local.titles());
+    }
+
+    /**
+     * Espera a que se cumpla una condición que depende de entregas asíncronas
+     * @param condition Condición
+     */
+    private static void waitFor(Condition condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_S);
+        while (!condition.met()) {
+            if (System.nanoTime() > deadline) {
+                fail("Tiempo de espera agotado");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private interface Condition {
+        boolean met();
+    }
+
+    private static Movie movie(int i) {
+        return new Movie("tt" + i, "https://example.com/" + i + ".jpg", "Película " + i, "Argumento " + i, i % 10, "2024-01-01");
+    }
+
+    /**
+     * Base local en memoria con la misma semántica que FavoritesManager.applySyncedChanges
+     * y una cola de subida como la de FavoriteDatabase.enqueueOutbox.
+     */
+    private static class MemoryLocalStore implements FavoritesSyncEngine.LocalStore {
+        private final Map<String, Movie> favorites = new HashMap<>();
+        private final Map<String, OutboxOperation> outbox = new LinkedHashMap<>(); // Entradas pendientes por película
+        private long nextOutboxId = 1;
+        private long watermark = -1;
+        int watermarkWrites = 0;
+
+        @Override
+        public synchronized long getWatermark(String userId) {
+            return watermark;
+        }
+
+        @Override
+        public synchronized boolean applyChanges(String userId, List<Movie> upserts, List<String> deletedIds, long watermark) {
+            // Las películas con un cambio local pendiente se saltan: manda el cambio local
+            for (Movie movie : upserts) {
+                if (!outbox.containsKey(movie.getId())) {
+                    favorites.put(movie.getId(), movie);
+                }
+            }
+            for (String movieId : deletedIds) {
+                if (!outbox.containsKey(movieId)) {
+                    favorites.remove(movieId);
+                }
+            }
+            if (watermark >= 0) {
+                this.watermark = watermark;
+                watermarkWrites++;
+            }
+            return true;
+        }
+
+        // Como FavoritesManager.addFavorite
+        synchronized void addLocal(Movie movie) {
+            if (favorites.put(movie.getId(), movie) == null) {
+                enqueue(movie.getId(), OutboxOperation.OP_ADD, movie);
+            }
+        }
+
+        // Como FavoriteDatabase.removeFavorite
+        synchronized void removeLocal(String movieId) {
+            if (favorites.remove(movieId) != null) {
+                enqueue(movieId, OutboxOperation.OP_REMOVE, null);
+            }
+        }
+
+        // La entrada pendiente pasa a llevar la última operación; nunca se borra
+        private void enqueue(String movieId, String op, Movie movie) {
+            OutboxOperation pending = outbox.get(movieId);
+            long id = pending != null ? pending.getId() : nextOutboxId++;
+            outbox.put(movieId, new OutboxOperation(id, USER, movieId, op, 0, movie));
+        }
+
+        synchronized String pendingOp(String movieId) {
+            OutboxOperation pending = outbox.get(movieId);
+            return pending != null ? pending.getOp() : null;
+        }
+
+        // Como claimOutbox y completeOutbox cuando el lote se confirma
+        synchronized List<OutboxOperation> drainOutbox() {
+            List<OutboxOperation> operations = new ArrayList<>(outbox.values());
+            outbox.clear();
+            return operations;
+        }
+
+        synchronized boolean contains(String movieId) {
+            return favorites.containsKey(movieId);
+        }
+
+        synchronized int size() {
+            return favorites.size();
+        }
+
+        synchronized Map<String, String> titles() {
+            Map<String, String> titles = new HashMap<>();
+            for (Movie movie : favorites.values()) {
+                titles.put(movie.getId(), movie.getTitle());
+            }
+            return titles;
+        }
+    }
+}